@@ -0,0 +1,48 @@
+package com.maps.financial.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+
+/**
+ * Configuração do pool de threads das inclusões assíncronas de movimentações (com as filas de movimentações desligadas).
+ * A quantidade de threads é definida por financial.movement.async.threads (0 = número de processadores) e a quantidade
+ * máxima de movimentações aguardando por financial.movement.async.capacity; com o pool cheio, novas movimentações são recusadas.
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Configuration
+public class MovementSubmissionConfig {
+
+	public static final String MOVEMENT_SUBMISSION_EXECUTOR = "movementSubmissionExecutor";
+
+	@Value("${financial.movement.async.threads:0}")
+	private int threads;
+
+	@Value("${financial.movement.async.capacity:1000}")
+	private int capacity;
+
+	/**
+	 * Pool de threads com fila limitada, executando cada inclusão com o usuário que a enviou como usuário logado
+	 * Lança RejectedExecutionException com a fila cheia.
+	 *
+	 * @return ExecutorService
+	 */
+	@Bean(name = MOVEMENT_SUBMISSION_EXECUTOR, destroyMethod = "shutdown")
+	public ExecutorService movementSubmissionExecutor() {
+		final int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		return new DelegatingSecurityContextExecutorService(new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, capacity)), new CustomizableThreadFactory("movement-async-"),
+				new ThreadPoolExecutor.AbortPolicy()));
+	}
+
+}
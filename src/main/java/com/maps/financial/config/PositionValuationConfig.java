@@ -0,0 +1,38 @@
+package com.maps.financial.config;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuração do pool dedicado ao cálculo paralelo das posições dos ativos.
+ * O modo paralelo pode ser desligado com financial.position.parallel.enabled=false e o
+ * paralelismo é definido por financial.position.parallel.parallelism (0 = número de processadores).
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = "financial.position.parallel.enabled", havingValue = "true", matchIfMissing = true)
+public class PositionValuationConfig {
+
+	public static final String POSITION_VALUATION_POOL = "positionValuationPool";
+
+	@Value("${financial.position.parallel.parallelism:0}")
+	private int parallelism;
+
+	/**
+	 * ForkJoinPool exclusivo para o cálculo das posições, isolado do common pool
+	 *
+	 * @return ForkJoinPool
+	 */
+	@Bean(name = POSITION_VALUATION_POOL, destroyMethod = "shutdown")
+	public ForkJoinPool positionValuationPool() {
+		return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.maps.financial.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita as rotinas agendadas da aplicação (ex.: fechamento diário das posições dos ativos).
+ * Pode ser desligado com financial.scheduling.enabled=false.
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "financial.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+
+}
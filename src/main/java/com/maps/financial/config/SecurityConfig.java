@@ -7,10 +7,12 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 
+import com.maps.financial.domain.user.JobFunction;
 import com.maps.financial.infra.security.SimpleUserAuthenticationProvider;
 
 /**
  * Configuração de segurança para autenticação simples.
+ * Os endpoints do actuator, exceto health, são restritos aos usuários com função de administrador.
  * 
  * @author Elisson
  * @date 13/07/2020
@@ -28,6 +30,8 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 		http.csrf().disable()
 	        .authorizeRequests()
 	        .antMatchers("/h2-console/**").permitAll()
+	        .antMatchers("/actuator/health", "/actuator/health/**").authenticated()
+	        .antMatchers("/actuator/**").hasAuthority(JobFunction.ADMIN.name())
 	        .anyRequest().authenticated()
 	        .and().httpBasic();
 	}
@@ -40,7 +44,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 	    auth.inMemoryAuthentication()
 	            .withUser("admin")
 	            .password("{noop}admin")
-	            .authorities("ADMIN");
+	            .authorities(JobFunction.ADMIN.name());
 	
 	}
 	
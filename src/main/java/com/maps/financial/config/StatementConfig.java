@@ -0,0 +1,38 @@
+package com.maps.financial.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Configuração do pool de threads dedicado à geração dos extratos mensais das contas correntes.
+ * A quantidade de threads é definida por financial.statement.threads (0 = número de processadores).
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Configuration
+public class StatementConfig {
+
+	public static final String STATEMENT_EXECUTOR = "statementExecutor";
+
+	@Value("${financial.statement.threads:0}")
+	private int threads;
+
+	/**
+	 * Pool de threads exclusivo para a geração dos extratos, cada conta processada por uma thread
+	 *
+	 * @return ExecutorService
+	 */
+	@Bean(name = STATEMENT_EXECUTOR, destroyMethod = "shutdown")
+	public ExecutorService statementExecutor() {
+		return Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+				new CustomizableThreadFactory("statement-"));
+	}
+
+}
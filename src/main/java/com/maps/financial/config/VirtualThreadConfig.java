@@ -0,0 +1,51 @@
+package com.maps.financial.config;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.maps.financial.infra.concurrent.VirtualThreads;
+
+/**
+ * Configuração do modo de execução das requisições web em threads virtuais (Java 21 ou superior):
+ * o Tomcat passa a atender cada requisição em uma nova thread virtual, em vez do pool limitado a server.tomcat.max-threads,
+ * e as chamadas às façades feitas pelas requisições (incluindo os acessos JPA bloqueantes) executam nessas threads.
+ * A quantidade de requisições simultâneas passa a ser limitada por server.tomcat.max-connections.
+ * Ligado com financial.threads.virtual.enabled=true; em JVM sem threads virtuais a aplicação não inicia.
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = "financial.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+	public static final String VIRTUAL_REQUEST_EXECUTOR = "virtualRequestExecutor";
+
+	/**
+	 * Executor com uma thread virtual por requisição
+	 *
+	 * @return ExecutorService
+	 */
+	@Bean(name = VIRTUAL_REQUEST_EXECUTOR, destroyMethod = "shutdown")
+	public ExecutorService virtualRequestExecutor() {
+		return VirtualThreads.newThreadPerTaskExecutor("http-virtual-");
+	}
+
+	/**
+	 * Substitui o pool de threads do conector do Tomcat pelo executor de threads virtuais
+	 *
+	 * @return TomcatProtocolHandlerCustomizer
+	 */
+	@Bean
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+		final ExecutorService executor = virtualRequestExecutor();
+		return protocolHandler -> protocolHandler.setExecutor(executor);
+	}
+
+}
@@ -1,7 +1,6 @@
 package com.maps.financial.domain.account;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,17 +8,22 @@ import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import com.maps.financial.domain.user.User;
 import com.maps.financial.exceptions.AccountBalanceNotAvailable;
 import com.maps.financial.exceptions.ExceptionMessage;
+import com.maps.financial.infra.persistence.BlockIdGenerator;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -40,9 +44,15 @@ import lombok.Setter;
 public class Account {
 	
 	@Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "account_id")
+    @GenericGenerator(name = "account_id", strategy = BlockIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = BlockIdGenerator.ENTITY_PARAM, value = "account"))
     private Long id;
 	
+	@Version
+	@Getter(AccessLevel.NONE)
+	private Long version; //versão para o controle otimista de alterações concorrentes
+	
 	@Setter
 	@Column(precision=10, scale=2)
 	private BigDecimal balance;
@@ -59,7 +69,7 @@ public class Account {
 	 * 
 	 * @param newLaunch
 	 */
-	public synchronized void includeLaunch(Launch newLaunch) {
+	public void includeLaunch(Launch newLaunch) {
 		if (LaunchType.OUTBOUND.equals(newLaunch.getType())) {
 			this.updateBalanceOutbound(newLaunch.getValue());
 		} else {
@@ -69,20 +79,6 @@ public class Account {
 		this.launches.add(newLaunch);
 	}
 	
-	/**
-	 * Método responsável por calcular e retornar o saldo disponível na conta em uma determinada data
-	 * 
-	 * @param date
-	 * @return BigDecimal
-	 */
-	public BigDecimal getBalanceInDate(LocalDate date) {
-		BigDecimal balanceInDate = this.getBalance()
-				.add(this.getTotalValueInbound(date))
-				.subtract(this.getTotalValueOutbound(date));
-		
-		return balanceInDate.setScale(2, BigDecimal.ROUND_DOWN);
-	}
-	
 	/**
 	 * Método responsável por subtrair o saldo da conta pelo valor do novo lançamento.
 	 * Inclui verificação para saldo nunca ficar negativo
@@ -115,43 +111,5 @@ public class Account {
 	private boolean isUnavailableBalance(BigDecimal newValue) {
 		return this.getBalance().compareTo(newValue) == -1 ? true : false;
 	}
-	
-	/**
-     * Método responsável por retornar o valor total das movimentações de saída na conta até a data informada
-     * 
-     * @param date
-     * @return BigDecimal
-     */
-    private BigDecimal getTotalValueOutbound(LocalDate date) {
-    	if (date == null) {
-    		return BigDecimal.ZERO.setScale(2, BigDecimal.ROUND_DOWN);
-    	}
-    	BigDecimal totalValue = this.getLaunches()
-    			.stream()
-    			.filter(launch -> LaunchType.OUTBOUND.equals(launch.getType()) && !date.isBefore(launch.getDate()))
-    			.map(launch -> launch.getValue())
-    			.reduce(BigDecimal.ZERO, BigDecimal::add);
-    	
-    	return totalValue.setScale(2, BigDecimal.ROUND_DOWN);
-    }
-    
-    /**
-     * Método responsável por retornar o valor total das movimentações de entrada na conta até a data atual
-     * 
-     * @param date
-     * @return BigDecimal
-     */
-    private BigDecimal getTotalValueInbound(LocalDate date) {
-    	if (date == null) {
-    		return BigDecimal.ZERO.setScale(2, BigDecimal.ROUND_DOWN);
-    	}
-    	BigDecimal totalValue = this.getLaunches()
-    			.stream()
-    			.filter(launch -> LaunchType.INBOUND.equals(launch.getType()) && !date.isBefore(launch.getDate()))
-    			.map(launch -> launch.getValue())
-    			.reduce(BigDecimal.ZERO, BigDecimal::add);
-    	
-    	return totalValue.setScale(2, BigDecimal.ROUND_DOWN);
-    }
 
 }
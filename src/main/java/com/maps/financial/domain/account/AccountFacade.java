@@ -1,13 +1,21 @@
 package com.maps.financial.domain.account;
 
 import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.maps.financial.domain.asset.AssetMovement;
+import com.maps.financial.domain.commons.KeysetPage;
+import com.maps.financial.domain.commons.OptimisticRetry;
 import com.maps.financial.domain.asset.MovementType;
 
 /**
@@ -23,9 +31,21 @@ public class AccountFacade {
 	@Autowired
 	private AccountService accountService;
 	
+	@Autowired
+	private StatementService statementService;
+	
 	@Autowired
 	private LaunchFactory launchFactory;
 	
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	
+	@Autowired
+	private OptimisticRetry optimisticRetry;
+	
+	@Value("${financial.launch.batch.chunk-size:500}")
+	private int chunkSize;
+	
 	private static final String DESCRIPTION_BUY = "LAUNCH FOR A BUY";
 	private static final String DESCRIPTION_SELL = "LAUNCH FOR A SELL";
 	
@@ -41,9 +61,38 @@ public class AccountFacade {
 		return accountService.create(account);
 	}
 	
-	@Transactional
+	/**
+	 * Inclui um lançamento na conta corrente do usuário logado em transação própria,
+	 * repetida em caso de conflito de versão com outra alteração da conta
+	 * 
+	 * @param newLaunch
+	 * @return Account
+	 */
 	public Account includeLaunch(final Launch newLaunch) {
-		return accountService.includeLaunch(newLaunch);
+		return optimisticRetry.execute(() -> {
+			if (newLaunch != null) {
+				newLaunch.clearId();
+			}
+			return accountService.includeLaunch(newLaunch);
+		});
+	}
+	
+	/**
+	 * Inclui um lote de lançamentos na conta corrente do usuário logado, em blocos com transações próprias:
+	 * 		os lançamentos aceitos de um bloco permanecem gravados mesmo que um bloco seguinte falhe
+	 * 
+	 * @param newLaunches
+	 * @return List<LaunchOutcome> resultado de cada lançamento, na ordem do lote
+	 */
+	public List<LaunchOutcome> includeLaunches(final List<Launch> newLaunches) {
+		final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		final List<LaunchOutcome> outcomes = new ArrayList<>(newLaunches.size());
+		for (int begin = 0; begin < newLaunches.size(); begin += chunkSize) {
+			final int firstIndex = begin;
+			final List<Launch> chunk = newLaunches.subList(begin, Math.min(begin + chunkSize, newLaunches.size()));
+			outcomes.addAll(transactionTemplate.execute(status -> accountService.includeLaunches(chunk, firstIndex)));
+		}
+		return outcomes;
 	}
 	
 	@Transactional
@@ -52,12 +101,33 @@ public class AccountFacade {
 		return accountService.includeLaunch(newLaunch);
 	}
 	
+	public Long getAccountIdOfCurrentUser() {
+		return accountService.getAccountIdOfCurrentUser();
+	}
+	
 	public BigDecimal getBalance(String data) {
 		return accountService.getBalance(data);
 	}
 	
-	public List<Launch> getLaunches(String dataInicio, String dataFim) {
-		return accountService.getLaunches(dataInicio, dataFim);
+	public KeysetPage<Launch> getLaunches(String dataInicio, String dataFim, String cursor, int size) {
+		return accountService.getLaunches(dataInicio, dataFim, cursor, size);
+	}
+	
+	@Transactional(readOnly = true)
+	public void exportLaunches(String dataInicio, String dataFim, Consumer<Launch> consumer) {
+		accountService.exportLaunches(dataInicio, dataFim, consumer);
+	}
+	
+	public int generateStatements(String mesInicio, String mesFim) {
+		return statementService.generateStatements(mesInicio, mesFim);
+	}
+	
+	public int generateStatements(YearMonth periodBegin, YearMonth periodEnd) {
+		return statementService.generate(periodBegin, periodEnd);
+	}
+	
+	public Statement getStatement(String mes) {
+		return statementService.getStatement(mes);
 	}
 	
 	/**
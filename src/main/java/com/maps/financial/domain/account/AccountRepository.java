@@ -1,6 +1,9 @@
 package com.maps.financial.domain.account;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 /**
  * Interface para operações com Conta Corrente
@@ -11,4 +14,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
  */
 public interface AccountRepository extends JpaRepository<Account, Long>{
 
+	/**
+	 * Busca os ids de todas as contas correntes, ordenados
+	 * 
+	 * @return List<Long>
+	 */
+	@Query("select a.id from Account a order by a.id")
+	List<Long> findAllIds();
+
 }
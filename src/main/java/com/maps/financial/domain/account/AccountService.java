@@ -3,13 +3,26 @@ package com.maps.financial.domain.account;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import com.maps.financial.domain.commons.FixedPoint;
+import com.maps.financial.domain.commons.KeysetPage;
+import com.maps.financial.domain.commons.LockRegistry;
+import com.maps.financial.domain.commons.PageCursor;
+import com.maps.financial.domain.commons.ReservationLedger;
 import com.maps.financial.domain.user.User;
+import com.maps.financial.exceptions.AccountBalanceNotAvailable;
 import com.maps.financial.exceptions.AuthorizationException;
 import com.maps.financial.exceptions.ExceptionMessage;
 import com.maps.financial.exceptions.ObjectNotFoundException;
@@ -28,9 +41,24 @@ public class AccountService {
 	@Autowired
 	private AccountRepository repository;
 	
+	@Autowired
+	private LaunchRepository launchRepository;
+	
 	@Autowired
 	private SecurityUtils securityUtils;
 	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Autowired
+	private LockRegistry lockRegistry;
+	
+	@Autowired
+	private ReservationLedger reservationLedger;
+	
+	@Value("${financial.pagination.max-size:1000}")
+	private int maxPageSize;
+	
 	private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 	
 	/**
@@ -68,9 +96,13 @@ public class AccountService {
 	
 	/**
 	 * Inclui um novo lançamento na conta corrente do usuário logado
+	 * O saldo após o lançamento é calculado a partir do saldo na sua data, e os saldos dos lançamentos
+	 * posteriores (lançamento retroativo) são atualizados com o seu valor
+	 * Lançamentos de saída são rejeitados caso o saldo atual da conta (após o lançamento mais recente) não comporte o valor.
 	 * 
 	 * @param newLaunch
 	 * @return Account
+	 * @throws AccountBalanceNotAvailable
 	 */
 	public Account includeLaunch(final Launch newLaunch) {
 		//Validação: usuário administrativo não deve poder gerar lançamentos e movimentos
@@ -78,16 +110,91 @@ public class AccountService {
 			throw new AuthorizationException(ExceptionMessage.MESSAGE_ACCESS_DENIED);
 		}
 		
-		Account account = findById(getAccountIdOfCurrentUser());
+		final Long accountId = getAccountIdOfCurrentUser();
+		reserveOutbound(accountId, newLaunch);
+		lockRegistry.lock(Account.class, accountId);
+		Account account = findById(accountId);
+		final BigDecimal currentBalance = getCurrentBalance(account);
+		observeBalance(account, currentBalance);
 		if (newLaunch != null) {
+			if (isOverdrawn(currentBalance, newLaunch)) {
+				throw new AccountBalanceNotAvailable(ExceptionMessage.MESSAGE_ACCOUNT_BALANACE_NOT_AVAILABLE);
+			}
+			final BigDecimal balanceBefore = getBalanceInDate(account, newLaunch.getDate());
 			account.includeLaunch(newLaunch);
+			newLaunch.setBalanceAfter(balanceBefore.add(newLaunch.balanceChange()));
+			launchRepository.addToBalancesAfter(account.getId(), newLaunch.getDate(), newLaunch.balanceChange());
+			reservationLedger.applyOnCommit(Account.class, accountId, FixedPoint.ofMoney(newLaunch.balanceChange()));
 		}
 		return account;
 	}
 	
+	/**
+	 * Inclui um bloco de lançamentos de um lote na conta corrente do usuário logado, na ordem informada
+	 * Lançamentos incompletos ou de saída sem saldo disponível são rejeitados sem interromper o bloco; o saldo disponível
+	 * 		é o saldo atual da conta acumulado com os lançamentos já aceitos do bloco.
+	 * Lançamentos a partir da data do último lançamento da conta recebem o saldo acumulado em memória, sem consultas,
+	 * 		e são gravados em lote ao final do bloco; apenas os retroativos consultam o saldo na sua data e atualizam os
+	 * 		saldos dos lançamentos posteriores.
+	 * O contexto de persistência é liberado ao final do bloco.
+	 * 
+	 * @param newLaunches
+	 * @param firstIndex posição do primeiro lançamento do bloco no lote
+	 * @return List<LaunchOutcome>
+	 */
+	public List<LaunchOutcome> includeLaunches(final List<Launch> newLaunches, final int firstIndex) {
+		//Validação: usuário administrativo não deve poder gerar lançamentos e movimentos
+		if (isUserAdministrator()) {
+			throw new AuthorizationException(ExceptionMessage.MESSAGE_ACCESS_DENIED);
+		}
+		
+		final Long accountId = getAccountIdOfCurrentUser();
+		lockRegistry.lock(Account.class, accountId);
+		final Account account = findById(accountId);
+		LocalDate lastDate = launchRepository.findLastDate(account.getId());
+		BigDecimal lastBalance = getBalanceInDate(account, lastDate);
+		final BigDecimal committedBalance = lastBalance;
+		observeBalance(account, committedBalance);
+		final List<LaunchOutcome> outcomes = new ArrayList<>(newLaunches.size());
+		for (int i = 0; i < newLaunches.size(); i++) {
+			final Launch newLaunch = newLaunches.get(i);
+			if (newLaunch == null || !newLaunch.isComplete()) {
+				outcomes.add(LaunchOutcome.rejected(firstIndex + i, ExceptionMessage.MESSAGE_LAUNCH_INCOMPLETE.getValue()));
+				continue;
+			}
+			
+			final boolean backdated = lastDate != null && newLaunch.getDate().isBefore(lastDate);
+			if (isOverdrawn(lastBalance, newLaunch)) {
+				outcomes.add(LaunchOutcome.rejected(firstIndex + i, ExceptionMessage.MESSAGE_ACCOUNT_BALANACE_NOT_AVAILABLE.getValue()));
+				continue;
+			}
+			final BigDecimal balanceBefore = backdated ? getBalanceInDate(account, newLaunch.getDate()) : lastBalance;
+			try {
+				account.includeLaunch(newLaunch);
+			} catch (AccountBalanceNotAvailable e) {
+				outcomes.add(LaunchOutcome.rejected(firstIndex + i, e.getMessage()));
+				continue;
+			}
+			newLaunch.setBalanceAfter(balanceBefore.add(newLaunch.balanceChange()));
+			if (backdated) {
+				launchRepository.addToBalancesAfter(account.getId(), newLaunch.getDate(), newLaunch.balanceChange());
+			} else {
+				lastDate = newLaunch.getDate();
+			}
+			lastBalance = lastBalance.add(newLaunch.balanceChange());
+			outcomes.add(LaunchOutcome.accepted(firstIndex + i));
+		}
+		
+		reservationLedger.applyOnCommit(Account.class, accountId, FixedPoint.ofMoney(lastBalance.subtract(committedBalance)));
+		entityManager.flush();
+		entityManager.clear();
+		return outcomes;
+	}
+	
 	/**
 	 * Retorna o saldo da conta corrente em uma data especificada
 	 * Saldo e Posição são por data, considerando apenas os lançamentos/movimentações até a data (inclusive).
+	 * O saldo é o armazenado no último lançamento até a data, ou o saldo inicial da conta caso não exista.
 	 * 
 	 * @param data
 	 * @return BigDecimal
@@ -98,28 +205,130 @@ public class AccountService {
 		}
 		LocalDate date = LocalDate.parse(data, formatter);
 		Account account = findById(getAccountIdOfCurrentUser());
-		return account.getBalanceInDate(date);
+		return getBalanceInDate(account, date);
 	}
 
 	/**
-	 * Retorna a lista de lançamentos entre as datas especificadas da conta corrente do usuário logado
+	 * Retorna uma página dos lançamentos entre as datas especificadas da conta corrente do usuário logado
 	 * Consultas de lançamentos, movimentações devem ter filtro obrigatório "data início" e "data fim", 
 	 * 		filtrando a data de movimento (inclusive/inclusive).
+	 * A página começa após o cursor informado (primeira página caso nulo) e possui no máximo o tamanho informado,
+	 * 		limitado ao tamanho máximo configurado.
 	 * 
 	 * @param dataInicio
 	 * @param dataFim
-	 * @return List<Launch>
+	 * @param cursor
+	 * @param size
+	 * @return KeysetPage<Launch>
 	 */
-	public List<Launch> getLaunches(String dataInicio, String dataFim) {
+	public KeysetPage<Launch> getLaunches(String dataInicio, String dataFim, String cursor, int size) {
 		LocalDate dateBegin = LocalDate.parse(dataInicio, formatter);
 		LocalDate dateEnd = LocalDate.parse(dataFim, formatter);
-		Account account = findById(getAccountIdOfCurrentUser());
-		List<Launch> launches = account.getLaunches()
+		PageCursor after = PageCursor.decode(cursor);
+		if (after == null) {
+			after = new PageCursor(dateBegin, 0L);
+		}
+		final int pageSize = getPageSize(size);
+		final List<Launch> launches = launchRepository.findByAccountIdAndDateBetween(getAccountIdOfCurrentUser(), 
+				dateBegin, dateEnd, after.getDate(), after.getId(), PageRequest.of(0, pageSize + 1));
+		return KeysetPage.of(launches, pageSize, launch -> new PageCursor(launch.getDate(), launch.getId()));
+	}
+	
+	/**
+	 * Exporta os lançamentos entre as datas especificadas da conta corrente do usuário logado, na ordem de data e id
+	 * Os lançamentos são lidos do banco de dados sob demanda, entregues ao consumidor e desanexados em seguida,
+	 * 		mantendo o uso de memória constante independente da quantidade exportada.
+	 * 
+	 * @param dataInicio
+	 * @param dataFim
+	 * @param consumer
+	 */
+	public void exportLaunches(String dataInicio, String dataFim, Consumer<Launch> consumer) {
+		LocalDate dateBegin = LocalDate.parse(dataInicio, formatter);
+		LocalDate dateEnd = LocalDate.parse(dataFim, formatter);
+		try (Stream<Launch> launches = launchRepository.streamByAccountIdAndDateBetween(getAccountIdOfCurrentUser(), dateBegin, dateEnd)) {
+			launches.forEach(launch -> {
+				consumer.accept(launch);
+				entityManager.detach(launch);
+			});
+		}
+	}
+	
+	/**
+	 * Método responsável por limitar o tamanho de página informado entre 1 e o tamanho máximo configurado
+	 * 
+	 * @param size
+	 * @return int
+	 */
+	private int getPageSize(int size) {
+		return Math.max(1, Math.min(size, maxPageSize));
+	}
+	
+	/**
+	 * Método responsável por buscar o saldo da conta após o último lançamento até a data informada (inclusive)
+	 * 
+	 * @param account
+	 * @param date
+	 * @return BigDecimal
+	 */
+	private BigDecimal getBalanceInDate(final Account account, final LocalDate date) {
+		return launchRepository.findBalancesAfter(account.getId(), date, PageRequest.of(0, 1))
 				.stream()
-				.filter(launch -> !launch.getDate().isBefore(dateBegin) && !launch.getDate().isAfter(dateEnd)) 
-				.collect(Collectors.toList());
-		
-		return launches;
+				.findFirst()
+				.orElseGet(account::getBalance)
+				.setScale(2, BigDecimal.ROUND_DOWN);
+	}
+	
+	/**
+	 * Método responsável por buscar o saldo atual da conta: saldo após o lançamento mais recente, 
+	 * ou o saldo inicial da conta caso não possua lançamentos
+	 * 
+	 * @param account
+	 * @return BigDecimal
+	 */
+	private BigDecimal getCurrentBalance(final Account account) {
+		return launchRepository.findLastBalancesAfter(account.getId(), PageRequest.of(0, 1))
+				.stream()
+				.findFirst()
+				.orElseGet(account::getBalance)
+				.setScale(2, BigDecimal.ROUND_DOWN);
+	}
+	
+	/**
+	 * Verifica se o lançamento é de saída e deixaria o saldo informado negativo
+	 * 
+	 * @param balance
+	 * @param newLaunch
+	 * @return boolean
+	 */
+	private boolean isOverdrawn(final BigDecimal balance, final Launch newLaunch) {
+		return LaunchType.OUTBOUND.equals(newLaunch.getType()) && newLaunch.getValue() != null
+				&& balance.add(newLaunch.balanceChange()).signum() < 0;
+	}
+	
+	/**
+	 * Reserva em memória o valor do lançamento de saída no saldo da conta corrente até o término da transação
+	 * Rejeita o lançamento, sem acesso ao banco de dados, caso o saldo disponível conhecido não comporte o valor.
+	 * O valor reservado é o mesmo aplicado na confirmação (variação do saldo, arredondada como na gravação).
+	 * 
+	 * @param accountId
+	 * @param newLaunch
+	 */
+	private void reserveOutbound(final Long accountId, final Launch newLaunch) {
+		if (newLaunch != null && LaunchType.OUTBOUND.equals(newLaunch.getType()) && newLaunch.getValue() != null
+				&& !reservationLedger.tryReserve(Account.class, accountId, -FixedPoint.ofMoney(newLaunch.balanceChange()))) {
+			throw new AccountBalanceNotAvailable(ExceptionMessage.MESSAGE_ACCOUNT_BALANACE_NOT_AVAILABLE);
+		}
+	}
+	
+	/**
+	 * Registra o saldo atual confirmado da conta corrente bloqueada nas reservas em memória
+	 * 
+	 * @param account
+	 * @param currentBalance
+	 */
+	private void observeBalance(final Account account, final BigDecimal currentBalance) {
+		reservationLedger.observe(Account.class, account.getId(), FixedPoint.ofMoney(currentBalance));
 	}
 	
 	/**
@@ -137,7 +346,7 @@ public class AccountService {
 	 * 
 	 * @return Long
 	 */
-	private Long getAccountIdOfCurrentUser() {
+	public Long getAccountIdOfCurrentUser() {
 		final User user = securityUtils.getCurrentUser();
 		return user.getAccountId();
 	}
@@ -9,12 +9,18 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.maps.financial.infra.persistence.BlockIdGenerator;
+
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -29,13 +35,15 @@ import lombok.Setter;
  *
  */
 @Entity
-@Table(name = "launch")
+@Table(name = "launch", indexes = @Index(name = "idx_launch_account_date", columnList = "account_id, date, id"))
 @Getter
 @AllArgsConstructor @NoArgsConstructor @Builder
 public class Launch {
 	
 	@Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "launch_id")
+    @GenericGenerator(name = "launch_id", strategy = BlockIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = BlockIdGenerator.ENTITY_PARAM, value = "launch"))
     private Long id;
 	
 	@Setter
@@ -58,6 +66,10 @@ public class Launch {
 	@Column(name = "date", columnDefinition = "DATE")
 	private LocalDate date; //data do movimento
 	
+	@Setter(AccessLevel.PACKAGE)
+	@Column(name = "balance_after", precision = 19, scale = 2)
+	private BigDecimal balanceAfter; //saldo da conta após o lançamento (ordem de data e id)
+	
 	/**
 	 * Retorna o valor do lançamento no formato definido
 	 * 
@@ -66,5 +78,32 @@ public class Launch {
 	public BigDecimal getValue() {
 		return this.value.setScale(2, BigDecimal.ROUND_DOWN);
 	}
+	
+	/**
+	 * Retorna o efeito do lançamento no saldo da conta: valor positivo para entradas e negativo para saídas
+	 * O valor é arredondado como na sua gravação (escala 2), mantendo o saldo igual à soma dos valores armazenados
+	 * 
+	 * @return BigDecimal
+	 */
+	BigDecimal balanceChange() {
+		final BigDecimal storedValue = this.value.setScale(2, BigDecimal.ROUND_HALF_UP);
+		return LaunchType.OUTBOUND.equals(this.getType()) ? storedValue.negate() : storedValue;
+	}
+	
+	/**
+	 * Verifica se o lançamento possui tipo, valor e data
+	 * 
+	 * @return boolean
+	 */
+	boolean isComplete() {
+		return this.type != null && this.value != null && this.date != null;
+	}
+	
+	/**
+	 * Descarta o id atribuído em uma tentativa de inclusão desfeita, antes de uma nova tentativa
+	 */
+	void clearId() {
+		this.id = null;
+	}
 
 }
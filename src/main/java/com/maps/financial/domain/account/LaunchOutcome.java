@@ -0,0 +1,30 @@
+package com.maps.financial.domain.account;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Resultado da inclusão de um lançamento de um lote: aceito, ou rejeitado com a mensagem do motivo
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class LaunchOutcome {
+	
+	private final int index; //posição do lançamento no lote
+	private final boolean accepted;
+	private final String message;
+	
+	static LaunchOutcome accepted(final int index) {
+		return new LaunchOutcome(index, true, null);
+	}
+	
+	static LaunchOutcome rejected(final int index, final String message) {
+		return new LaunchOutcome(index, false, message);
+	}
+
+}
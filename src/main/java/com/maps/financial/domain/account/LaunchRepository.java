@@ -0,0 +1,106 @@
+package com.maps.financial.domain.account;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Interface para operações com os Lançamentos da Conta Corrente
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+public interface LaunchRepository extends JpaRepository<Launch, Long> {
+
+	/**
+	 * Busca os saldos após os lançamentos da conta até a data informada (inclusive), do mais recente ao mais antigo.
+	 * Utilizada com página de tamanho 1 para obter o saldo na data pelo índice (account_id, date, id)
+	 * 
+	 * @param accountId
+	 * @param date
+	 * @param pageable
+	 * @return List<BigDecimal>
+	 */
+	@Query("select l.balanceAfter from Launch l where l.account.id = :accountId and l.date <= :date "
+			+ "order by l.date desc, l.id desc")
+	List<BigDecimal> findBalancesAfter(@Param("accountId") Long accountId, @Param("date") LocalDate date, Pageable pageable);
+
+	/**
+	 * Busca os saldos após os lançamentos da conta, do mais recente para o mais antigo (o primeiro é o saldo atual)
+	 * 
+	 * @param accountId
+	 * @param pageable
+	 * @return List<BigDecimal>
+	 */
+	@Query("select l.balanceAfter from Launch l where l.account.id = :accountId order by l.date desc, l.id desc")
+	List<BigDecimal> findLastBalancesAfter(@Param("accountId") Long accountId, Pageable pageable);
+
+	/**
+	 * Busca a data do lançamento mais recente da conta, nula caso a conta não possua lançamentos
+	 * 
+	 * @param accountId
+	 * @return LocalDate
+	 */
+	@Query("select max(l.date) from Launch l where l.account.id = :accountId")
+	LocalDate findLastDate(@Param("accountId") Long accountId);
+
+	/**
+	 * Busca os lançamentos da conta entre as datas informadas (inclusive/inclusive), posteriores ao registro
+	 * (data e id) informado, na ordem de data e id. Paginação por chave pelo índice (account_id, date, id):
+	 * cada página continua do último registro da anterior, sem percorrer os registros já retornados
+	 * 
+	 * @param accountId
+	 * @param dateBegin
+	 * @param dateEnd
+	 * @param afterDate
+	 * @param afterId
+	 * @param pageable
+	 * @return List<Launch>
+	 */
+	@Query("select l from Launch l where l.account.id = :accountId and l.date between :dateBegin and :dateEnd "
+			+ "and (l.date > :afterDate or (l.date = :afterDate and l.id > :afterId)) order by l.date, l.id")
+	List<Launch> findByAccountIdAndDateBetween(@Param("accountId") Long accountId,
+			@Param("dateBegin") LocalDate dateBegin, @Param("dateEnd") LocalDate dateEnd,
+			@Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId, Pageable pageable);
+
+	/**
+	 * Percorre os lançamentos da conta entre as datas informadas (inclusive/inclusive), na ordem de data e id,
+	 * lidos do banco de dados sob demanda (em blocos) durante o consumo do stream
+	 * Deve ser utilizada em uma transação e o stream fechado ao final
+	 * 
+	 * @param accountId
+	 * @param dateBegin
+	 * @param dateEnd
+	 * @return Stream<Launch>
+	 */
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("select l from Launch l where l.account.id = :accountId and l.date between :dateBegin and :dateEnd "
+			+ "order by l.date, l.id")
+	Stream<Launch> streamByAccountIdAndDateBetween(@Param("accountId") Long accountId,
+			@Param("dateBegin") LocalDate dateBegin, @Param("dateEnd") LocalDate dateEnd);
+
+	/**
+	 * Soma o valor informado ao saldo após os lançamentos da conta posteriores à data (exclusive)
+	 * Utilizada na inclusão de lançamentos retroativos
+	 * 
+	 * @param accountId
+	 * @param date
+	 * @param value
+	 * @return int
+	 */
+	@Modifying(flushAutomatically = true)
+	@Query("update Launch l set l.balanceAfter = l.balanceAfter + :value where l.account.id = :accountId and l.date > :date")
+	int addToBalancesAfter(@Param("accountId") Long accountId, @Param("date") LocalDate date, @Param("value") BigDecimal value);
+
+}
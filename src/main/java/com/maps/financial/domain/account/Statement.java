@@ -0,0 +1,68 @@
+package com.maps.financial.domain.account;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.maps.financial.infra.persistence.BlockIdGenerator;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Classe de Extrato mensal da Conta Corrente: saldo inicial, totais dos lançamentos e saldo final do mês
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Entity
+@Table(name = "statement", uniqueConstraints = @UniqueConstraint(columnNames = { "account_id", "period" }))
+@Getter
+@AllArgsConstructor @NoArgsConstructor @Builder
+public class Statement {
+	
+	@Id
+    @GeneratedValue(generator = "statement_id")
+    @GenericGenerator(name = "statement_id", strategy = BlockIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = BlockIdGenerator.ENTITY_PARAM, value = "statement"))
+    private Long id;
+	
+	@JoinColumn(name = "account_id", referencedColumnName = "id", nullable = false)
+    @ManyToOne(optional = false)
+    private Account account;
+	
+	@Basic(optional = false)
+	@Column(name = "period", columnDefinition = "DATE")
+	private LocalDate period; //primeiro dia do mês do extrato
+	
+	@Column(name = "opening_balance", precision = 19, scale = 2)
+	private BigDecimal openingBalance; //saldo no início do mês
+	
+	@Column(name = "total_inbound", precision = 19, scale = 2)
+	private BigDecimal totalInbound; //soma das entradas do mês
+	
+	@Column(name = "total_outbound", precision = 19, scale = 2)
+	private BigDecimal totalOutbound; //soma das saídas do mês
+	
+	@Column(name = "closing_balance", precision = 19, scale = 2)
+	private BigDecimal closingBalance; //saldo no fim do mês
+	
+	@Column(name = "launch_count")
+	private int launchCount; //quantidade de lançamentos do mês
+
+}
@@ -0,0 +1,42 @@
+package com.maps.financial.domain.account;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Interface para operações com os Extratos mensais da Conta Corrente
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+public interface StatementRepository extends JpaRepository<Statement, Long> {
+
+	/**
+	 * Busca o extrato da conta no mês informado (primeiro dia do mês)
+	 * 
+	 * @param accountId
+	 * @param period
+	 * @return Optional<Statement>
+	 */
+	@Query("select s from Statement s where s.account.id = :accountId and s.period = :period")
+	Optional<Statement> findByAccountIdAndPeriod(@Param("accountId") Long accountId, @Param("period") LocalDate period);
+
+	/**
+	 * Exclui os extratos da conta entre os meses informados (inclusive/inclusive), antes da sua geração novamente
+	 * 
+	 * @param accountId
+	 * @param periodBegin
+	 * @param periodEnd
+	 */
+	@Modifying(flushAutomatically = true)
+	@Query("delete from Statement s where s.account.id = :accountId and s.period between :periodBegin and :periodEnd")
+	void deleteByAccountIdAndPeriodBetween(@Param("accountId") Long accountId,
+			@Param("periodBegin") LocalDate periodBegin, @Param("periodEnd") LocalDate periodEnd);
+
+}
@@ -0,0 +1,178 @@
+package com.maps.financial.domain.account;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.maps.financial.config.StatementConfig;
+import com.maps.financial.domain.commons.FixedPoint;
+import com.maps.financial.domain.user.User;
+import com.maps.financial.exceptions.AuthorizationException;
+import com.maps.financial.exceptions.ExceptionMessage;
+import com.maps.financial.exceptions.ObjectNotFoundException;
+import com.maps.financial.infra.security.SecurityUtils;
+
+/**
+ * Classe de serviços para os Extratos mensais da Conta Corrente
+ * Os extratos de cada conta são gerados em uma única passagem pelos seus lançamentos do período, em transação própria,
+ * com as contas distribuídas entre as threads do pool de extratos.
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Service
+public class StatementService {
+	
+	@Autowired
+	private StatementRepository repository;
+	
+	@Autowired
+	private AccountRepository accountRepository;
+	
+	@Autowired
+	private LaunchRepository launchRepository;
+	
+	@Autowired
+	private SecurityUtils securityUtils;
+	
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	
+	@Autowired
+	@Qualifier(StatementConfig.STATEMENT_EXECUTOR)
+	private ExecutorService statementExecutor;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
+	
+	/**
+	 * Gera os extratos de todas as contas entre os meses especificados (inclusive/inclusive)
+	 * Somente usuários administradores podem gerar extratos
+	 * 
+	 * @param mesInicio
+	 * @param mesFim
+	 * @return int quantidade de extratos gerados
+	 */
+	public int generateStatements(String mesInicio, String mesFim) {
+		if (!securityUtils.currentUserIsAdmin()) {
+			throw new AuthorizationException(ExceptionMessage.MESSAGE_ACCESS_DENIED);
+		}
+		return generate(YearMonth.parse(mesInicio, formatter), YearMonth.parse(mesFim, formatter));
+	}
+	
+	/**
+	 * Gera os extratos de todas as contas entre os meses informados (inclusive/inclusive), substituindo os existentes
+	 * Aguarda a geração de todas as contas antes de retornar
+	 * 
+	 * @param periodBegin
+	 * @param periodEnd
+	 * @return int quantidade de extratos gerados
+	 */
+	public int generate(final YearMonth periodBegin, final YearMonth periodEnd) {
+		final List<Future<Integer>> results = new ArrayList<>();
+		for (Long accountId : accountRepository.findAllIds()) {
+			results.add(statementExecutor.submit(() -> generateInTransaction(accountId, periodBegin, periodEnd)));
+		}
+		
+		int generated = 0;
+		for (Future<Integer> result : results) {
+			generated += getResult(result);
+		}
+		return generated;
+	}
+	
+	/**
+	 * Retorna o extrato da conta corrente do usuário logado no mês especificado
+	 * 
+	 * @param mes
+	 * @return Statement
+	 * @throws ObjectNotFoundException
+	 */
+	public Statement getStatement(String mes) throws ObjectNotFoundException {
+		final User user = securityUtils.getCurrentUser();
+		return repository.findByAccountIdAndPeriod(user.getAccountId(), YearMonth.parse(mes, formatter).atDay(1))
+				.orElseThrow(() -> new ObjectNotFoundException(user.getAccountId(), Statement.class));
+	}
+	
+	/**
+	 * Gera e armazena os extratos da conta entre os meses informados
+	 * O saldo inicial é o saldo após o último lançamento anterior ao período, ou o saldo inicial da conta.
+	 * Os lançamentos são desanexados após a leitura, mantendo o uso de memória constante.
+	 * 
+	 * @param accountId
+	 * @param periodBegin
+	 * @param periodEnd
+	 * @return int quantidade de extratos gerados
+	 */
+	int generateForAccount(final Long accountId, final YearMonth periodBegin, final YearMonth periodEnd) {
+		final Account account = accountRepository.findById(accountId)
+				.orElseThrow(() -> new ObjectNotFoundException(accountId, Account.class));
+		final BigDecimal openingBalance = launchRepository
+				.findBalancesAfter(accountId, periodBegin.atDay(1).minusDays(1), PageRequest.of(0, 1))
+				.stream()
+				.findFirst()
+				.orElseGet(account::getBalance);
+		
+		final List<Statement> statements;
+		try (Stream<Launch> launches = launchRepository.streamByAccountIdAndDateBetween(accountId, 
+				periodBegin.atDay(1), periodEnd.atEndOfMonth())) {
+			statements = StatementSweep.sweep(account, FixedPoint.ofMoney(openingBalance), periodBegin, periodEnd, 
+					launches.peek(entityManager::detach).iterator());
+		}
+		repository.deleteByAccountIdAndPeriodBetween(accountId, periodBegin.atDay(1), periodEnd.atDay(1));
+		repository.saveAll(statements);
+		return statements.size();
+	}
+	
+	/**
+	 * Executa a geração dos extratos da conta em uma transação própria, na thread do pool de extratos
+	 * 
+	 * @param accountId
+	 * @param periodBegin
+	 * @param periodEnd
+	 * @return int
+	 */
+	private int generateInTransaction(final Long accountId, final YearMonth periodBegin, final YearMonth periodEnd) {
+		return new TransactionTemplate(transactionManager).execute(status -> generateForAccount(accountId, periodBegin, periodEnd));
+	}
+	
+	/**
+	 * Aguarda a geração dos extratos de uma conta, relançando a falha ocorrida na thread do pool
+	 * 
+	 * @param result
+	 * @return int
+	 */
+	private int getResult(final Future<Integer> result) {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.maps.financial.domain.account;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.maps.financial.domain.commons.FixedPoint;
+
+/**
+ * Geração dos extratos mensais de uma conta em uma única passagem pelos seus lançamentos,
+ * ordenados por data e id. Meses sem lançamentos geram extratos com o saldo do mês anterior.
+ * Os valores são acumulados em ponto fixo (escala 2), com o mesmo arredondamento do saldo após cada lançamento.
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+final class StatementSweep {
+	
+	private StatementSweep() {
+	}
+	
+	/**
+	 * Gera os extratos da conta de todos os meses informados (inclusive/inclusive)
+	 * 
+	 * @param account
+	 * @param openingBalance saldo no início do primeiro mês (escala 2)
+	 * @param periodBegin
+	 * @param periodEnd
+	 * @param launches lançamentos do período, ordenados por data e id
+	 * @return List<Statement>
+	 */
+	static List<Statement> sweep(final Account account, final long openingBalance, final YearMonth periodBegin, 
+			final YearMonth periodEnd, final Iterator<Launch> launches) {
+		final List<Statement> statements = new ArrayList<>();
+		Launch next = launches.hasNext() ? launches.next() : null;
+		long balance = openingBalance;
+		for (YearMonth period = periodBegin; !period.isAfter(periodEnd); period = period.plusMonths(1)) {
+			final long opening = balance;
+			long inbound = 0L;
+			long outbound = 0L;
+			int count = 0;
+			while (next != null && !YearMonth.from(next.getDate()).isAfter(period)) {
+				final long value = FixedPoint.ofMoney(next.balanceChange());
+				if (value >= 0) {
+					inbound = FixedPoint.add(inbound, value);
+				} else {
+					outbound = FixedPoint.subtract(outbound, value);
+				}
+				balance = FixedPoint.add(balance, value);
+				count++;
+				next = launches.hasNext() ? launches.next() : null;
+			}
+			statements.add(Statement.builder()
+					.account(account)
+					.period(period.atDay(1))
+					.openingBalance(FixedPoint.toBigDecimal(opening, FixedPoint.MONEY_SCALE))
+					.totalInbound(FixedPoint.toBigDecimal(inbound, FixedPoint.MONEY_SCALE))
+					.totalOutbound(FixedPoint.toBigDecimal(outbound, FixedPoint.MONEY_SCALE))
+					.closingBalance(FixedPoint.toBigDecimal(balance, FixedPoint.MONEY_SCALE))
+					.launchCount(count)
+					.build());
+		}
+		return statements;
+	}
+
+}
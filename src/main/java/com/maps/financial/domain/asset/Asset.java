@@ -4,9 +4,11 @@ import java.math.BigDecimal;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 import javax.persistence.Basic;
 import javax.persistence.CascadeType;
@@ -15,15 +17,22 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.persistence.Version;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.maps.financial.domain.commons.FixedPoint;
 import com.maps.financial.exceptions.AssetQuantityNotAvailable;
 import com.maps.financial.exceptions.ExceptionMessage;
 import com.maps.financial.exceptions.MovementNotAllowedInDate;
+import com.maps.financial.infra.persistence.BlockIdGenerator;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -44,9 +53,17 @@ import lombok.Setter;
 @AllArgsConstructor @NoArgsConstructor @Builder
 public class Asset {
 	
+	static final int POSITION_SCALE = FixedPoint.MONEY_SCALE; //escala das quantidades e valores das posições
+	
 	@Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "asset_id")
+    @GenericGenerator(name = "asset_id", strategy = BlockIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = BlockIdGenerator.ENTITY_PARAM, value = "asset"))
     private Long id;
+	
+	@Version
+	@Getter(AccessLevel.NONE)
+	private Long version; //versão para o controle otimista de alterações concorrentes
  
 	@Setter
 	@Basic(optional = false)
@@ -74,6 +91,42 @@ public class Asset {
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "asset", orphanRemoval = true)
 	private final List<MarketPrice> marketPrices = new ArrayList<>();
     
+    @Getter(AccessLevel.NONE)
+    @Column(name = "total_quantity_buy")
+    private long totalQuantityBuy; //soma acumulada das quantidades compradas (escala 8)
+    
+    @Getter(AccessLevel.NONE)
+    @Column(name = "total_quantity_sell")
+    private long totalQuantitySell; //soma acumulada das quantidades vendidas (escala 8)
+    
+    @Getter(AccessLevel.NONE)
+    @Column(name = "total_value_buy")
+    private long totalValueBuy; //soma acumulada dos valores de compra (escala 2)
+    
+    @Getter(AccessLevel.NONE)
+    @Column(name = "total_value_sell")
+    private long totalValueSell; //soma acumulada dos valores de venda (escala 2)
+    
+    @Getter(AccessLevel.NONE)
+    @Column(name = "last_movement_date", columnDefinition = "DATE")
+    private LocalDate lastMovementDate; //data da movimentação mais recente
+    
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private MovementStore movementStore; //movimentações em formato colunar, criado sob demanda
+    
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private Supplier<MovementStore> movementStoreLoader; //carga das movimentações em formato colunar sem as entidades
+    
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private MovementIndex movementIndex; //índice cumulativo por data, criado sob demanda
+    
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private NavigableMap<LocalDate, Long> marketPriceIndex; //valores de mercado por data (escala 8), criado sob demanda
+    
     /**
      * Método responsável por calcular e retornar a quantidade total atual do ativo
      * Quantidade total: soma das quantidades compradas menos as quantidades vendidas do ativo
@@ -82,35 +135,32 @@ public class Asset {
      * @return BigDecimal
      */
     public BigDecimal getTotalQuantity(LocalDate date) {
-    	return this.getQuantityBuy(date).subtract(this.getQuantitySell(date));
+    	long totalQuantity = calculateTotalQuantity(this.getQuantityBuy(date), this.getQuantitySell(date));
+    	return FixedPoint.toBigDecimal(totalQuantity, POSITION_SCALE);
     }
     
     /**
      * Método responsável por calcular e retornar o valor de mercado total atual do ativo
-     * Valor de mercado total: quantidade total multiplicada pelo preço de mercado do ativo
+     * Valor de mercado total: quantidade total multiplicada pelo preço de mercado do ativo vigente na data
      * 
      * @param date 
      * @return BigDecimal
      */
     public BigDecimal getTotalMarketPrice(LocalDate date) {
-    	BigDecimal totalMarketPrice = this.getTotalQuantity(date).multiply(this.getMarketPrice());
-    	return totalMarketPrice.setScale(2, BigDecimal.ROUND_DOWN);
+    	long totalQuantity = calculateTotalQuantity(this.getQuantityBuy(date), this.getQuantitySell(date));
+    	return FixedPoint.toBigDecimal(calculateTotalMarketPrice(totalQuantity, this.getMarketPrice(date)), POSITION_SCALE);
     }
     
     /**
      * Método responsável por calcular e retornar o valor do rendimento 
-     * Rendimento: preço de mercado dividido pelo preço médio das compras
+     * Rendimento: preço de mercado vigente na data dividido pelo preço médio das compras
      * 
      * @param date 
      * @return BigDecimal
      */
     public BigDecimal getIncome(LocalDate date) {
-    	BigDecimal averageValueBuy = this.getAverageValueBuy(date);
-    	if (BigDecimal.ZERO.compareTo(averageValueBuy) == 0) {
-    		return BigDecimal.ZERO.setScale(2, BigDecimal.ROUND_DOWN);
-    	}
-    	BigDecimal income = this.getMarketPrice().divide(averageValueBuy, BigDecimal.ROUND_DOWN);
-    	return income.setScale(2, BigDecimal.ROUND_DOWN);
+    	long averageValueBuy = calculateAverageValueBuy(this.getQuantityBuy(date), this.getTotalValueBuy(date));
+    	return FixedPoint.toBigDecimal(calculateIncome(this.getMarketPrice(date), averageValueBuy), POSITION_SCALE);
     }
     
     /**
@@ -121,18 +171,70 @@ public class Asset {
      * @return BigDecimal
      */
     public BigDecimal getProfit(LocalDate date) {
-    	BigDecimal profit = this.getTotalValueSell(date).subtract(this.getTotalValueBuy(date)); 
-    	return profit.setScale(2, BigDecimal.ROUND_DOWN);
+    	long profit = FixedPoint.subtract(this.getTotalValueSell(date), this.getTotalValueBuy(date));
+    	return FixedPoint.toBigDecimal(profit, POSITION_SCALE);
+    }
+    
+    /**
+     * Método responsável por calcular a posição completa do ativo na data informada 
+     * (quantidade total, valor de mercado total, rendimento e lucro), obtendo as somas de compras, 
+     * vendas e o preço de mercado uma única vez
+     * 
+     * @param date
+     * @return PositionSnapshot
+     */
+    public PositionSnapshot getPosition(LocalDate date) {
+    	return createPosition(this.id, this.name, this.type, this.getQuantityBuy(date), this.getQuantitySell(date), 
+    			this.getTotalValueBuy(date), this.getTotalValueSell(date), this.getMarketPrice(date));
+    }
+    
+    /**
+     * Método responsável por montar a posição de um ativo a partir das somas de compras e vendas até a data 
+     * (quantidades em escala 8 e valores em escala 2) e do preço de mercado vigente (escala 8)
+     * 
+     * @param id
+     * @param name
+     * @param type
+     * @param quantityBuy
+     * @param quantitySell
+     * @param valueBuy
+     * @param valueSell
+     * @param marketPrice
+     * @return PositionSnapshot
+     */
+    static PositionSnapshot createPosition(Long id, String name, AssetType type, long quantityBuy, long quantitySell, 
+    		long valueBuy, long valueSell, long marketPrice) {
+    	long totalQuantity = calculateTotalQuantity(quantityBuy, quantitySell);
+    	long averageValueBuy = calculateAverageValueBuy(quantityBuy, valueBuy);
+    	
+    	return PositionSnapshot.builder()
+    			.assetId(id)
+    			.assetName(name)
+    			.assetType(type)
+    			.totalQuantity(totalQuantity)
+    			.totalMarketPrice(calculateTotalMarketPrice(totalQuantity, marketPrice))
+    			.averageValueBuy(averageValueBuy)
+    			.income(calculateIncome(marketPrice, averageValueBuy))
+    			.profit(FixedPoint.subtract(valueSell, valueBuy))
+    			.build();
     }
     
     /**
      * Método responsável por adicionar uma nova movimentação do ativo após passar pelas validações
+     * A quantidade da movimentação é truncada na escala 8, assim como ocorre com os valores de mercado, 
+     * e o valor é arredondado na escala 2 como na sua gravação
      * 
      * @param newMovement
      */
-    public synchronized void includeMovement(AssetMovement newMovement) {
+    public void includeMovement(AssetMovement newMovement) {
+    	if (newMovement.getQuantity() != null) {
+    		newMovement.setQuantity(newMovement.getQuantity().setScale(FixedPoint.QUANTITY_SCALE, BigDecimal.ROUND_DOWN));
+    	}
+    	newMovement.roundValueToStoredScale();
     	this.movementValidations(newMovement);
     	this.movements.add(newMovement);
+    	this.updateRunningTotals(newMovement);
+    	this.updateMovementStore(newMovement);
     }
     
     /**
@@ -141,7 +243,7 @@ public class Asset {
      * @param price
      * @param date
      */
-    public synchronized void includeMarketPrice(BigDecimal price, LocalDate date) {
+    public void includeMarketPrice(BigDecimal price, LocalDate date) {
     	if (price != null && date != null) {
 	    	MarketPrice marketPrice = MarketPrice.builder()
 	    			.price(price.setScale(8, BigDecimal.ROUND_DOWN))
@@ -150,6 +252,9 @@ public class Asset {
 	    			.build();
 	    	
 	    	this.marketPrices.add(marketPrice);
+	    	if (this.marketPriceIndex != null) {
+	    		this.marketPriceIndex.putIfAbsent(date, FixedPoint.ofPrice(marketPrice.getPrice()));
+	    	}
     	}
     }
     
@@ -158,121 +263,265 @@ public class Asset {
      * 
      * @param date
      */
-    public synchronized void excludeMarketPrice(LocalDate date) {
-    	List<MarketPrice> marketPricesFind = this.marketPrices
-    			.stream()
-    			.filter(p -> date.isEqual(p.getDate()))
-    			.collect(Collectors.toList());
-    	
-    	for (MarketPrice marketPrice : marketPricesFind) {
-    		this.marketPrices.remove(marketPrice);
+    public void excludeMarketPrice(LocalDate date) {
+    	if (this.getMarketPriceIndex().remove(date) != null) {
+    		this.marketPrices.removeIf(p -> date.isEqual(p.getDate()));
     	}
     }
     
     /**
-     * Método responsável por retornar a quantidade total de compras do ativo até a data informada
-     * @param date 
+     * Método responsável por retornar a data do primeiro valor de mercado posterior à data informada, 
+     * ou seja, até quando o valor de mercado vigente na data informada permanece válido
+     * Retorna null caso a data seja nula ou não exista valor de mercado posterior
+     * 
+     * @param date
+     * @return LocalDate
+     */
+    public LocalDate getNextMarketPriceDate(LocalDate date) {
+    	return date != null ? this.getMarketPriceIndex().higherKey(date) : null;
+    }
+    
+    /**
+     * Método responsável por retornar a quantidade total de compras do ativo até a data informada (escala 8)
      * 
      * @param date 
-     * @return BigDecimal
+     * @return long
      */
-    private BigDecimal getQuantityBuy(LocalDate date) {
+    private long getQuantityBuy(LocalDate date) {
     	if (date == null) {
-    		return BigDecimal.ZERO.setScale(2, BigDecimal.ROUND_DOWN);
+    		return 0L;
     	}
-    	BigDecimal totalQuantity = this.getMovements()
-    			.stream()
-    			.filter(movement -> MovementType.BUY.equals(movement.getType()) && !date.isBefore(movement.getDate()))
-    			.map(movement -> movement.getQuantity())
-    			.reduce(BigDecimal.ZERO, BigDecimal::add);		
-    	
-    	return totalQuantity.setScale(2, BigDecimal.ROUND_DOWN);
+    	if (this.isCoveredByRunningTotals(date)) {
+    		return this.totalQuantityBuy;
+    	}
+    	MovementIndex index = this.getMovementIndex();
+    	return index != null ? index.getQuantityBuy(date) : 0L;
     }
     
     /**
-     * Método responsável por retornar o valor total de compras do ativo até a data informada
-     * @param date 
+     * Método responsável por retornar o valor total de compras do ativo até a data informada (escala 2)
      * 
      * @param date 
-     * @return BigDecimal
+     * @return long
      */
-    private BigDecimal getTotalValueBuy(LocalDate date) {
+    private long getTotalValueBuy(LocalDate date) {
     	if (date == null) {
-    		return BigDecimal.ZERO.setScale(2, BigDecimal.ROUND_DOWN);
+    		return 0L;
     	}
-    	BigDecimal totalValue = this.getMovements()
-    			.stream()
-    			.filter(movement -> MovementType.BUY.equals(movement.getType()) && !date.isBefore(movement.getDate()))
-    			.map(movement -> movement.getValue())
-    			.reduce(BigDecimal.ZERO, BigDecimal::add);
-    	
-    	return totalValue.setScale(2, BigDecimal.ROUND_DOWN);
+    	if (this.isCoveredByRunningTotals(date)) {
+    		return this.totalValueBuy;
+    	}
+    	MovementIndex index = this.getMovementIndex();
+    	return index != null ? index.getValueBuy(date) : 0L;
     }
     
     /**
-     * Método responsável por retornar a quantidade total de vendas do ativo até a data informada
-     * @param date 
+     * Método responsável por retornar a quantidade total de vendas do ativo até a data informada (escala 8)
      * 
      * @param date 
-     * @return BigDecimal
+     * @return long
      */
-    private BigDecimal getQuantitySell(LocalDate date) {
+    private long getQuantitySell(LocalDate date) {
     	if (date == null) {
-    		return BigDecimal.ZERO.setScale(2, BigDecimal.ROUND_DOWN);
+    		return 0L;
     	}
-    	BigDecimal totalQuantity = this.getMovements()
-    			.stream()
-    			.filter(movement -> MovementType.SELL.equals(movement.getType()) && !date.isBefore(movement.getDate()))
-    			.map(movement -> movement.getQuantity())
-    			.reduce(BigDecimal.ZERO, BigDecimal::add);		
-    	
-    	return totalQuantity.setScale(2, BigDecimal.ROUND_DOWN);
+    	if (this.isCoveredByRunningTotals(date)) {
+    		return this.totalQuantitySell;
+    	}
+    	MovementIndex index = this.getMovementIndex();
+    	return index != null ? index.getQuantitySell(date) : 0L;
     }
     
     /**
-     * Método responsável por retornar o valor total de vendas do ativo até a data informada
+     * Método responsável por retornar o valor total de vendas do ativo até a data informada (escala 2)
      * 
      * @param date 
-     * @return BigDecimal
+     * @return long
      */
-    private BigDecimal getTotalValueSell(LocalDate date) {
+    private long getTotalValueSell(LocalDate date) {
     	if (date == null) {
-    		return BigDecimal.ZERO.setScale(2, BigDecimal.ROUND_DOWN);
+    		return 0L;
     	}
-    	BigDecimal totalValue = this.getMovements()
-    			.stream()
-    			.filter(movement -> MovementType.SELL.equals(movement.getType()) && !date.isBefore(movement.getDate()))
-    			.map(movement -> movement.getValue())
-    			.reduce(BigDecimal.ZERO, BigDecimal::add);
-    	
-    	return totalValue.setScale(2, BigDecimal.ROUND_DOWN);
+    	if (this.isCoveredByRunningTotals(date)) {
+    		return this.totalValueSell;
+    	}
+    	MovementIndex index = this.getMovementIndex();
+    	return index != null ? index.getValueSell(date) : 0L;
+    }
+    
+    /**
+     * Método responsável por calcular a quantidade total: quantidades compradas menos as vendidas, 
+     * ambas truncadas na escala das posições
+     * 
+     * @param quantityBuy
+     * @param quantitySell
+     * @return long
+     */
+    private static long calculateTotalQuantity(long quantityBuy, long quantitySell) {
+    	return FixedPoint.subtract(FixedPoint.rescale(quantityBuy, FixedPoint.QUANTITY_SCALE, POSITION_SCALE), 
+    			FixedPoint.rescale(quantitySell, FixedPoint.QUANTITY_SCALE, POSITION_SCALE));
     }
     
     /**
      * Método responsável por calcular e retornar o preço médio das compras
      * 
+     * @param quantityBuy 
+     * @param valueBuy 
+     * @return long
+     */
+    private static long calculateAverageValueBuy(long quantityBuy, long valueBuy) {
+    	long quantity = FixedPoint.rescale(quantityBuy, FixedPoint.QUANTITY_SCALE, POSITION_SCALE);
+    	if (quantity == 0L) {
+    		return 0L;
+    	}
+    	return FixedPoint.divide(valueBuy, FixedPoint.MONEY_SCALE, quantity, POSITION_SCALE, POSITION_SCALE);
+    }
+    
+    /**
+     * Método responsável por calcular o valor de mercado total: quantidade total multiplicada pelo preço de mercado
+     * 
+     * @param totalQuantity
+     * @param marketPrice
+     * @return long
+     */
+    private static long calculateTotalMarketPrice(long totalQuantity, long marketPrice) {
+    	return FixedPoint.multiply(totalQuantity, POSITION_SCALE, marketPrice, FixedPoint.PRICE_SCALE, POSITION_SCALE);
+    }
+    
+    /**
+     * Método responsável por calcular o rendimento: preço de mercado dividido pelo preço médio das compras
+     * 
+     * @param marketPrice
+     * @param averageValueBuy
+     * @return long
+     */
+    private static long calculateIncome(long marketPrice, long averageValueBuy) {
+    	if (averageValueBuy == 0L) {
+    		return 0L;
+    	}
+    	return FixedPoint.divide(marketPrice, FixedPoint.PRICE_SCALE, averageValueBuy, POSITION_SCALE, POSITION_SCALE);
+    }
+    
+    /**
+     * Método responsável por obter e retornar o valor de mercado do ativo vigente na data informada, 
+     * ou seja, o último valor de mercado com data igual ou anterior a ela
+     * Retorna zero caso não tenha nenhum preço de mercado cadastrado para o ativo até a data
+     * 
      * @param date 
-     * @return BigDecimal
+     * @return long
      */
-    private BigDecimal getAverageValueBuy(LocalDate date) {
-    	BigDecimal quantityBuy = this.getQuantityBuy(date);
-    	if (BigDecimal.ZERO.compareTo(quantityBuy) == 0) {
-    		return BigDecimal.ZERO.setScale(2, BigDecimal.ROUND_DOWN);
+    private long getMarketPrice(LocalDate date) {
+    	Map.Entry<LocalDate, Long> marketPrice = date != null ? this.getMarketPriceIndex().floorEntry(date) : null;
+    	return marketPrice != null ? marketPrice.getValue() : 0L;
+    }
+    
+    /**
+     * Método responsável por retornar o índice por data dos valores de mercado, criando-o na primeira consulta.
+     * Havendo mais de um valor de mercado na mesma data, prevalece o primeiro cadastrado.
+     * 
+     * @return NavigableMap<LocalDate, Long>
+     */
+    private NavigableMap<LocalDate, Long> getMarketPriceIndex() {
+    	if (this.marketPriceIndex == null) {
+    		this.marketPriceIndex = new TreeMap<>();
+    		for (MarketPrice marketPrice : this.marketPrices) {
+    			this.marketPriceIndex.putIfAbsent(marketPrice.getDate(), FixedPoint.ofPrice(marketPrice.getPrice()));
+    		}
     	}
-		BigDecimal averageValueBuy = this.getTotalValueBuy(date).divide(quantityBuy, BigDecimal.ROUND_DOWN);
-    	return averageValueBuy.setScale(2, BigDecimal.ROUND_DOWN);
+    	return this.marketPriceIndex;
     }
     
     /**
-     * Método responsável por obter e retornar o último valor de mercado do ativo
-     * Retorna ZERO caso não tenha nenhum preço de mercado cadastrado para o ativo
+     * Método responsável por atualizar as somas acumuladas de compras e vendas com a nova movimentação
      * 
-     * @return BigDecimal
+     * @param newMovement
+     */
+    private void updateRunningTotals(AssetMovement newMovement) {
+    	if (MovementType.BUY.equals(newMovement.getType())) {
+    		this.totalQuantityBuy = FixedPoint.add(this.totalQuantityBuy, FixedPoint.ofQuantity(newMovement.getQuantity()));
+    		this.totalValueBuy = FixedPoint.add(this.totalValueBuy, FixedPoint.ofMoney(newMovement.getValue()));
+    	} else if (MovementType.SELL.equals(newMovement.getType())) {
+    		this.totalQuantitySell = FixedPoint.add(this.totalQuantitySell, FixedPoint.ofQuantity(newMovement.getQuantity()));
+    		this.totalValueSell = FixedPoint.add(this.totalValueSell, FixedPoint.ofMoney(newMovement.getValue()));
+    	}
+    	
+    	if (this.lastMovementDate == null || newMovement.getDate().isAfter(this.lastMovementDate)) {
+    		this.lastMovementDate = newMovement.getDate();
+    	}
+    }
+    
+    /**
+     * Método responsável por definir a carga das movimentações em formato colunar, utilizada na primeira consulta 
+     * das posições no lugar das entidades das movimentações (ex.: projeção lida do banco de dados)
+     * 
+     * @param loader
+     */
+    void loadMovementStoreWith(Supplier<MovementStore> loader) {
+    	this.movementStoreLoader = loader;
+    	this.movementStore = null;
+    	this.movementIndex = null;
+    }
+    
+    /**
+     * Método responsável por incluir a nova movimentação no armazenamento colunar e no índice cumulativo por data, 
+     * caso já tenham sido criados. Qualquer data entre a emissão e o vencimento, inclusive retroativa, é incluída no 
+     * índice em O(log n); apenas uma data fora do período coberto faz com que o índice seja recriado na próxima consulta.
+     * 
+     * @param newMovement
+     */
+    private void updateMovementStore(AssetMovement newMovement) {
+    	if (this.movementStore == null) {
+    		return;
+    	}
+    	this.movementStore.add(newMovement);
+    	if (this.movementIndex == null) {
+    		return;
+    	}
+    	if (this.movementIndex.covers(newMovement.getDate())) {
+    		this.movementIndex.add(this.movementStore, this.movementStore.size() - 1);
+    	} else {
+    		this.movementIndex = null;
+    	}
+    }
+    
+    /**
+     * Método responsável por retornar as movimentações em formato colunar, criando-o na primeira consulta: pela carga 
+     * definida para o ativo, sem acessar as entidades das movimentações, ou a partir das movimentações em memória
+     * 
+     * @return MovementStore
+     */
+    private MovementStore getMovementStore() {
+    	if (this.movementStore == null) {
+    		this.movementStore = this.movementStoreLoader != null 
+    				? this.movementStoreLoader.get() : MovementStore.of(this.movements);
+    		this.movementIndex = null;
+    	}
+    	return this.movementStore;
+    }
+    
+    /**
+     * Método responsável por retornar o índice cumulativo por data das movimentações, criando-o na primeira consulta.
+     * Retorna null quando o ativo não possui datas para delimitar o índice.
+     * 
+     * @return MovementIndex
+     */
+    private MovementIndex getMovementIndex() {
+    	MovementStore store = this.getMovementStore();
+    	if (this.movementIndex == null) {
+    		this.movementIndex = MovementIndex.of(this.issueDate, this.dueDate, store);
+    	}
+    	return this.movementIndex;
+    }
+    
+    /**
+     * Método que verifica se as somas acumuladas atendem a data informada, 
+     * ou seja, se nenhuma movimentação do ativo é posterior a esta data
+     * 
+     * @param date
+     * @return boolean
      */
-    private BigDecimal getMarketPrice() {
-    	Comparator<MarketPrice> comparator = Comparator.comparing(MarketPrice::getDate);
-    	MarketPrice marketPrice = this.marketPrices.stream().max(comparator).orElse(null);
-    	return marketPrice != null ? marketPrice.getPrice() : BigDecimal.ZERO.setScale(2, BigDecimal.ROUND_DOWN);
+    private boolean isCoveredByRunningTotals(LocalDate date) {
+    	return this.lastMovementDate == null || !date.isBefore(this.lastMovementDate);
     }
     
     /**
@@ -1,14 +1,32 @@
 package com.maps.financial.domain.asset;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.maps.financial.config.MovementSubmissionConfig;
 import com.maps.financial.domain.account.AccountFacade;
+import com.maps.financial.domain.commons.KeysetPage;
+import com.maps.financial.domain.commons.OptimisticRetry;
+import com.maps.financial.exceptions.ExceptionMessage;
+import com.maps.financial.exceptions.ObjectNotFoundException;
+import com.maps.financial.exceptions.SubmissionQueueFull;
+import com.maps.financial.exceptions.SubmissionTimeout;
+import com.maps.financial.infra.security.SecurityUtils;
 
 /**
  * Classe Façade para Ativos Financeiros
@@ -26,6 +44,25 @@ public class AssetFacade {
 	@Autowired
 	private AccountFacade accountFacade;
 	
+	@Autowired
+	private OptimisticRetry optimisticRetry;
+	
+	@Autowired(required = false)
+	private MovementQueue movementQueue; //ausente quando as filas de movimentações estão desligadas
+	
+	@Value("${financial.movement.queue.timeout:10s}")
+	private Duration movementQueueTimeout;
+	
+	@Autowired
+	@Qualifier(MovementSubmissionConfig.MOVEMENT_SUBMISSION_EXECUTOR)
+	private ExecutorService submissionExecutor;
+	
+	@Autowired
+	private MovementTickets movementTickets;
+	
+	@Autowired
+	private SecurityUtils securityUtils;
+	
 	public Asset findById(final Long id){
 		return service.findById(id);
 	}
@@ -53,28 +90,109 @@ public class AssetFacade {
 	 * Chamada para inclusão de lançamento da conta corrente do usuário logado e movimentação no ativo com id especificado
 	 * Compras e vendas devem gerar lançamentos na conta corrente refletindo o valor gasto ou ganho.
 	 * 
+	 * Executada em transação própria, repetida em caso de conflito de versão com outra alteração do ativo ou da conta.
+	 * Com as filas de movimentações ligadas, aguarda a gravação do lote pela fila do ativo, no máximo financial.movement.queue.timeout,
+	 * e retorna o ativo atualizado.
+	 * 
 	 * @param assetId
 	 * @param newMovement
 	 * @return Asset
+	 * @throws SubmissionTimeout caso a gravação da movimentação enfileirada não seja concluída no tempo de espera
 	 */
-	@Transactional
 	public Asset includeMovement(final Long assetId, final AssetMovement newMovement) {
-		accountFacade.includeLaunch(newMovement);
-		return service.includeMovementByAssetId(assetId, newMovement);
+		if (movementQueue != null) {
+			awaitQueued(movementQueue.submit(assetId, newMovement));
+			return service.findById(assetId);
+		}
+		return optimisticRetry.execute(Asset.class, assetId, () -> {
+			newMovement.clearId();
+			service.reserveMovement(assetId, newMovement);
+			accountFacade.includeLaunch(newMovement);
+			return service.includeMovementByAssetId(assetId, newMovement);
+		});
+	}
+	
+	/**
+	 * Aguarda a gravação da movimentação enfileirada, no máximo financial.movement.queue.timeout
+	 * 
+	 * @param future
+	 * @throws SubmissionTimeout caso a gravação não seja concluída no tempo de espera (a movimentação segue na fila)
+	 */
+	private void awaitQueued(final CompletableFuture<AssetMovement> future) {
+		try {
+			future.get(movementQueueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+		} catch (TimeoutException e) {
+			throw new SubmissionTimeout(ExceptionMessage.MESSAGE_SUBMISSION_TIMEOUT);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SubmissionTimeout(ExceptionMessage.MESSAGE_SUBMISSION_TIMEOUT);
+		}
+	}
+	
+	/**
+	 * Inclusão da movimentação no ativo com id especificado, com retorno concluído após a sua gravação
+	 * Com as filas de movimentações desligadas, a movimentação é incluída pelo pool de inclusões assíncronas.
+	 * 
+	 * @param assetId
+	 * @param newMovement
+	 * @return CompletableFuture<AssetMovement>
+	 * @throws SubmissionQueueFull caso a fila de movimentações esteja cheia
+	 */
+	public CompletableFuture<AssetMovement> submitMovement(final Long assetId, final AssetMovement newMovement) {
+		if (movementQueue != null) {
+			return movementQueue.submit(assetId, newMovement);
+		}
+		try {
+			return CompletableFuture.supplyAsync(() -> {
+				includeMovement(assetId, newMovement);
+				return newMovement;
+			}, submissionExecutor);
+		} catch (RejectedExecutionException e) {
+			throw new SubmissionQueueFull(ExceptionMessage.MESSAGE_SUBMISSION_QUEUE_FULL);
+		}
+	}
+	
+	/**
+	 * Envio para inclusão assíncrona de lançamento da conta corrente do usuário logado e movimentação no ativo com nome especificado
+	 * Apenas as validações de baixo custo são realizadas antes do retorno; a inclusão segue em segundo plano
+	 * e o seu resultado é consultado pelo protocolo retornado.
+	 * 
+	 * @param assetName
+	 * @param newMovement
+	 * @return MovementTicket
+	 * @throws SubmissionQueueFull caso a fila de movimentações esteja cheia
+	 */
+	public MovementTicket submitMovement(final String assetName, final AssetMovement newMovement) {
+		final Long assetId = service.prevalidateMovement(assetName, newMovement);
+		return movementTickets.open(securityUtils.getCurrentUsername(), submitMovement(assetId, newMovement));
+	}
+	
+	/**
+	 * Busca pelo protocolo com id especificado de movimentação enviada pelo usuário logado
+	 * 
+	 * @param ticketId
+	 * @return MovementTicket
+	 * @throws ObjectNotFoundException caso inexistente, expirado ou de outro usuário
+	 */
+	public MovementTicket findMovementTicket(final String ticketId) {
+		return movementTickets.find(ticketId, securityUtils.getCurrentUsername())
+				.orElseThrow(() -> new ObjectNotFoundException(null, MovementTicket.class));
 	}
 	
 	/**
 	 * Chamada para inclusão de lançamento da conta corrente do usuário logado e movimentação no ativo com nome especificado
 	 * Compras e vendas devem gerar lançamentos na conta corrente refletindo o valor gasto ou ganho.
 	 * 
+	 * O id do ativo é obtido pelo nome e a inclusão segue como a do ativo com id especificado.
+	 * 
 	 * @param assetName
 	 * @param newMovement
 	 * @return Asset
 	 */
-	@Transactional
 	public Asset includeMovement(final String assetName, final AssetMovement newMovement) {
-		accountFacade.includeLaunch(newMovement);
-		return service.includeMovementByAssetName(assetName, newMovement);
+		return includeMovement(service.findIdByName(assetName), newMovement);
 	}
 	
 	public BigDecimal getTotalQuantity(final Long assetId, LocalDate date) {
@@ -93,6 +211,30 @@ public class AssetFacade {
 		return service.getProfit(assetId, date);
 	}
 	
+	@Transactional
+	public List<PositionSnapshot> getPositions(final LocalDate date) {
+		return service.getPositions(date);
+	}
+	
+	/**
+	 * Fechamento diário: armazena as posições de todos os ativos na data informada, 
+	 * cada ativo em transação própria com o ativo bloqueado (ativos excluídos durante o fechamento são ignorados)
+	 * 
+	 * @param date
+	 */
+	public void closePositions(final LocalDate date) {
+		for (Long assetId : service.findAllIds()) {
+			try {
+				optimisticRetry.execute(Asset.class, assetId, () -> {
+					service.closePosition(assetId, date);
+					return null;
+				});
+			} catch (ObjectNotFoundException e) {
+				//ativo excluído após a consulta dos ids
+			}
+		}
+	}
+	
 	@Transactional
 	public Asset includeMarketPrice(final Long assetId, final BigDecimal price, final LocalDate date) {
 		return service.includeMarketPrice(assetId, price, date);
@@ -103,8 +245,14 @@ public class AssetFacade {
 		return service.excludeMarketPrice(assetId, data);
 	}
 	
-	public List<AssetMovement> getMovements(Long assetId, String dataInicio, String dataFim) {
-		return service.getMovements(assetId, dataInicio, dataFim);
+	public KeysetPage<AssetMovement> getMovements(Long assetId, String dataInicio, String dataFim, 
+			MovementType type, String cursor, int size) {
+		return service.getMovements(assetId, dataInicio, dataFim, type, cursor, size);
+	}
+	
+	@Transactional(readOnly = true)
+	public void exportMovements(Long assetId, String dataInicio, String dataFim, Consumer<AssetMovement> consumer) {
+		service.exportMovements(assetId, dataInicio, dataFim, consumer);
 	}
 
 }
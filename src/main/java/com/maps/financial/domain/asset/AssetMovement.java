@@ -9,12 +9,18 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.maps.financial.domain.commons.FixedPoint;
+import com.maps.financial.infra.persistence.BlockIdGenerator;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -29,13 +35,17 @@ import lombok.Setter;
  *
  */
 @Entity
-@Table(name = "movement_asset")
+@Table(name = "movement_asset", indexes = {
+		@Index(name = "idx_movement_asset_date", columnList = "asset_id, date, id"),
+		@Index(name = "idx_movement_asset_type_date", columnList = "asset_id, type, date, id") })
 @Getter
 @AllArgsConstructor @NoArgsConstructor @Builder
 public class AssetMovement {
 	
 	@Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "asset_movement_id")
+    @GenericGenerator(name = "asset_movement_id", strategy = BlockIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = BlockIdGenerator.ENTITY_PARAM, value = "asset_movement"))
     private Long id;
 	
 	@Setter
@@ -48,6 +58,7 @@ public class AssetMovement {
 	private MovementType type;
 	
 	@Setter
+	@Column(precision = 19, scale = 8)
 	private BigDecimal quantity;
 	
 	@Setter
@@ -66,5 +77,22 @@ public class AssetMovement {
 	public BigDecimal getValue() {
 		return this.value.setScale(2, BigDecimal.ROUND_DOWN);
 	}
+	
+	/**
+	 * Arredonda o valor da movimentação como na sua gravação (escala 2, arredondamento HALF_UP da coluna DECIMAL(19,2)),
+	 * mantendo as somas acumuladas em memória iguais às somas dos valores armazenados
+	 */
+	void roundValueToStoredScale() {
+		if (this.value != null) {
+			this.value = this.value.setScale(FixedPoint.MONEY_SCALE, BigDecimal.ROUND_HALF_UP);
+		}
+	}
+	
+	/**
+	 * Descarta o id atribuído em uma tentativa de inclusão desfeita, antes de uma nova tentativa
+	 */
+	void clearId() {
+		this.id = null;
+	}
 
 }
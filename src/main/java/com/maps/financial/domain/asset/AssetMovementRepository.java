@@ -0,0 +1,100 @@
+package com.maps.financial.domain.asset;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Interface para operações com as Movimentações de Ativos
+ * As consultas por período são paginadas por chave (data e id do último registro da página anterior),
+ * percorrendo pelo índice apenas os registros retornados, independente do histórico do ativo.
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+public interface AssetMovementRepository extends JpaRepository<AssetMovement, Long> {
+
+	/**
+	 * Busca as movimentações do ativo entre as datas informadas (inclusive/inclusive), posteriores ao registro
+	 * (data e id) informado, na ordem de data e id, pelo índice (asset_id, date, id)
+	 *
+	 * @param assetId
+	 * @param dateBegin
+	 * @param dateEnd
+	 * @param afterDate
+	 * @param afterId
+	 * @param pageable
+	 * @return List<AssetMovement>
+	 */
+	@Query("select m from AssetMovement m where m.asset.id = :assetId and m.date between :dateBegin and :dateEnd "
+			+ "and (m.date > :afterDate or (m.date = :afterDate and m.id > :afterId)) order by m.date, m.id")
+	List<AssetMovement> findByAssetIdAndDateBetween(@Param("assetId") Long assetId,
+			@Param("dateBegin") LocalDate dateBegin, @Param("dateEnd") LocalDate dateEnd,
+			@Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId, Pageable pageable);
+
+	/**
+	 * Busca as movimentações do tipo informado do ativo entre as datas informadas (inclusive/inclusive),
+	 * posteriores ao registro (data e id) informado, na ordem de data e id, pelo índice (asset_id, type, date, id)
+	 *
+	 * @param assetId
+	 * @param type
+	 * @param dateBegin
+	 * @param dateEnd
+	 * @param afterDate
+	 * @param afterId
+	 * @param pageable
+	 * @return List<AssetMovement>
+	 */
+	@Query("select m from AssetMovement m where m.asset.id = :assetId and m.type = :type and m.date between :dateBegin and :dateEnd "
+			+ "and (m.date > :afterDate or (m.date = :afterDate and m.id > :afterId)) order by m.date, m.id")
+	List<AssetMovement> findByAssetIdAndTypeAndDateBetween(@Param("assetId") Long assetId, @Param("type") MovementType type,
+			@Param("dateBegin") LocalDate dateBegin, @Param("dateEnd") LocalDate dateEnd,
+			@Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId, Pageable pageable);
+
+	/**
+	 * Percorre as movimentações do ativo entre as datas informadas (inclusive/inclusive), na ordem de data e id,
+	 * lidas do banco de dados sob demanda (em blocos) durante o consumo do stream
+	 * Deve ser utilizada em uma transação e o stream fechado ao final
+	 *
+	 * @param assetId
+	 * @param dateBegin
+	 * @param dateEnd
+	 * @return Stream<AssetMovement>
+	 */
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("select m from AssetMovement m where m.asset.id = :assetId and m.date between :dateBegin and :dateEnd "
+			+ "order by m.date, m.id")
+	Stream<AssetMovement> streamByAssetIdAndDateBetween(@Param("assetId") Long assetId,
+			@Param("dateBegin") LocalDate dateBegin, @Param("dateEnd") LocalDate dateEnd);
+
+	/**
+	 * Busca os atributos das movimentações do ativo usados no cálculo das posições, na ordem de data e id,
+	 * sem carregar as entidades
+	 *
+	 * @param assetId
+	 * @return List<MovementRow>
+	 */
+	@Query("select new com.maps.financial.domain.asset.MovementRow(m.asset.id, m.date, m.type, m.quantity, m.value) "
+			+ "from AssetMovement m where m.asset.id = :assetId order by m.date, m.id")
+	List<MovementRow> findRowsByAssetId(@Param("assetId") Long assetId);
+
+	/**
+	 * Busca os atributos das movimentações de todos os ativos usados no cálculo das posições,
+	 * na ordem de ativo, data e id, sem carregar as entidades
+	 *
+	 * @return List<MovementRow>
+	 */
+	@Query("select new com.maps.financial.domain.asset.MovementRow(m.asset.id, m.date, m.type, m.quantity, m.value) "
+			+ "from AssetMovement m order by m.asset.id, m.date, m.id")
+	List<MovementRow> findAllRows();
+
+}
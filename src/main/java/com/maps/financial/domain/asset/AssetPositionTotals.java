@@ -0,0 +1,43 @@
+package com.maps.financial.domain.asset;
+
+import java.math.BigDecimal;
+
+import com.maps.financial.domain.commons.FixedPoint;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Projeção com as somas de compras e vendas de um ativo até uma data e o preço de mercado vigente nela,
+ * calculadas diretamente no banco de dados (ver {@link AssetRepository#findPositionTotals})
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class AssetPositionTotals {
+
+	private final Long assetId;
+	private final String assetName;
+	private final AssetType assetType;
+	private final BigDecimal quantityBuy; //soma das quantidades compradas
+	private final BigDecimal quantitySell; //soma das quantidades vendidas
+	private final BigDecimal valueBuy; //soma dos valores de compra
+	private final BigDecimal valueSell; //soma dos valores de venda
+	private final BigDecimal marketPrice; //preço de mercado vigente na data, nulo caso não exista
+
+	/**
+	 * Monta a posição do ativo a partir das somas e do preço de mercado
+	 *
+	 * @return PositionSnapshot
+	 */
+	public PositionSnapshot toPosition() {
+		return Asset.createPosition(this.assetId, this.assetName, this.assetType,
+				FixedPoint.ofQuantity(this.quantityBuy), FixedPoint.ofQuantity(this.quantitySell),
+				FixedPoint.ofMoney(this.valueBuy), FixedPoint.ofMoney(this.valueSell),
+				FixedPoint.ofPrice(this.marketPrice));
+	}
+
+}
@@ -1,6 +1,11 @@
 package com.maps.financial.domain.asset;
 
+import java.time.LocalDate;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 /**
  * Interface para operações com Ativos Financeiros
@@ -12,5 +17,52 @@ import org.springframework.data.jpa.repository.JpaRepository;
 public interface AssetRepository extends JpaRepository<Asset, Long> {
 	
 	Asset findByName(String name);
+	
+	/**
+	 * Busca o id do ativo que contém o nome especificado, nulo caso não exista
+	 * 
+	 * @param name
+	 * @return Long
+	 */
+	@Query("select a.id from Asset a where a.name = :name")
+	Long findIdByName(@Param("name") String name);
+	
+	/**
+	 * Busca os ids de todos os ativos, ordenados
+	 * 
+	 * @return List<Long>
+	 */
+	@Query("select a.id from Asset a order by a.id")
+	List<Long> findAllIds();
+	
+	/**
+	 * Busca todos os ativos, ordenados por id, já com os valores de mercado carregados
+	 * 
+	 * @return List<Asset>
+	 */
+	@Query("select distinct a from Asset a left join fetch a.marketPrices order by a.id")
+	List<Asset> findAllWithMarketPrices();
+	
+	/**
+	 * Calcula no banco de dados, para cada ativo e ordenado por id, as somas das quantidades e valores de compras 
+	 * e vendas até a data informada (inclusive) e o preço de mercado vigente nela, ou seja, o último com data 
+	 * igual ou anterior. Havendo mais de um preço nessa data, prevalece o primeiro cadastrado.
+	 * 
+	 * @param date
+	 * @return List<AssetPositionTotals>
+	 */
+	@Query("select new com.maps.financial.domain.asset.AssetPositionTotals(a.id, a.name, a.type, "
+			+ "coalesce(sum(case when m.type = com.maps.financial.domain.asset.MovementType.BUY then m.quantity else 0 end), 0), "
+			+ "coalesce(sum(case when m.type = com.maps.financial.domain.asset.MovementType.SELL then m.quantity else 0 end), 0), "
+			+ "coalesce(sum(case when m.type = com.maps.financial.domain.asset.MovementType.BUY then m.value else 0 end), 0), "
+			+ "coalesce(sum(case when m.type = com.maps.financial.domain.asset.MovementType.SELL then m.value else 0 end), 0), "
+			+ "p.price) "
+			+ "from Asset a "
+			+ "left join a.movements m on m.date <= :date "
+			+ "left join a.marketPrices p on p.id = (select min(p2.id) from MarketPrice p2 where p2.asset = a and p2.date = "
+			+ "(select max(p3.date) from MarketPrice p3 where p3.asset = a and p3.date <= :date)) "
+			+ "group by a.id, a.name, a.type, p.price "
+			+ "order by a.id")
+	List<AssetPositionTotals> findPositionTotals(@Param("date") LocalDate date);
 
 }
@@ -1,19 +1,41 @@
 package com.maps.financial.domain.asset;
 
 import java.math.BigDecimal;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import com.maps.financial.config.PositionValuationConfig;
+import com.maps.financial.domain.commons.FixedPoint;
+import com.maps.financial.domain.commons.KeysetPage;
+import com.maps.financial.domain.commons.LockRegistry;
+import com.maps.financial.domain.commons.PageCursor;
+import com.maps.financial.domain.commons.ReservationLedger;
+import com.maps.financial.exceptions.AssetQuantityNotAvailable;
 import com.maps.financial.exceptions.AuthorizationException;
 import com.maps.financial.exceptions.ExceptionMessage;
 import com.maps.financial.exceptions.IssueDateNotBeforeDueDate;
+import com.maps.financial.exceptions.MovementNotAllowedInDate;
 import com.maps.financial.exceptions.ObjectNotFoundException;
 import com.maps.financial.infra.security.SecurityUtils;
 
@@ -30,32 +52,82 @@ public class AssetService {
 	@Autowired
 	private AssetRepository repository;
 	
+	@Autowired
+	private AssetMovementRepository movementRepository;
+	
 	@Autowired
 	private SecurityUtils securityUtils;
 	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Autowired
+	private DailyPositionService dailyPositionService;
+	
+	@Autowired
+	private PositionCache positionCache;
+	
+	@Autowired
+	private LockRegistry lockRegistry;
+	
+	@Autowired
+	private ReservationLedger reservationLedger;
+	
+	@Autowired(required = false)
+	@Qualifier(PositionValuationConfig.POSITION_VALUATION_POOL)
+	private ForkJoinPool positionValuationPool; //ausente quando o modo paralelo está desligado
+	
+	@Value("${financial.position.parallel.threshold:32}")
+	private int positionParallelThreshold; //quantidade máxima de ativos calculados sequencialmente por tarefa
+	
+	@Value("${financial.position.database-aggregation:false}")
+	private boolean positionDatabaseAggregation; //somas das posições calculadas pelo banco de dados
+	
+	@Value("${financial.pagination.max-size:1000}")
+	private int maxPageSize;
+	
 	private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 	
 	/**
 	 * O ambiente disponibilizado deve conter os seguintes dados pré-cadastrados:
 	 *	- Ativos com nomes de "ATIVO0" até "ATIVO127"
 	 *	- Valores de mercado para todos os ativos acima para o dia 2020-01-02
+	 * Em seguida, as quantidades disponíveis de todos os ativos são carregadas nas reservas em memória.
 	 */
 	@PostConstruct
     public void init() {
 		for (Integer i = 0; i < 128; i++) {
 			preRegistration("ATIVO".concat(i.toString()));
 		}
+		loadAvailableQuantities();
+	}
+	
+	/**
+	 * Carrega nas reservas em memória a quantidade total na data atual de todos os ativos, calculada pelo banco de dados
+	 * em uma única consulta, tornando a rejeição de vendas sem quantidade disponível independente da carga dos ativos
+	 */
+	public void loadAvailableQuantities() {
+		for (AssetPositionTotals totals : repository.findPositionTotals(LocalDate.now())) {
+			reservationLedger.observe(Asset.class, totals.getAssetId(), 
+					FixedPoint.ofQuantity(totals.toPosition().getTotalQuantity()));
+		}
 	}
 	
 	/**
 	 * Busca pelo ativo que contém o id especificado
+	 * Caso as movimentações do ativo ainda não estejam carregadas, as posições são calculadas a partir da projeção 
+	 * das movimentações em formato colunar, lida apenas na primeira consulta e sem carregar as entidades.
 	 * 
 	 * @param id
 	 * @return Asset
 	 * @throws ObjectNotFoundException
 	 */
 	public Asset findById(final Long id)  throws ObjectNotFoundException {
-		return repository.findById(id).orElseThrow(() -> new ObjectNotFoundException(id, Asset.class));
+		final Asset asset = repository.findById(id).orElseThrow(() -> new ObjectNotFoundException(id, Asset.class));
+		if (!Hibernate.isInitialized(asset.getMovements())) {
+			asset.loadMovementStoreWith(() -> MovementStore.ofRows(movementRepository.findRowsByAssetId(id)));
+		}
+		return asset;
 	}
 	
 	/**
@@ -85,7 +157,9 @@ public class AssetService {
 			throw new IssueDateNotBeforeDueDate(ExceptionMessage.MESSAGE_ISSUE_NOT_BEFORE_DUE);
 		}
 				
-		return repository.save(asset);
+		final Asset newAsset = repository.save(asset);
+		reservationLedger.observe(Asset.class, newAsset.getId(), FixedPoint.ofQuantity(newAsset.getTotalQuantity(LocalDate.now())));
+		return newAsset;
 	}
 	
 	/**
@@ -95,15 +169,17 @@ public class AssetService {
 	 * @param assetUpdate
 	 * @return Asset
 	 */
-	public synchronized Asset update(final Long assetId, final Asset assetUpdate) {
+	public Asset update(final Long assetId, final Asset assetUpdate) {
 		//Validação: ativo só pode ser alterado por usuário com privilégio administrativo
 		if (!isUserAdministrator()) {
 			throw new AuthorizationException(ExceptionMessage.MESSAGE_ACCESS_DENIED);
 		}
 		
+		lockRegistry.lock(Asset.class, assetId);
 		Asset asset = findById(assetId);
 		asset.setName(assetUpdate.getName());
 		asset.setType(assetUpdate.getType());
+		positionCache.invalidate(assetId);
 		return asset;
 	}
 	
@@ -117,9 +193,59 @@ public class AssetService {
 		if (!isUserAdministrator()) {
 			throw new AuthorizationException(ExceptionMessage.MESSAGE_ACCESS_DENIED);
 		}
-				
+		
+		lockRegistry.lock(Asset.class, assetId);
 		Asset asset = findById(assetId);
+		dailyPositionService.deleteByAssetId(assetId);
 		repository.delete(asset);
+		positionCache.remove(assetId);
+		reservationLedger.forget(Asset.class, assetId);
+	}
+	
+	/**
+	 * Validações de baixo custo da movimentação no ativo com nome especificado, antes de enfileirá-la:
+	 * existência do ativo, usuário não administrativo, data fora do final de semana e, para vendas,
+	 * quantidade disponível conhecida em memória (sem reserva). As demais validações ocorrem na inclusão.
+	 * 
+	 * @param assetName
+	 * @param newMovement
+	 * @return Long id do ativo
+	 * @throws ObjectNotFoundException
+	 */
+	public Long prevalidateMovement(final String assetName, final AssetMovement newMovement) {
+		final Long assetId = findIdByName(assetName);
+		
+		//Validação: usuário administrativo não deve poder gerar lançamentos e movimentos
+		if (isUserAdministrator()) {
+			throw new AuthorizationException(ExceptionMessage.MESSAGE_ACCESS_DENIED);
+		}
+		
+		//Movimentação pode ocorrer apenas de segunda-feira a sexta-feira
+		final LocalDate date = newMovement.getDate();
+		if (date != null && (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY)) {
+			throw new MovementNotAllowedInDate(ExceptionMessage.MESSAGE_MOVEMENT_NOT_ALLOWED_IN_WEEKEND);
+		}
+		
+		if (MovementType.SELL.equals(newMovement.getType()) && newMovement.getQuantity() != null
+				&& !reservationLedger.isAvailable(Asset.class, assetId, FixedPoint.ofQuantity(newMovement.getQuantity()))) {
+			throw new AssetQuantityNotAvailable(ExceptionMessage.MESSAGE_ASSET_QUANTITY_NOT_AVAILABLE);
+		}
+		return assetId;
+	}
+	
+	/**
+	 * Reserva em memória a quantidade da movimentação de venda no ativo que contém o id especificado
+	 * até o término da transação, antes de qualquer acesso ao banco de dados
+	 * 
+	 * @param assetId
+	 * @param newMovement
+	 * @throws AssetQuantityNotAvailable caso a quantidade disponível conhecida não comporte a venda
+	 */
+	public void reserveMovement(final Long assetId, final AssetMovement newMovement) {
+		if (MovementType.SELL.equals(newMovement.getType()) && newMovement.getQuantity() != null
+				&& !reservationLedger.tryReserve(Asset.class, assetId, FixedPoint.ofQuantity(newMovement.getQuantity()))) {
+			throw new AssetQuantityNotAvailable(ExceptionMessage.MESSAGE_ASSET_QUANTITY_NOT_AVAILABLE);
+		}
 	}
 	
 	/**
@@ -130,22 +256,41 @@ public class AssetService {
 	 * @return Asset
 	 */
 	public Asset includeMovementByAssetId(final Long assetId, final AssetMovement newMovement) {
+		lockRegistry.lock(Asset.class, assetId);
 		Asset asset = findById(assetId);
+		final long committedQuantity = FixedPoint.ofQuantity(asset.getTotalQuantity(LocalDate.now()));
+		reservationLedger.observe(Asset.class, assetId, committedQuantity);
 		includeMovement(asset, newMovement);
+		reservationLedger.applyOnCommit(Asset.class, assetId, 
+				FixedPoint.ofQuantity(asset.getTotalQuantity(LocalDate.now())) - committedQuantity);
 		return asset;
 	}
 	
 	/**
 	 * Inclui uma nova movimentação no ativo que contém o nome especificado
+	 * O ativo é carregado apenas após o seu bloqueio, a partir do id correspondente ao nome
 	 * 
 	 * @param assetName
 	 * @param newMovement
 	 * @return Asset
 	 */
 	public Asset includeMovementByAssetName(final String assetName, final AssetMovement newMovement) {
-		Asset asset = findByName(assetName);
-		includeMovement(asset, newMovement);
-		return asset;
+		return includeMovementByAssetId(findIdByName(assetName), newMovement);
+	}
+	
+	/**
+	 * Busca pelo id do ativo que contém o nome especificado
+	 * 
+	 * @param assetName
+	 * @return Long
+	 * @throws ObjectNotFoundException
+	 */
+	public Long findIdByName(final String assetName) throws ObjectNotFoundException {
+		final Long assetId = repository.findIdByName(assetName);
+		if (assetId == null) {
+			throw new ObjectNotFoundException(null, Asset.class);
+		}
+		return assetId;
 	}
 	
 	/**
@@ -157,8 +302,7 @@ public class AssetService {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getTotalQuantity(final Long assetId, LocalDate date) {
-		Asset asset = findById(assetId);
-		return asset.getTotalQuantity(date);
+		return getPosition(assetId, date).getTotalQuantity();
 	}
 	
 	/**
@@ -170,8 +314,7 @@ public class AssetService {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getTotalMarketPrice(final Long assetId, LocalDate date) {
-		Asset asset = findById(assetId);
-		return asset.getTotalMarketPrice(date);
+		return getPosition(assetId, date).getTotalMarketPrice();
 	}
 	
 	/**
@@ -183,8 +326,7 @@ public class AssetService {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getIncome(final Long assetId, LocalDate date) {
-		Asset asset = findById(assetId);
-		return asset.getIncome(date);
+		return getPosition(assetId, date).getIncome();
 	}
 	
 	/**
@@ -196,8 +338,55 @@ public class AssetService {
 	 * @return BigDecimal
 	 */
 	public BigDecimal getProfit(final Long assetId, LocalDate date) {
-		Asset asset = findById(assetId);
-		return asset.getProfit(date);
+		return getPosition(assetId, date).getProfit();
+	}
+	
+	/**
+	 * Retorna as posições de todos os ativos na data informada, na ordem dos ids dos ativos
+	 * As posições já calculadas são obtidas do cache. Para dias úteis já encerrados são utilizadas as posições 
+	 * de fechamento armazenadas pela rotina de fechamento, e apenas as dos ativos sem posição armazenada são calculadas;
+	 * sem nenhuma posição armazenada, todas são calculadas (a consulta não grava posições de fechamento)
+	 * 
+	 * @param date
+	 * @return List<PositionSnapshot>
+	 */
+	public List<PositionSnapshot> getPositions(final LocalDate date) {
+		final List<Long> assetIds = repository.findAllIds();
+		return positionCache.getAllPresent(assetIds, date).orElseGet(() -> {
+			final Map<Long, Long> generations = positionCache.getGenerations(assetIds);
+			final List<PositionSnapshot> positions = dailyPositionService.findPositions(date)
+					.filter(stored -> !stored.isEmpty())
+					.map(stored -> completePositions(assetIds, stored, date))
+					.orElseGet(() -> calculatePositions(date));
+			positionCache.putAll(date, positions, generations);
+			return positions;
+		});
+	}
+	
+	/**
+	 * Retorna os ids de todos os ativos, em ordem
+	 * 
+	 * @return List<Long>
+	 */
+	public List<Long> findAllIds() {
+		return repository.findAllIds();
+	}
+	
+	/**
+	 * Calcula e armazena (ou atualiza) a posição de fechamento do ativo que contém o id especificado na data informada,
+	 * caso seja um dia útil encerrado
+	 * O ativo é bloqueado antes do cálculo: movimentações e valores de mercado retroativos concorrentes são gravados
+	 * antes (e considerados no cálculo) ou depois (e atualizam a posição armazenada).
+	 * 
+	 * @param assetId
+	 * @param date
+	 */
+	public void closePosition(final Long assetId, final LocalDate date) {
+		if (!dailyPositionService.isClosedBusinessDay(date)) {
+			return;
+		}
+		lockRegistry.lock(Asset.class, assetId);
+		dailyPositionService.upsert(findById(assetId), date);
 	}
 	
 	/**
@@ -209,8 +398,11 @@ public class AssetService {
 	 * @return Asset
 	 */
 	public Asset includeMarketPrice(final Long assetId, final BigDecimal price, final LocalDate date) {
+		lockRegistry.lock(Asset.class, assetId);
 		Asset asset = findById(assetId);
 		asset.includeMarketPrice(price, date);
+		dailyPositionService.refresh(asset, date, asset.getNextMarketPriceDate(date));
+		positionCache.invalidate(assetId);
 		return asset;
 	}
 	
@@ -223,31 +415,77 @@ public class AssetService {
 	 */
 	public Asset excludeMarketPrice(final Long assetId, final String data) {
 		LocalDate date = LocalDate.parse(data, formatter);
+		lockRegistry.lock(Asset.class, assetId);
 		Asset asset = findById(assetId);
 		asset.excludeMarketPrice(date);
+		dailyPositionService.refresh(asset, date, asset.getNextMarketPriceDate(date));
+		positionCache.invalidate(assetId);
 		return asset;
 	}
 	
 	/**
-	 * Retorna a lista de movimentações entre as datas informadas do ativo que possui o id especificado
+	 * Retorna uma página das movimentações entre as datas informadas do ativo que possui o id especificado
 	 * Consultas de lançamentos, movimentações devem ter filtro obrigatório "data início" e "data fim", 
 	 * 		filtrando a data de movimento (inclusive/inclusive).
+	 * As movimentações podem ser filtradas pelo tipo (compra ou venda) quando informado. A página começa após
+	 * 		o cursor informado (primeira página caso nulo) e possui no máximo o tamanho informado,
+	 * 		limitado ao tamanho máximo configurado.
 	 * 
 	 * @param assetId
 	 * @param dataInicio
 	 * @param dataFim
-	 * @return List<AssetMovement>
+	 * @param type
+	 * @param cursor
+	 * @param size
+	 * @return KeysetPage<AssetMovement>
+	 * @throws ObjectNotFoundException
 	 */
-	public List<AssetMovement> getMovements(Long assetId, String dataInicio, String dataFim) {
+	public KeysetPage<AssetMovement> getMovements(Long assetId, String dataInicio, String dataFim, 
+			MovementType type, String cursor, int size) throws ObjectNotFoundException {
 		LocalDate dateBegin = LocalDate.parse(dataInicio, formatter);
 		LocalDate dateEnd = LocalDate.parse(dataFim, formatter);
-		Asset asset = findById(assetId);
-		List<AssetMovement> movements = asset.getMovements()
-				.stream()
-				.filter(movement -> !movement.getDate().isBefore(dateBegin) && !movement.getDate().isAfter(dateEnd)) 
-				.collect(Collectors.toList());
+		PageCursor after = PageCursor.decode(cursor);
+		if (after == null) {
+			after = new PageCursor(dateBegin, 0L);
+		}
+		if (!repository.existsById(assetId)) {
+			throw new ObjectNotFoundException(assetId, Asset.class);
+		}
 		
-		return movements;
+		final int pageSize = Math.max(1, Math.min(size, maxPageSize));
+		final PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+		final List<AssetMovement> movements = type == null
+				? movementRepository.findByAssetIdAndDateBetween(assetId, dateBegin, dateEnd, 
+						after.getDate(), after.getId(), pageRequest)
+				: movementRepository.findByAssetIdAndTypeAndDateBetween(assetId, type, dateBegin, dateEnd, 
+						after.getDate(), after.getId(), pageRequest);
+		return KeysetPage.of(movements, pageSize, movement -> new PageCursor(movement.getDate(), movement.getId()));
+	}
+	
+	/**
+	 * Exporta as movimentações entre as datas informadas do ativo que possui o id especificado, na ordem de data e id
+	 * As movimentações são lidas do banco de dados sob demanda, entregues ao consumidor e desanexadas em seguida,
+	 * 		mantendo o uso de memória constante independente da quantidade exportada.
+	 * 
+	 * @param assetId
+	 * @param dataInicio
+	 * @param dataFim
+	 * @param consumer
+	 * @throws ObjectNotFoundException
+	 */
+	public void exportMovements(Long assetId, String dataInicio, String dataFim, 
+			Consumer<AssetMovement> consumer) throws ObjectNotFoundException {
+		LocalDate dateBegin = LocalDate.parse(dataInicio, formatter);
+		LocalDate dateEnd = LocalDate.parse(dataFim, formatter);
+		if (!repository.existsById(assetId)) {
+			throw new ObjectNotFoundException(assetId, Asset.class);
+		}
+		try (Stream<AssetMovement> movements = movementRepository.streamByAssetIdAndDateBetween(assetId, dateBegin, dateEnd)) {
+			movements.forEach(movement -> {
+				consumer.accept(movement);
+				entityManager.detach(movement);
+			});
+		}
 	}
 	
 	/**
@@ -264,16 +502,84 @@ public class AssetService {
 		
 		newMovement.setAsset(asset);
 		asset.includeMovement(newMovement);
+		dailyPositionService.refresh(asset, newMovement.getDate(), null);
+		positionCache.invalidate(asset.getId());
 	}
 	
 	/**
-	 * Busca pelo ativo que contém o nome especificado
+	 * Calcula as posições de todos os ativos na data informada, na ordem dos ids dos ativos
+	 * Por padrão os ativos são carregados com as movimentações em formato colunar, lidas em uma única consulta de 
+	 * projeção sem carregar as entidades, e, com o modo paralelo ligado, o cálculo é dividido entre as threads do pool 
+	 * dedicado, sendo cada posição calculada de forma independente. Com a agregação pelo banco de dados ligada 
+	 * (financial.position.database-aggregation=true), as somas e o preço de mercado de cada ativo são obtidos 
+	 * em uma única consulta.
 	 * 
-	 * @param name
-	 * @return
+	 * @param date
+	 * @return List<PositionSnapshot>
+	 */
+	private List<PositionSnapshot> calculatePositions(final LocalDate date) {
+		if (positionDatabaseAggregation) {
+			return repository.findPositionTotals(date)
+					.stream()
+					.map(AssetPositionTotals::toPosition)
+					.collect(Collectors.toList());
+		}
+		
+		final List<Asset> assets = repository.findAllWithMarketPrices();
+		final Map<Long, List<MovementRow>> rows = movementRepository.findAllRows()
+				.stream()
+				.collect(Collectors.groupingBy(MovementRow::getAssetId));
+		for (Asset asset : assets) {
+			if (!Hibernate.isInitialized(asset.getMovements())) {
+				final MovementStore store = MovementStore.ofRows(rows.getOrDefault(asset.getId(), Collections.emptyList()));
+				asset.loadMovementStoreWith(() -> store);
+			}
+		}
+		
+		if (positionValuationPool == null || assets.size() <= positionParallelThreshold) {
+			return PositionValuationTask.valuate(assets, date);
+		}
+		return positionValuationPool.invoke(new PositionValuationTask(assets, date, positionParallelThreshold));
+	}
+	
+	/**
+	 * Completa as posições de fechamento armazenadas com as posições calculadas, na data informada, dos ativos que 
+	 * ainda não as possuem, na ordem dos ids informados (ativos excluídos após a consulta dos ids são ignorados)
+	 * 
+	 * @param assetIds
+	 * @param stored
+	 * @param date
+	 * @return List<PositionSnapshot>
+	 */
+	private List<PositionSnapshot> completePositions(final List<Long> assetIds, final List<PositionSnapshot> stored, 
+			final LocalDate date) {
+		final Map<Long, PositionSnapshot> storedByAsset = stored.stream()
+				.collect(Collectors.toMap(PositionSnapshot::getAssetId, Function.identity(), (first, second) -> first));
+		final List<PositionSnapshot> positions = new ArrayList<>(assetIds.size());
+		for (Long assetId : assetIds) {
+			final PositionSnapshot position = storedByAsset.get(assetId);
+			if (position != null) {
+				positions.add(position);
+				continue;
+			}
+			try {
+				positions.add(findById(assetId).getPosition(date));
+			} catch (ObjectNotFoundException e) {
+				//ativo excluído após a consulta dos ids
+			}
+		}
+		return positions;
+	}
+	
+	/**
+	 * Retorna a posição na data informada do ativo que contém o id especificado, obtida do cache quando já calculada
+	 * 
+	 * @param assetId
+	 * @param date
+	 * @return PositionSnapshot
 	 */
-	private Asset findByName(String name) {
-		return repository.findByName(name);
+	private PositionSnapshot getPosition(final Long assetId, final LocalDate date) {
+		return positionCache.get(assetId, date, id -> findById(id).getPosition(date));
 	}
 	
 	/**
@@ -0,0 +1,118 @@
+package com.maps.financial.domain.asset;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import javax.persistence.Basic;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.maps.financial.domain.commons.FixedPoint;
+import com.maps.financial.infra.persistence.BlockIdGenerator;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Classe de Posição de fechamento (fim do dia) de um Ativo em um dia útil já encerrado
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Entity
+@Table(name = "daily_position",
+		uniqueConstraints = @UniqueConstraint(columnNames = { "asset_id", "date" }),
+		indexes = @Index(name = "idx_daily_position_date", columnList = "date"))
+@Getter
+@AllArgsConstructor @NoArgsConstructor @Builder
+public class DailyPosition {
+
+	@Id
+    @GeneratedValue(generator = "daily_position_id")
+    @GenericGenerator(name = "daily_position_id", strategy = BlockIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = BlockIdGenerator.ENTITY_PARAM, value = "daily_position"))
+    private Long id;
+
+	@JoinColumn(name = "asset_id", referencedColumnName = "id", nullable = false)
+    @ManyToOne(optional = false)
+    private Asset asset;
+
+	@Basic(optional = false)
+	@Column(name = "date", columnDefinition = "DATE")
+	private LocalDate date; //data da posição
+
+	@Column(name = "total_quantity")
+	private BigDecimal totalQuantity; //quantidade total
+
+	@Column(name = "total_market_price")
+	private BigDecimal totalMarketPrice; //valor de mercado total
+
+	@Column(name = "average_value_buy")
+	private BigDecimal averageValueBuy; //preço médio das compras
+
+	private BigDecimal income; //rendimento
+
+	private BigDecimal profit; //lucro
+
+	/**
+	 * Cria a posição de fechamento do ativo na data informada
+	 *
+	 * @param asset
+	 * @param date
+	 * @param position
+	 * @return DailyPosition
+	 */
+	static DailyPosition of(Asset asset, LocalDate date, PositionSnapshot position) {
+		DailyPosition dailyPosition = DailyPosition.builder()
+				.asset(asset)
+				.date(date)
+				.build();
+		dailyPosition.update(position);
+		return dailyPosition;
+	}
+
+	/**
+	 * Atualiza os valores com a posição recalculada do ativo
+	 *
+	 * @param position
+	 */
+	void update(PositionSnapshot position) {
+		this.totalQuantity = position.getTotalQuantity();
+		this.totalMarketPrice = position.getTotalMarketPrice();
+		this.averageValueBuy = position.getAverageValueBuy();
+		this.income = position.getIncome();
+		this.profit = position.getProfit();
+	}
+
+	/**
+	 * Retorna a posição armazenada, com o nome e o tipo atuais do ativo
+	 *
+	 * @return PositionSnapshot
+	 */
+	PositionSnapshot toPosition() {
+		return PositionSnapshot.builder()
+				.assetId(this.asset.getId())
+				.assetName(this.asset.getName())
+				.assetType(this.asset.getType())
+				.totalQuantity(FixedPoint.ofMoney(this.totalQuantity))
+				.totalMarketPrice(FixedPoint.ofMoney(this.totalMarketPrice))
+				.averageValueBuy(FixedPoint.ofMoney(this.averageValueBuy))
+				.income(FixedPoint.ofMoney(this.income))
+				.profit(FixedPoint.ofMoney(this.profit))
+				.build();
+	}
+
+}
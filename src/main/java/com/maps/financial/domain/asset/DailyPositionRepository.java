@@ -0,0 +1,50 @@
+package com.maps.financial.domain.asset;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Interface para operações com as Posições de fechamento dos Ativos
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+public interface DailyPositionRepository extends JpaRepository<DailyPosition, Long> {
+
+	/**
+	 * Busca as posições de fechamento de todos os ativos na data informada, ordenadas pelo id do ativo
+	 *
+	 * @param date
+	 * @return List<DailyPosition>
+	 */
+	@Query("select d from DailyPosition d join fetch d.asset a where d.date = :date order by a.id")
+	List<DailyPosition> findByDate(@Param("date") LocalDate date);
+
+	/**
+	 * Busca as posições de fechamento do ativo entre as datas informadas (inclusive/inclusive)
+	 *
+	 * @param assetId
+	 * @param dateBegin
+	 * @param dateEnd
+	 * @return List<DailyPosition>
+	 */
+	@Query("select d from DailyPosition d where d.asset.id = :assetId and d.date between :dateBegin and :dateEnd")
+	List<DailyPosition> findByAssetIdAndDateBetween(@Param("assetId") Long assetId,
+			@Param("dateBegin") LocalDate dateBegin, @Param("dateEnd") LocalDate dateEnd);
+
+	/**
+	 * Exclui todas as posições de fechamento do ativo
+	 *
+	 * @param assetId
+	 */
+	@Modifying
+	@Query("delete from DailyPosition d where d.asset.id = :assetId")
+	void deleteByAssetId(@Param("assetId") Long assetId);
+
+}
@@ -0,0 +1,112 @@
+package com.maps.financial.domain.asset;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Classe de serviços para as Posições de fechamento dos Ativos
+ * As posições são armazenadas apenas para dias úteis já encerrados (anteriores à data atual) e
+ * recalculadas quando uma movimentação ou valor de mercado retroativo altera o seu resultado.
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Service
+public class DailyPositionService {
+
+	@Autowired
+	private DailyPositionRepository repository;
+
+	/**
+	 * Verifica se a data informada é um dia útil já encerrado
+	 *
+	 * @param date
+	 * @return boolean
+	 */
+	public boolean isClosedBusinessDay(final LocalDate date) {
+		if (date == null || !date.isBefore(LocalDate.now())) {
+			return false;
+		}
+		return date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY;
+	}
+
+	/**
+	 * Retorna as posições de fechamento armazenadas na data informada, ordenadas pelo id do ativo
+	 * Ativos sem posição armazenada na data (ex.: criados após o fechamento) não constam da lista.
+	 * Retorna vazio caso a data não seja um dia útil encerrado.
+	 *
+	 * @param date
+	 * @return Optional<List<PositionSnapshot>>
+	 */
+	public Optional<List<PositionSnapshot>> findPositions(final LocalDate date) {
+		if (!isClosedBusinessDay(date)) {
+			return Optional.empty();
+		}
+
+		return Optional.of(repository.findByDate(date)
+				.stream()
+				.map(DailyPosition::toPosition)
+				.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Armazena a posição de fechamento do ativo na data informada, calculada a partir do ativo; 
+	 * caso já exista posição armazenada na data, ela é atualizada
+	 * Deve ser chamada com o ativo bloqueado, serializada com as alterações retroativas que recalculam as posições armazenadas.
+	 *
+	 * @param asset
+	 * @param date
+	 */
+	public void upsert(final Asset asset, final LocalDate date) {
+		if (asset.getId() == null || !isClosedBusinessDay(date)) {
+			return;
+		}
+
+		final PositionSnapshot position = asset.getPosition(date);
+		final List<DailyPosition> dailyPositions = repository.findByAssetIdAndDateBetween(asset.getId(), date, date);
+		if (dailyPositions.isEmpty()) {
+			repository.save(DailyPosition.of(asset, date, position));
+		} else {
+			dailyPositions.forEach(dailyPosition -> dailyPosition.update(position));
+		}
+	}
+
+	/**
+	 * Recalcula as posições de fechamento armazenadas do ativo a partir da data informada (inclusive)
+	 * até a data final (exclusive), ou até o último dia encerrado caso a data final seja nula
+	 *
+	 * @param asset
+	 * @param dateBegin
+	 * @param dateEnd
+	 */
+	public void refresh(final Asset asset, final LocalDate dateBegin, final LocalDate dateEnd) {
+		LocalDate lastClosedDate = LocalDate.now().minusDays(1);
+		if (dateEnd != null && dateEnd.isBefore(LocalDate.now())) {
+			lastClosedDate = dateEnd.minusDays(1);
+		}
+		if (asset.getId() == null || dateBegin == null || dateBegin.isAfter(lastClosedDate)) {
+			return;
+		}
+
+		for (DailyPosition dailyPosition : repository.findByAssetIdAndDateBetween(asset.getId(), dateBegin, lastClosedDate)) {
+			dailyPosition.update(asset.getPosition(dailyPosition.getDate()));
+		}
+	}
+
+	/**
+	 * Exclui todas as posições de fechamento do ativo que contém o id especificado
+	 *
+	 * @param assetId
+	 */
+	public void deleteByAssetId(final Long assetId) {
+		repository.deleteByAssetId(assetId);
+	}
+
+}
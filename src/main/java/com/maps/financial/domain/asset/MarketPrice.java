@@ -7,12 +7,16 @@ import javax.persistence.Basic;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.maps.financial.infra.persistence.BlockIdGenerator;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -33,7 +37,9 @@ import lombok.NoArgsConstructor;
 public class MarketPrice {
 	
 	@Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "market_price_id")
+    @GenericGenerator(name = "market_price_id", strategy = BlockIdGenerator.STRATEGY,
+    		parameters = @Parameter(name = BlockIdGenerator.ENTITY_PARAM, value = "market_price"))
     private Long id;
 	
 	@JoinColumn(name = "asset_id", referencedColumnName = "id", nullable = false)
@@ -41,6 +47,7 @@ public class MarketPrice {
     private Asset asset;
 	
 	@Basic(optional = false)
+	@Column(precision = 19, scale = 8)
 	private BigDecimal price;
 	
 	@Basic(optional = false)
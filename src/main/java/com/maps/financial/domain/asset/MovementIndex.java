@@ -0,0 +1,178 @@
+package com.maps.financial.domain.asset;
+
+import java.time.LocalDate;
+
+import com.maps.financial.domain.commons.FixedPoint;
+
+/**
+ * Índice cumulativo por data das movimentações de um ativo (Fenwick tree / binary indexed tree).
+ * Cada posição representa um dia (epoch day) entre a emissão e o vencimento do ativo e armazena as quantidades e
+ * valores de compra e venda, permitindo consultas "até a data" e a inclusão de movimentações em qualquer dia coberto,
+ * inclusive retroativas em datas ainda sem movimentação, em O(log n) e sem recriar o índice.
+ * Quantidades são mantidas em ponto fixo com escala 8 e valores com escala 2 (ver {@link FixedPoint}).
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+class MovementIndex {
+
+	private static final int QUANTITY_BUY = 0;
+	private static final int QUANTITY_SELL = 1;
+	private static final int VALUE_BUY = 2;
+	private static final int VALUE_SELL = 3;
+
+	private final long firstEpochDay;
+	private final int size;
+	private final long[][] tree;
+
+	/**
+	 * Constructor para um índice que cobre os dias entre as datas informadas (inclusive/inclusive)
+	 *
+	 * @param firstDate
+	 * @param lastDate
+	 */
+	MovementIndex(LocalDate firstDate, LocalDate lastDate) {
+		this.firstEpochDay = firstDate.toEpochDay();
+		this.size = (int) (lastDate.toEpochDay() - this.firstEpochDay + 1);
+		this.tree = new long[4][this.size + 1];
+	}
+
+	/**
+	 * Cria o índice a partir do armazenamento colunar das movimentações, cobrindo o período entre a data de emissão
+	 * e a data de vencimento do ativo, ampliado caso alguma movimentação esteja fora deste período.
+	 * Retorna null quando não há datas para delimitar o índice.
+	 *
+	 * @param issueDate
+	 * @param dueDate
+	 * @param store
+	 * @return MovementIndex
+	 */
+	static MovementIndex of(LocalDate issueDate, LocalDate dueDate, MovementStore store) {
+		LocalDate firstDate = issueDate;
+		LocalDate lastDate = dueDate;
+		if (!store.isEmpty()) {
+			firstDate = firstDate == null || store.getFirstDate().isBefore(firstDate) ? store.getFirstDate() : firstDate;
+			lastDate = lastDate == null || store.getLastDate().isAfter(lastDate) ? store.getLastDate() : lastDate;
+		}
+		if (firstDate == null || lastDate == null || lastDate.isBefore(firstDate)) {
+			return null;
+		}
+
+		MovementIndex index = new MovementIndex(firstDate, lastDate);
+		for (int row = 0; row < store.size(); row++) {
+			index.accumulate(store.getType(row), store.getDay(row), store.getQuantity(row), store.getValue(row));
+		}
+		index.build();
+		return index;
+	}
+
+	/**
+	 * Verifica se a data informada está dentro do período coberto pelo índice
+	 *
+	 * @param date
+	 * @return boolean
+	 */
+	boolean covers(LocalDate date) {
+		long position = date.toEpochDay() - this.firstEpochDay;
+		return position >= 0 && position < this.size;
+	}
+
+	/**
+	 * Inclui a movimentação da linha informada do armazenamento colunar no índice em O(log n).
+	 * A data da movimentação deve estar coberta pelo índice.
+	 *
+	 * @param store
+	 * @param row
+	 */
+	void add(MovementStore store, int row) {
+		int column = quantityColumn(store.getType(row));
+		if (column < 0) {
+			return;
+		}
+		long quantity = store.getQuantity(row);
+		long value = store.getValue(row);
+		for (int i = position(store.getDay(row)); i <= this.size; i += i & -i) {
+			this.tree[column][i] = FixedPoint.add(this.tree[column][i], quantity);
+			this.tree[column + 2][i] = FixedPoint.add(this.tree[column + 2][i], value);
+		}
+	}
+
+	long getQuantityBuy(LocalDate date) {
+		return this.prefixSum(QUANTITY_BUY, date);
+	}
+
+	long getQuantitySell(LocalDate date) {
+		return this.prefixSum(QUANTITY_SELL, date);
+	}
+
+	long getValueBuy(LocalDate date) {
+		return this.prefixSum(VALUE_BUY, date);
+	}
+
+	long getValueSell(LocalDate date) {
+		return this.prefixSum(VALUE_SELL, date);
+	}
+
+	/**
+	 * Soma acumulada da coluna informada para todos os dias até a data (inclusive)
+	 *
+	 * @param column
+	 * @param date
+	 * @return long
+	 */
+	private long prefixSum(int column, LocalDate date) {
+		long position = Math.min(date.toEpochDay() - this.firstEpochDay + 1, this.size);
+		long sum = 0L;
+		for (int i = (int) Math.max(position, 0); i > 0; i -= i & -i) {
+			sum = FixedPoint.add(sum, this.tree[column][i]);
+		}
+		return sum;
+	}
+
+	/**
+	 * Soma a movimentação diretamente na posição do seu dia, sem propagação (usado na criação do índice)
+	 *
+	 * @param type
+	 * @param day
+	 * @param quantity
+	 * @param value
+	 */
+	private void accumulate(byte type, int day, long quantity, long value) {
+		int column = quantityColumn(type);
+		if (column >= 0) {
+			int i = position(day);
+			this.tree[column][i] = FixedPoint.add(this.tree[column][i], quantity);
+			this.tree[column + 2][i] = FixedPoint.add(this.tree[column + 2][i], value);
+		}
+	}
+
+	/**
+	 * Transforma as somas por dia na estrutura cumulativa da Fenwick tree em O(n)
+	 */
+	private void build() {
+		for (long[] column : this.tree) {
+			for (int i = 1; i <= this.size; i++) {
+				int parent = i + (i & -i);
+				if (parent <= this.size) {
+					column[parent] = FixedPoint.add(column[parent], column[i]);
+				}
+			}
+		}
+	}
+
+	private int position(int day) {
+		return (int) (day - this.firstEpochDay + 1);
+	}
+
+	private static int quantityColumn(byte type) {
+		if (type == MovementStore.TYPE_BUY) {
+			return QUANTITY_BUY;
+		}
+		if (type == MovementStore.TYPE_SELL) {
+			return QUANTITY_SELL;
+		}
+		return -1;
+	}
+
+}
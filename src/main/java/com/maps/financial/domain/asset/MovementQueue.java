@@ -0,0 +1,281 @@
+package com.maps.financial.domain.asset;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.maps.financial.domain.account.Account;
+import com.maps.financial.domain.account.AccountFacade;
+import com.maps.financial.domain.commons.LockRegistry;
+import com.maps.financial.domain.commons.OptimisticRetry;
+import com.maps.financial.exceptions.ExceptionMessage;
+import com.maps.financial.exceptions.SubmissionQueueFull;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+
+/**
+ * Filas de inclusão de movimentações com um único escritor por ativo: as movimentações são distribuídas pelo id
+ * do ativo entre filas fixas, cada uma consumida por uma única thread que as grava em lotes, com uma transação por lote.
+ * O lote é formado com as movimentações aguardando na fila, esperando no máximo financial.movement.queue.max-batch-latency
+ * após a primeira. Caso alguma movimentação do lote falhe, o lote é desfeito e cada movimentação é gravada isoladamente,
+ * com as novas tentativas em caso de conflito de versão.
+ * Cada fila comporta no máximo financial.movement.queue.capacity movimentações aguardando gravação; com a fila cheia,
+ * novas movimentações são recusadas (SubmissionQueueFull) em vez de acumular requisições aguardando.
+ * Ligado com financial.movement.queue.enabled=true; os tamanhos dos lotes são publicados como financial.movement.queue.batch.size.
+ *
+ * Ordem dos bloqueios do lote: contas correntes de todas as movimentações em ordem de id, depois os ativos.
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "financial.movement.queue.enabled", havingValue = "true")
+public class MovementQueue {
+
+	private final AssetService assetService;
+	private final AccountFacade accountFacade;
+	private final LockRegistry lockRegistry;
+	private final OptimisticRetry optimisticRetry;
+	private final TransactionTemplate transactionTemplate;
+	private final DistributionSummary batchSize;
+	private final int maxBatchSize;
+	private final long maxBatchLatencyNanos;
+	private final List<BlockingQueue<MovementCommand>> queues = new ArrayList<>();
+	private final List<Thread> writers = new ArrayList<>();
+	private volatile boolean running = true;
+
+	/**
+	 * Constructor com a quantidade de filas (0 = número de processadores), a capacidade de cada fila,
+	 * o tamanho máximo dos lotes e a espera máxima pela formação de um lote
+	 *
+	 * @param assetService
+	 * @param accountFacade
+	 * @param lockRegistry
+	 * @param optimisticRetry
+	 * @param transactionManager
+	 * @param meterRegistry
+	 * @param shards
+	 * @param capacity
+	 * @param maxBatchSize
+	 * @param maxBatchLatency
+	 */
+	public MovementQueue(AssetService assetService, AccountFacade accountFacade, LockRegistry lockRegistry,
+			OptimisticRetry optimisticRetry, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+			@Value("${financial.movement.queue.shards:0}") int shards,
+			@Value("${financial.movement.queue.capacity:10000}") int capacity,
+			@Value("${financial.movement.queue.max-batch-size:100}") int maxBatchSize,
+			@Value("${financial.movement.queue.max-batch-latency:5ms}") Duration maxBatchLatency) {
+		this.assetService = assetService;
+		this.accountFacade = accountFacade;
+		this.lockRegistry = lockRegistry;
+		this.optimisticRetry = optimisticRetry;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.batchSize = DistributionSummary.builder("financial.movement.queue.batch.size").register(meterRegistry);
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.maxBatchLatencyNanos = maxBatchLatency.toNanos();
+
+		final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("movement-writer-");
+		threadFactory.setDaemon(true);
+		for (int i = 0; i < (shards > 0 ? shards : Runtime.getRuntime().availableProcessors()); i++) {
+			final BlockingQueue<MovementCommand> queue = new LinkedBlockingQueue<>(Math.max(1, capacity));
+			final Thread writer = threadFactory.newThread(() -> drain(queue));
+			this.queues.add(queue);
+			this.writers.add(writer);
+			writer.start();
+		}
+	}
+
+	/**
+	 * Enfileira a inclusão da movimentação no ativo que contém o id especificado, em nome do usuário logado
+	 * O retorno é concluído com a movimentação após a confirmação do seu lote, ou com a exceção que impediu a inclusão.
+	 *
+	 * @param assetId
+	 * @param newMovement
+	 * @return CompletableFuture<AssetMovement>
+	 * @throws SubmissionQueueFull caso a fila do ativo esteja cheia
+	 */
+	public CompletableFuture<AssetMovement> submit(final Long assetId, final AssetMovement newMovement) {
+		if (!this.running) {
+			throw new IllegalStateException("Fila de movimentações encerrada");
+		}
+		final MovementCommand command = new MovementCommand(assetId, newMovement, SecurityContextHolder.getContext(),
+				new CompletableFuture<>());
+		final BlockingQueue<MovementCommand> queue = this.queues.get((int) Math.floorMod(assetId, (long) this.queues.size()));
+		if (!queue.offer(command)) {
+			throw new SubmissionQueueFull(ExceptionMessage.MESSAGE_SUBMISSION_QUEUE_FULL);
+		}
+		if (!this.running) {
+			//encerrada durante o envio: a escritora pode já ter esvaziado a fila
+			rejectPending(queue);
+		}
+		return command.future;
+	}
+
+	/**
+	 * Encerra as threads escritoras; as movimentações ainda não gravadas são concluídas com erro
+	 */
+	@PreDestroy
+	public void shutdown() {
+		this.running = false;
+		this.writers.forEach(Thread::interrupt);
+		for (Thread writer : this.writers) {
+			try {
+				writer.join(TimeUnit.SECONDS.toMillis(5));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		this.queues.forEach(this::rejectPending);
+	}
+
+	/**
+	 * Laço da thread escritora de uma fila: aguarda a primeira movimentação, forma o lote e o grava
+	 * Ao encerrar, as movimentações do lote em formação e as ainda na fila são concluídas com erro.
+	 *
+	 * @param queue
+	 */
+	private void drain(final BlockingQueue<MovementCommand> queue) {
+		final List<MovementCommand> batch = new ArrayList<>();
+		try {
+			while (this.running) {
+				batch.add(queue.take());
+				final long deadline = System.nanoTime() + this.maxBatchLatencyNanos;
+				while (batch.size() < this.maxBatchSize) {
+					final MovementCommand next = queue.poll(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+				write(batch);
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		batch.forEach(MovementCommand::reject);
+		rejectPending(queue);
+	}
+
+	/**
+	 * Retira da fila as movimentações aguardando gravação e as conclui com erro
+	 *
+	 * @param queue
+	 */
+	private void rejectPending(final BlockingQueue<MovementCommand> queue) {
+		final List<MovementCommand> pending = new ArrayList<>();
+		queue.drainTo(pending);
+		pending.forEach(MovementCommand::reject);
+	}
+
+	/**
+	 * Grava o lote em uma única transação, ou cada movimentação isoladamente caso o lote falhe
+	 *
+	 * @param batch
+	 */
+	private void write(final List<MovementCommand> batch) {
+		this.batchSize.record(batch.size());
+		if (batch.size() > 1) {
+			try {
+				this.transactionTemplate.execute(status -> {
+					lockAccounts(batch);
+					batch.forEach(command -> runAs(command, () -> include(command)));
+					return null;
+				});
+				batch.forEach(command -> command.future.complete(command.movement));
+				return;
+			} catch (RuntimeException e) {
+				//lote desfeito: as movimentações são gravadas isoladamente abaixo
+			}
+		}
+
+		for (MovementCommand command : batch) {
+			try {
+				runAs(command, () -> this.optimisticRetry.execute(Asset.class, command.assetId, () -> include(command)));
+				command.future.complete(command.movement);
+			} catch (RuntimeException e) {
+				command.future.completeExceptionally(e);
+			}
+		}
+	}
+
+	/**
+	 * Bloqueia as contas correntes dos usuários das movimentações do lote em ordem de id, antes de qualquer ativo
+	 *
+	 * @param batch
+	 */
+	private void lockAccounts(final List<MovementCommand> batch) {
+		final TreeSet<Long> accountIds = new TreeSet<>();
+		for (MovementCommand command : batch) {
+			final Long accountId = runAs(command, this.accountFacade::getAccountIdOfCurrentUser);
+			if (accountId != null) {
+				accountIds.add(accountId);
+			}
+		}
+		accountIds.forEach(accountId -> this.lockRegistry.lock(Account.class, accountId));
+	}
+
+	private Asset include(final MovementCommand command) {
+		command.movement.clearId();
+		this.assetService.reserveMovement(command.assetId, command.movement);
+		this.accountFacade.includeLaunch(command.movement);
+		return this.assetService.includeMovementByAssetId(command.assetId, command.movement);
+	}
+
+	/**
+	 * Executa a chamada com o usuário que enfileirou a movimentação como usuário logado
+	 *
+	 * @param command
+	 * @param call
+	 * @return T
+	 */
+	private <T> T runAs(final MovementCommand command, final Supplier<T> call) {
+		final SecurityContext previous = SecurityContextHolder.getContext();
+		SecurityContextHolder.setContext(command.securityContext);
+		try {
+			return call.get();
+		} finally {
+			SecurityContextHolder.setContext(previous);
+		}
+	}
+
+	/**
+	 * Movimentação enfileirada: ativo, movimentação, usuário que a enfileirou e retorno da inclusão
+	 */
+	@AllArgsConstructor
+	private static final class MovementCommand {
+
+		private final Long assetId;
+		private final AssetMovement movement;
+		private final SecurityContext securityContext;
+		private final CompletableFuture<AssetMovement> future;
+
+		private void reject() {
+			this.future.completeExceptionally(new IllegalStateException("Fila de movimentações encerrada"));
+		}
+
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.maps.financial.domain.asset;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Projeção com os atributos das movimentações usados no cálculo das posições, lida sem carregar as entidades
+ * (ver {@link AssetMovementRepository#findRowsByAssetId} e {@link MovementStore})
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class MovementRow {
+
+	private final Long assetId;
+	private final LocalDate date;
+	private final MovementType type;
+	private final BigDecimal quantity;
+	private final BigDecimal value;
+
+}
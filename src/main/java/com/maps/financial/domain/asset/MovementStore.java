@@ -0,0 +1,152 @@
+package com.maps.financial.domain.asset;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import com.maps.financial.domain.commons.FixedPoint;
+
+/**
+ * Representação colunar em memória das movimentações de um ativo.
+ * Cada linha corresponde a uma movimentação e os atributos são mantidos em arrays de tipos primitivos: dia (epoch day),
+ * tipo (ordinal de {@link MovementType}), quantidade em ponto fixo com escala 8 e valor em ponto fixo com escala 2
+ * (ver {@link FixedPoint}).
+ * Para ativos carregados do banco de dados, as linhas são obtidas pela projeção {@link MovementRow}, sem carregar as
+ * entidades das movimentações; as posições e somas por data são calculadas apenas a partir destes arrays.
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+class MovementStore {
+
+	static final byte TYPE_BUY = (byte) MovementType.BUY.ordinal();
+	static final byte TYPE_SELL = (byte) MovementType.SELL.ordinal();
+	private static final byte TYPE_NONE = -1;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int[] days;
+	private byte[] types;
+	private long[] quantities;
+	private long[] values;
+	private int size;
+	private int firstDay = Integer.MAX_VALUE;
+	private int lastDay = Integer.MIN_VALUE;
+
+	/**
+	 * Constructor para um armazenamento vazio com a capacidade inicial informada
+	 *
+	 * @param capacity
+	 */
+	MovementStore(int capacity) {
+		int initialCapacity = Math.max(capacity, INITIAL_CAPACITY);
+		this.days = new int[initialCapacity];
+		this.types = new byte[initialCapacity];
+		this.quantities = new long[initialCapacity];
+		this.values = new long[initialCapacity];
+	}
+
+	/**
+	 * Cria o armazenamento colunar a partir das movimentações já carregadas em memória, mantendo a mesma ordem
+	 *
+	 * @param movements
+	 * @return MovementStore
+	 */
+	static MovementStore of(List<AssetMovement> movements) {
+		MovementStore store = new MovementStore(movements.size());
+		for (AssetMovement movement : movements) {
+			store.add(movement);
+		}
+		return store;
+	}
+
+	/**
+	 * Cria o armazenamento colunar a partir das linhas da projeção das movimentações, mantendo a mesma ordem
+	 *
+	 * @param rows
+	 * @return MovementStore
+	 */
+	static MovementStore ofRows(List<MovementRow> rows) {
+		MovementStore store = new MovementStore(rows.size());
+		for (MovementRow row : rows) {
+			store.add(row.getDate(), row.getType(), row.getQuantity(), row.getValue());
+		}
+		return store;
+	}
+
+	/**
+	 * Inclui uma nova movimentação como última linha do armazenamento
+	 *
+	 * @param movement
+	 */
+	void add(AssetMovement movement) {
+		this.add(movement.getDate(), movement.getType(), movement.getQuantity(), movement.getValue());
+	}
+
+	private void add(LocalDate date, MovementType type, BigDecimal quantity, BigDecimal value) {
+		if (this.size == this.days.length) {
+			this.grow();
+		}
+		int day = Math.toIntExact(date.toEpochDay());
+		this.days[this.size] = day;
+		this.types[this.size] = type != null ? (byte) type.ordinal() : TYPE_NONE;
+		this.quantities[this.size] = FixedPoint.ofQuantity(quantity);
+		this.values[this.size] = FixedPoint.ofMoney(value);
+		this.size++;
+		this.firstDay = Math.min(this.firstDay, day);
+		this.lastDay = Math.max(this.lastDay, day);
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Retorna a data da movimentação mais antiga, ou null caso não existam movimentações
+	 *
+	 * @return LocalDate
+	 */
+	LocalDate getFirstDate() {
+		return this.isEmpty() ? null : LocalDate.ofEpochDay(this.firstDay);
+	}
+
+	/**
+	 * Retorna a data da movimentação mais recente, ou null caso não existam movimentações
+	 *
+	 * @return LocalDate
+	 */
+	LocalDate getLastDate() {
+		return this.isEmpty() ? null : LocalDate.ofEpochDay(this.lastDay);
+	}
+
+	int getDay(int row) {
+		return this.days[row];
+	}
+
+	byte getType(int row) {
+		return this.types[row];
+	}
+
+	long getQuantity(int row) {
+		return this.quantities[row];
+	}
+
+	long getValue(int row) {
+		return this.values[row];
+	}
+
+	private void grow() {
+		int capacity = this.days.length + (this.days.length >> 1);
+		this.days = Arrays.copyOf(this.days, capacity);
+		this.types = Arrays.copyOf(this.types, capacity);
+		this.quantities = Arrays.copyOf(this.quantities, capacity);
+		this.values = Arrays.copyOf(this.values, capacity);
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.maps.financial.domain.asset;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Protocolo de uma movimentação enviada para inclusão assíncrona: usuário que a enviou, situação e,
+ * após a gravação, o id da movimentação incluída ou a mensagem do motivo da rejeição
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class MovementTicket {
+	
+	private final String id;
+	private final String username;
+	private final MovementTicketStatus status;
+	private final Long movementId;
+	private final String message;
+	
+	static MovementTicket pending(final String id, final String username) {
+		return new MovementTicket(id, username, MovementTicketStatus.PENDING, null, null);
+	}
+	
+	MovementTicket completed(final Long movementId) {
+		return new MovementTicket(this.id, this.username, MovementTicketStatus.COMPLETED, movementId, null);
+	}
+	
+	MovementTicket rejected(final String message) {
+		return new MovementTicket(this.id, this.username, MovementTicketStatus.REJECTED, null, message);
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.maps.financial.domain.asset;
+
+/**
+ * Enum que representa as situações de uma movimentação enviada para inclusão assíncrona
+ * Pendente (aguardando gravação), concluída ou rejeitada
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+public enum MovementTicketStatus {
+	
+	PENDING, COMPLETED, REJECTED;
+
+}
@@ -0,0 +1,77 @@
+package com.maps.financial.domain.asset;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Protocolos das movimentações enviadas para inclusão assíncrona, mantidos em memória em cache limitado
+ * (quantidade máxima de entradas e tempo de expiração após a última atualização). Cada protocolo é atualizado
+ * com o resultado da gravação da sua movimentação e consultado apenas pelo usuário que a enviou.
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Component
+public class MovementTickets {
+
+	private final Cache<String, MovementTicket> tickets;
+
+	/**
+	 * Constructor com a quantidade máxima de protocolos e o tempo de expiração após a última atualização
+	 *
+	 * @param maximumSize
+	 * @param expireAfterWrite
+	 */
+	public MovementTickets(@Value("${financial.movement.async.tickets.maximum-size:100000}") long maximumSize,
+			@Value("${financial.movement.async.tickets.expire-after-write:1h}") Duration expireAfterWrite) {
+		this.tickets = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.executor(Runnable::run)
+				.build();
+	}
+
+	/**
+	 * Abre o protocolo da movimentação enviada pelo usuário informado, atualizado ao término da gravação
+	 *
+	 * @param username
+	 * @param future
+	 * @return MovementTicket situação atual do protocolo
+	 */
+	public MovementTicket open(final String username, final CompletableFuture<AssetMovement> future) {
+		final MovementTicket ticket = MovementTicket.pending(UUID.randomUUID().toString(), username);
+		this.tickets.put(ticket.getId(), ticket);
+		future.whenComplete((movement, error) -> this.tickets.put(ticket.getId(),
+				error == null ? ticket.completed(movement.getId()) : ticket.rejected(getMessage(error))));
+		final MovementTicket current = this.tickets.getIfPresent(ticket.getId());
+		return current != null ? current : ticket;
+	}
+
+	/**
+	 * Busca pelo protocolo com id especificado, vazio caso inexistente, expirado ou de outro usuário
+	 *
+	 * @param id
+	 * @param username
+	 * @return Optional<MovementTicket>
+	 */
+	public Optional<MovementTicket> find(final String id, final String username) {
+		return Optional.ofNullable(id != null ? this.tickets.getIfPresent(id) : null)
+				.filter(ticket -> ticket.getUsername().equals(username));
+	}
+
+	private String getMessage(final Throwable error) {
+		final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+		return cause.getMessage();
+	}
+
+}
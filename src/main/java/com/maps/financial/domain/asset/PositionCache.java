@@ -0,0 +1,299 @@
+package com.maps.financial.domain.asset;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Cache limitado (quantidade máxima de entradas e tempo de expiração) das posições calculadas dos ativos,
+ * indexado por ativo e data. As entradas de um ativo são invalidadas a cada alteração nele, sem afetar os demais.
+ * Cada ativo possui uma geração, incrementada a cada invalidação: posições calculadas a partir de uma geração
+ * já ultrapassada (alteração confirmada durante o cálculo) não permanecem no cache. As gerações são mantidas apenas
+ * para os ativos existentes: a exclusão do ativo remove a sua geração (ver {@link #remove(Long)}).
+ * As métricas de acertos, faltas e remoções são publicadas como "cache.*" com a tag cache=positions.
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Component
+public class PositionCache implements MeterBinder {
+
+	static final String CACHE_NAME = "positions";
+
+	private final Cache<Key, PositionSnapshot> cache;
+	private final Map<Long, Set<Key>> keysByAsset = new ConcurrentHashMap<>();
+	private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor com a quantidade máxima de entradas e o tempo de expiração após o cálculo da posição
+	 *
+	 * @param maximumSize
+	 * @param expireAfterWrite
+	 */
+	public PositionCache(@Value("${financial.position.cache.maximum-size:10000}") long maximumSize,
+			@Value("${financial.position.cache.expire-after-write:5m}") Duration expireAfterWrite) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.removalListener((Key key, PositionSnapshot position, RemovalCause cause) -> {
+					if (key != null && cause.wasEvicted()) {
+						this.unregister(key);
+					}
+				})
+				.executor(Runnable::run)
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * Retorna a posição do ativo na data informada, calculando-a e armazenando-a caso ainda não esteja no cache
+	 * A posição é registrada apenas após o cálculo concluído, e descartada caso o ativo seja invalidado durante o cálculo.
+	 *
+	 * @param assetId
+	 * @param date
+	 * @param calculation
+	 * @return PositionSnapshot
+	 */
+	public PositionSnapshot get(final Long assetId, final LocalDate date, final Function<Long, PositionSnapshot> calculation) {
+		if (assetId == null || date == null) {
+			return calculation.apply(assetId);
+		}
+		final long generation = getGeneration(assetId);
+		final Key key = new Key(assetId, date);
+		final PositionSnapshot position = this.cache.get(key, k -> this.register(k, calculation.apply(k.assetId)));
+		this.discardIfChanged(key, generation);
+		return position;
+	}
+
+	/**
+	 * Retorna as posições armazenadas dos ativos na data informada, na ordem dos ids informados
+	 * Retorna vazio caso a posição de algum dos ativos não esteja no cache
+	 *
+	 * @param assetIds
+	 * @param date
+	 * @return Optional<List<PositionSnapshot>>
+	 */
+	public Optional<List<PositionSnapshot>> getAllPresent(final List<Long> assetIds, final LocalDate date) {
+		if (date == null || assetIds.isEmpty()) {
+			return Optional.empty();
+		}
+
+		final List<PositionSnapshot> positions = new ArrayList<>(assetIds.size());
+		for (Long assetId : assetIds) {
+			final PositionSnapshot position = this.cache.getIfPresent(new Key(assetId, date));
+			if (position == null) {
+				return Optional.empty();
+			}
+			positions.add(position);
+		}
+		return Optional.of(positions);
+	}
+
+	/**
+	 * Retorna as gerações atuais dos ativos informados, a serem obtidas antes do cálculo das posições armazenadas com putAll
+	 *
+	 * @param assetIds
+	 * @return Map<Long, Long>
+	 */
+	public Map<Long, Long> getGenerations(final List<Long> assetIds) {
+		final Map<Long, Long> assetGenerations = new HashMap<>(assetIds.size());
+		assetIds.forEach(assetId -> assetGenerations.put(assetId, getGeneration(assetId)));
+		return assetGenerations;
+	}
+
+	/**
+	 * Armazena as posições calculadas dos ativos na data informada
+	 * As posições dos ativos invalidados após a obtenção das gerações informadas (antes do cálculo) são descartadas.
+	 *
+	 * @param date
+	 * @param positions
+	 * @param assetGenerations
+	 */
+	public void putAll(final LocalDate date, final List<PositionSnapshot> positions, final Map<Long, Long> assetGenerations) {
+		if (date == null) {
+			return;
+		}
+		for (PositionSnapshot position : positions) {
+			final Long generation = assetGenerations.get(position.getAssetId());
+			if (position.getAssetId() != null && generation != null && generation == getGeneration(position.getAssetId())) {
+				final Key key = new Key(position.getAssetId(), date);
+				this.cache.put(key, this.register(key, position));
+				this.discardIfChanged(key, generation);
+			}
+		}
+	}
+
+	/**
+	 * Invalida as posições armazenadas do ativo. Havendo transação em andamento, as posições são invalidadas
+	 * novamente ao seu término, descartando as calculadas por outras requisições antes da confirmação da alteração.
+	 *
+	 * @param assetId
+	 */
+	public void invalidate(final Long assetId) {
+		if (assetId == null) {
+			return;
+		}
+		this.invalidateNow(assetId);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					invalidateNow(assetId);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Remove as posições armazenadas e a geração do ativo excluído. Havendo transação em andamento, a remoção é
+	 * repetida ao seu término, como na invalidação.
+	 *
+	 * @param assetId
+	 */
+	public void remove(final Long assetId) {
+		if (assetId == null) {
+			return;
+		}
+		this.removeNow(assetId);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					removeNow(assetId);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Retorna as estatísticas do cache (acertos, faltas e remoções)
+	 *
+	 * @return CacheStats
+	 */
+	public CacheStats stats() {
+		return this.cache.stats();
+	}
+
+	/**
+	 * Quantidade de chaves registradas por ativo para invalidação
+	 *
+	 * @return int
+	 */
+	int registeredKeys() {
+		return this.keysByAsset.values().stream().mapToInt(Set::size).sum();
+	}
+
+	/**
+	 * Quantidade de ativos com geração registrada
+	 *
+	 * @return int
+	 */
+	int trackedGenerations() {
+		return this.generations.size();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, this.cache, CACHE_NAME);
+	}
+
+	/**
+	 * Geração atual do ativo (0 caso nunca invalidado), sem criar entrada para ativos não alterados
+	 *
+	 * @param assetId
+	 * @return long
+	 */
+	private long getGeneration(final Long assetId) {
+		final AtomicLong generation = this.generations.get(assetId);
+		return generation != null ? generation.get() : 0L;
+	}
+
+	/**
+	 * Incrementa a geração do ativo antes de remover as suas posições: cálculos em andamento iniciados
+	 * na geração anterior não são mantidos no cache
+	 *
+	 * @param assetId
+	 */
+	private void invalidateNow(final Long assetId) {
+		this.generations.computeIfAbsent(assetId, id -> new AtomicLong()).incrementAndGet();
+		final Set<Key> keys = this.keysByAsset.remove(assetId);
+		if (keys != null) {
+			this.cache.invalidateAll(keys);
+		}
+	}
+
+	/**
+	 * Invalida as posições do ativo, descartando também os cálculos em andamento, e remove a sua geração
+	 *
+	 * @param assetId
+	 */
+	private void removeNow(final Long assetId) {
+		this.invalidateNow(assetId);
+		this.generations.remove(assetId);
+	}
+
+	/**
+	 * Remove a posição armazenada caso o ativo tenha sido invalidado desde a geração informada
+	 * Executada após o registro e o armazenamento: uma invalidação posterior já encontra a chave registrada.
+	 *
+	 * @param key
+	 * @param generation
+	 */
+	private void discardIfChanged(final Key key, final long generation) {
+		if (getGeneration(key.assetId) != generation) {
+			this.cache.invalidate(key);
+			this.unregister(key);
+		}
+	}
+
+	private PositionSnapshot register(final Key key, final PositionSnapshot position) {
+		this.keysByAsset.computeIfAbsent(key.assetId, id -> ConcurrentHashMap.newKeySet()).add(key);
+		return position;
+	}
+
+	private void unregister(final Key key) {
+		this.keysByAsset.computeIfPresent(key.assetId, (id, keys) -> {
+			keys.remove(key);
+			return keys.isEmpty() ? null : keys;
+		});
+	}
+
+	/**
+	 * Chave do cache: ativo e data da posição
+	 */
+	@EqualsAndHashCode
+	@AllArgsConstructor(access = AccessLevel.PRIVATE)
+	private static final class Key {
+
+		private final Long assetId;
+		private final LocalDate date;
+
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.maps.financial.domain.asset;
+
+import java.math.BigDecimal;
+
+import com.maps.financial.domain.commons.FixedPoint;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Classe que representa a posição de um ativo em uma determinada data
+ * Os valores são mantidos em ponto fixo (escala 2) e convertidos para BigDecimal somente na leitura
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Builder
+@AllArgsConstructor
+public class PositionSnapshot {
+	
+	@Getter
+	private final Long assetId;
+	
+	@Getter
+	private final String assetName;
+	
+	@Getter
+	private final AssetType assetType;
+	
+	private final long totalQuantity; //quantidade total
+	private final long totalMarketPrice; //valor de mercado total
+	private final long averageValueBuy; //preço médio das compras
+	private final long income; //rendimento
+	private final long profit; //lucro
+	
+	public BigDecimal getTotalQuantity() {
+		return FixedPoint.toBigDecimal(this.totalQuantity, Asset.POSITION_SCALE);
+	}
+	
+	public BigDecimal getTotalMarketPrice() {
+		return FixedPoint.toBigDecimal(this.totalMarketPrice, Asset.POSITION_SCALE);
+	}
+	
+	public BigDecimal getAverageValueBuy() {
+		return FixedPoint.toBigDecimal(this.averageValueBuy, Asset.POSITION_SCALE);
+	}
+	
+	public BigDecimal getIncome() {
+		return FixedPoint.toBigDecimal(this.income, Asset.POSITION_SCALE);
+	}
+	
+	public BigDecimal getProfit() {
+		return FixedPoint.toBigDecimal(this.profit, Asset.POSITION_SCALE);
+	}
+
+}
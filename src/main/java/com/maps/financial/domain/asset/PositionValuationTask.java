@@ -0,0 +1,82 @@
+package com.maps.financial.domain.asset;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Tarefa fork/join para o cálculo das posições de uma lista de ativos na data informada.
+ * A lista é dividida ao meio até atingir o limite de ativos por tarefa e cada posição é calculada
+ * de forma independente. Os resultados são concatenados na ordem original da lista.
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+class PositionValuationTask extends RecursiveTask<List<PositionSnapshot>> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<Asset> assets;
+	private final LocalDate date;
+	private final int threshold;
+	private final int from;
+	private final int to;
+
+	/**
+	 * Constructor para o cálculo de todas as posições da lista de ativos
+	 *
+	 * @param assets
+	 * @param date
+	 * @param threshold quantidade máxima de ativos calculados sequencialmente por uma tarefa
+	 */
+	PositionValuationTask(List<Asset> assets, LocalDate date, int threshold) {
+		this(assets, date, Math.max(threshold, 1), 0, assets.size());
+	}
+
+	private PositionValuationTask(List<Asset> assets, LocalDate date, int threshold, int from, int to) {
+		this.assets = assets;
+		this.date = date;
+		this.threshold = threshold;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * Calcula sequencialmente as posições dos ativos da lista na data informada
+	 *
+	 * @param assets
+	 * @param date
+	 * @return List<PositionSnapshot>
+	 */
+	static List<PositionSnapshot> valuate(List<Asset> assets, LocalDate date) {
+		return valuate(assets, date, 0, assets.size());
+	}
+
+	@Override
+	protected List<PositionSnapshot> compute() {
+		if (this.to - this.from <= this.threshold) {
+			return valuate(this.assets, this.date, this.from, this.to);
+		}
+
+		int middle = (this.from + this.to) >>> 1;
+		PositionValuationTask left = new PositionValuationTask(this.assets, this.date, this.threshold, this.from, middle);
+		PositionValuationTask right = new PositionValuationTask(this.assets, this.date, this.threshold, middle, this.to);
+		left.fork();
+		List<PositionSnapshot> rightPositions = right.compute();
+		List<PositionSnapshot> positions = new ArrayList<>(this.to - this.from);
+		positions.addAll(left.join());
+		positions.addAll(rightPositions);
+		return positions;
+	}
+
+	private static List<PositionSnapshot> valuate(List<Asset> assets, LocalDate date, int from, int to) {
+		List<PositionSnapshot> positions = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			positions.add(assets.get(i).getPosition(date));
+		}
+		return positions;
+	}
+
+}
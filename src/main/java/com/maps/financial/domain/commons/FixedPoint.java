@@ -0,0 +1,195 @@
+package com.maps.financial.domain.commons;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Aritmética de ponto fixo sobre valores long escalados, utilizada nos cálculos de posição e saldo.
+ * Quantidades e preços possuem escala 8 e valores monetários escala 2 (ex.: 10,50 é representado por 1050).
+ * Todos os arredondamentos são em direção ao zero, equivalentes ao BigDecimal.ROUND_DOWN, e estouros de
+ * capacidade lançam ArithmeticException.
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+public final class FixedPoint {
+
+	public static final int QUANTITY_SCALE = 8;
+	public static final int PRICE_SCALE = 8;
+	public static final int MONEY_SCALE = 2;
+
+	private static final long[] POWERS_OF_TEN = new long[19];
+
+	static {
+		POWERS_OF_TEN[0] = 1L;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10L;
+		}
+	}
+
+	private FixedPoint() {
+	}
+
+	/**
+	 * Converte uma quantidade para ponto fixo com escala 8
+	 *
+	 * @param quantity
+	 * @return long
+	 */
+	public static long ofQuantity(BigDecimal quantity) {
+		return of(quantity, QUANTITY_SCALE);
+	}
+
+	/**
+	 * Converte um preço para ponto fixo com escala 8
+	 *
+	 * @param price
+	 * @return long
+	 */
+	public static long ofPrice(BigDecimal price) {
+		return of(price, PRICE_SCALE);
+	}
+
+	/**
+	 * Converte um valor monetário para ponto fixo com escala 2
+	 *
+	 * @param value
+	 * @return long
+	 */
+	public static long ofMoney(BigDecimal value) {
+		return of(value, MONEY_SCALE);
+	}
+
+	/**
+	 * Converte um BigDecimal para ponto fixo na escala informada, truncando as casas decimais excedentes.
+	 * Valor nulo é tratado como zero.
+	 *
+	 * @param value
+	 * @param scale
+	 * @return long
+	 * @throws ArithmeticException caso o valor não caiba em um long
+	 */
+	public static long of(BigDecimal value, int scale) {
+		if (value == null) {
+			return 0L;
+		}
+		return value.setScale(scale, BigDecimal.ROUND_DOWN).unscaledValue().longValueExact();
+	}
+
+	/**
+	 * Converte um valor em ponto fixo para BigDecimal com a escala informada
+	 *
+	 * @param value
+	 * @param scale
+	 * @return BigDecimal
+	 */
+	public static BigDecimal toBigDecimal(long value, int scale) {
+		return BigDecimal.valueOf(value, scale);
+	}
+
+	/**
+	 * Soma dois valores de mesma escala
+	 *
+	 * @param a
+	 * @param b
+	 * @return long
+	 */
+	public static long add(long a, long b) {
+		return Math.addExact(a, b);
+	}
+
+	/**
+	 * Subtrai dois valores de mesma escala
+	 *
+	 * @param a
+	 * @param b
+	 * @return long
+	 */
+	public static long subtract(long a, long b) {
+		return Math.subtractExact(a, b);
+	}
+
+	/**
+	 * Altera a escala do valor, truncando as casas decimais excedentes quando a nova escala for menor
+	 *
+	 * @param value
+	 * @param scale
+	 * @param newScale
+	 * @return long
+	 */
+	public static long rescale(long value, int scale, int newScale) {
+		if (newScale >= scale) {
+			return Math.multiplyExact(value, powerOfTen(newScale - scale));
+		}
+		return scale - newScale < POWERS_OF_TEN.length ? value / POWERS_OF_TEN[scale - newScale] : 0L;
+	}
+
+	/**
+	 * Multiplica dois valores e retorna o resultado truncado na escala informada
+	 *
+	 * @param a
+	 * @param scaleA
+	 * @param b
+	 * @param scaleB
+	 * @param scale
+	 * @return long
+	 */
+	public static long multiply(long a, int scaleA, long b, int scaleB, int scale) {
+		int productScale = scaleA + scaleB;
+		try {
+			return rescale(Math.multiplyExact(a, b), productScale, scale);
+		} catch (ArithmeticException e) {
+			BigInteger product = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b));
+			return rescale(product, productScale, scale);
+		}
+	}
+
+	/**
+	 * Divide dois valores e retorna o resultado truncado na escala informada
+	 *
+	 * @param dividend
+	 * @param dividendScale
+	 * @param divisor
+	 * @param divisorScale
+	 * @param scale
+	 * @return long
+	 * @throws ArithmeticException caso o divisor seja zero
+	 */
+	public static long divide(long dividend, int dividendScale, long divisor, int divisorScale, int scale) {
+		int exponent = scale + divisorScale - dividendScale;
+		try {
+			if (exponent >= 0) {
+				return Math.multiplyExact(dividend, powerOfTen(exponent)) / divisor;
+			}
+			return dividend / Math.multiplyExact(divisor, powerOfTen(-exponent));
+		} catch (ArithmeticException e) {
+			if (divisor == 0L) {
+				throw e;
+			}
+			BigInteger numerator = BigInteger.valueOf(dividend);
+			BigInteger denominator = BigInteger.valueOf(divisor);
+			if (exponent >= 0) {
+				numerator = numerator.multiply(BigInteger.TEN.pow(exponent));
+			} else {
+				denominator = denominator.multiply(BigInteger.TEN.pow(-exponent));
+			}
+			return numerator.divide(denominator).longValueExact();
+		}
+	}
+
+	private static long rescale(BigInteger value, int scale, int newScale) {
+		if (newScale >= scale) {
+			return value.multiply(BigInteger.TEN.pow(newScale - scale)).longValueExact();
+		}
+		return value.divide(BigInteger.TEN.pow(scale - newScale)).longValueExact();
+	}
+
+	private static long powerOfTen(int exponent) {
+		if (exponent >= POWERS_OF_TEN.length) {
+			throw new ArithmeticException("long overflow");
+		}
+		return POWERS_OF_TEN[exponent];
+	}
+
+}
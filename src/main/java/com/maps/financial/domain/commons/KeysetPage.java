@@ -0,0 +1,51 @@
+package com.maps.financial.domain.commons;
+
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Página de uma consulta paginada por chave (keyset), com o cursor de continuação da próxima página
+ * O cursor é nulo na última página.
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ * @param <T>
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+	private final List<T> content;
+	private final PageCursor nextCursor;
+
+	/**
+	 * Monta a página a partir dos registros buscados com um registro além do tamanho da página,
+	 * utilizado apenas para identificar a existência de uma próxima página
+	 *
+	 * @param rows
+	 * @param size
+	 * @param cursorOf
+	 * @return KeysetPage<T>
+	 */
+	public static <T> KeysetPage<T> of(final List<T> rows, final int size, final Function<T, PageCursor> cursorOf) {
+		if (rows.size() <= size) {
+			return new KeysetPage<>(rows, null);
+		}
+		final List<T> content = rows.subList(0, size);
+		return new KeysetPage<>(content, cursorOf.apply(content.get(size - 1)));
+	}
+
+	/**
+	 * Retorna o cursor de continuação em texto, ou nulo na última página
+	 *
+	 * @return String
+	 */
+	public String getNextCursorValue() {
+		return this.nextCursor != null ? this.nextCursor.encode() : null;
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.maps.financial.domain.commons;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Registro de bloqueios por entidade (ex.: ativo ou conta corrente) e id, compartilhado por todas as requisições.
+ * O bloqueio é obtido dentro de uma transação e mantido até o seu término (confirmação ou desfazimento), 
+ * serializando as alterações de uma mesma entidade sem bloquear as alterações das demais.
+ * Os bloqueios são criados sob demanda e removidos quando nenhuma transação os utiliza, sem acúmulo por id.
+ * 
+ * Ordem dos bloqueios para evitar impasses: conta corrente antes do ativo.
+ * Os bloqueios valem apenas nesta instância da aplicação; alterações de outras instâncias são detectadas pela versão
+ * das entidades (ver {@link OptimisticRetry}).
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Component
+public class LockRegistry {
+	
+	private final Map<Key, Entry> locks = new ConcurrentHashMap<>();
+	
+	/**
+	 * Bloqueia a entidade do tipo e id informados até o término da transação em andamento
+	 * O bloqueio é reentrante: a mesma transação pode bloquear a mesma entidade mais de uma vez.
+	 * 
+	 * @param type
+	 * @param id
+	 * @throws IllegalStateException caso não exista transação em andamento
+	 */
+	public void lock(final Class<?> type, final Long id) {
+		if (id == null) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			throw new IllegalStateException("Bloqueio de " + type.getSimpleName() + " requer uma transação em andamento");
+		}
+		
+		final Key key = new Key(type, id);
+		final Entry entry = acquire(key);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				release(key, entry);
+			}
+		});
+	}
+	
+	/**
+	 * Quantidade de entidades com bloqueio obtido ou aguardado
+	 * 
+	 * @return int
+	 */
+	int size() {
+		return this.locks.size();
+	}
+	
+	private Entry acquire(final Key key) {
+		final Entry entry = this.locks.compute(key, (k, current) -> {
+			final Entry value = current != null ? current : new Entry();
+			value.users++;
+			return value;
+		});
+		entry.lock.lock();
+		return entry;
+	}
+	
+	private void release(final Key key, final Entry entry) {
+		entry.lock.unlock();
+		this.locks.computeIfPresent(key, (k, current) -> --current.users == 0 ? null : current);
+	}
+	
+	/**
+	 * Chave do bloqueio: tipo e id da entidade
+	 */
+	@EqualsAndHashCode
+	@AllArgsConstructor(access = AccessLevel.PRIVATE)
+	private static final class Key {
+		
+		private final Class<?> type;
+		private final Long id;
+		
+	}
+	
+	/**
+	 * Bloqueio da entidade e quantidade de transações que o obtiveram ou aguardam (alterada apenas dentro do compute)
+	 */
+	private static final class Entry {
+		
+		private final ReentrantLock lock = new ReentrantLock();
+		private int users;
+		
+	}
+
+}
@@ -0,0 +1,175 @@
+package com.maps.financial.domain.commons;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maps.financial.exceptions.ConcurrentUpdateConflict;
+import com.maps.financial.exceptions.ExceptionMessage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Execução de uma alteração em transação própria, repetida em caso de conflito de versão (controle otimista)
+ * com espera aleatória crescente e limitada entre as tentativas. Esgotadas as tentativas, lança ConcurrentUpdateConflict.
+ * Os conflitos, novas tentativas e desistências são publicados como "financial.optimistic.*" com a tag entity,
+ * e os registros com mais conflitos são mantidos em uma contagem limitada por entidade e id (ver {@link #getConflictsById()}).
+ * 
+ * As alterações repetidas aqui também obtêm os bloqueios do {@link LockRegistry}, e os dois controles são mantidos
+ * porque protegem contra escritores diferentes: o LockRegistry serializa as alterações de uma mesma entidade dentro
+ * desta instância da aplicação (e o {@link ReservationLedger} depende da leitura sob bloqueio do valor confirmado),
+ * enquanto a versão da entidade detecta as alterações que o LockRegistry não enxerga, como as de outras instâncias
+ * que compartilham o banco de dados ou gravações diretas no banco. Com uma única instância os conflitos não ocorrem e a
+ * repetição não tem custo; com várias, cada conflito é desfeito e repetido a partir de uma nova leitura.
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Component
+public class OptimisticRetry {
+	
+	static final String METRIC_PREFIX = "financial.optimistic.";
+	private static final String UNKNOWN_ENTITY = "unknown";
+	
+	private final TransactionTemplate transactionTemplate;
+	private final MeterRegistry meterRegistry;
+	private final int maxAttempts;
+	private final long backoffMillis;
+	private final long maxBackoffMillis;
+	private final Cache<String, AtomicLong> conflictsById;
+	
+	/**
+	 * Constructor com a quantidade máxima de tentativas e os tempos de espera inicial e máximo entre elas
+	 * 
+	 * @param transactionManager
+	 * @param meterRegistry
+	 * @param maxAttempts
+	 * @param backoff
+	 * @param maxBackoff
+	 */
+	public OptimisticRetry(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+			@Value("${financial.optimistic.max-attempts:5}") int maxAttempts,
+			@Value("${financial.optimistic.backoff:10ms}") Duration backoff,
+			@Value("${financial.optimistic.max-backoff:200ms}") Duration maxBackoff) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.meterRegistry = meterRegistry;
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.backoffMillis = backoff.toMillis();
+		this.maxBackoffMillis = maxBackoff.toMillis();
+		this.conflictsById = Caffeine.newBuilder().maximumSize(1000).build();
+	}
+	
+	/**
+	 * Executa a alteração em uma transação, repetindo-a em uma nova transação em caso de conflito de versão
+	 * Cada tentativa deve partir do estado informado pelo chamador, sem depender de entidades da tentativa anterior.
+	 * 
+	 * @param work
+	 * @return T
+	 * @throws ConcurrentUpdateConflict caso os conflitos persistam após a última tentativa
+	 */
+	public <T> T execute(final Supplier<T> work) {
+		return execute(null, null, work);
+	}
+	
+	/**
+	 * Executa a alteração da entidade do tipo e id informados em uma transação, repetindo-a em caso de conflito de versão
+	 * O tipo e o id identificam o conflito quando a exceção não informa a entidade (ex.: atualizações em lote do JDBC).
+	 * 
+	 * @param type
+	 * @param id
+	 * @param work
+	 * @return T
+	 * @throws ConcurrentUpdateConflict caso os conflitos persistam após a última tentativa
+	 */
+	public <T> T execute(final Class<?> type, final Long id, final Supplier<T> work) {
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return transactionTemplate.execute(status -> work.get());
+			} catch (OptimisticLockingFailureException e) {
+				final String entity = recordConflict(e, type, id);
+				if (attempt >= this.maxAttempts) {
+					counter("exhausted", entity).increment();
+					throw new ConcurrentUpdateConflict(ExceptionMessage.MESSAGE_CONCURRENT_UPDATE);
+				}
+				counter("retries", entity).increment();
+				backoff(attempt);
+			}
+		}
+	}
+	
+	/**
+	 * Retorna a quantidade de conflitos por registro ("Entidade#id"), limitada aos registros mais recentes
+	 * 
+	 * @return Map<String, Long>
+	 */
+	public Map<String, Long> getConflictsById() {
+		return this.conflictsById.asMap()
+				.entrySet()
+				.stream()
+				.collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().get()));
+	}
+	
+	/**
+	 * Registra o conflito para a entidade informada pela exceção ou, na sua ausência, para o tipo e id da alteração
+	 * 
+	 * @param e
+	 * @param type
+	 * @param id
+	 * @return String nome da entidade
+	 */
+	private String recordConflict(final OptimisticLockingFailureException e, final Class<?> type, final Long id) {
+		String className = type != null ? type.getName() : null;
+		Object identifier = id;
+		if (e instanceof ObjectOptimisticLockingFailureException 
+				&& ((ObjectOptimisticLockingFailureException) e).getPersistentClassName() != null) {
+			final ObjectOptimisticLockingFailureException conflict = (ObjectOptimisticLockingFailureException) e;
+			className = conflict.getPersistentClassName();
+			identifier = conflict.getIdentifier();
+		}
+		
+		String entity = UNKNOWN_ENTITY;
+		if (className != null) {
+			entity = className.substring(className.lastIndexOf('.') + 1);
+			this.conflictsById.get(entity + "#" + identifier, key -> new AtomicLong()).incrementAndGet();
+		}
+		counter("conflicts", entity).increment();
+		return entity;
+	}
+	
+	/**
+	 * Espera aleatória entre zero e o tempo inicial dobrado a cada tentativa, limitada ao tempo máximo
+	 * 
+	 * @param attempt
+	 */
+	private void backoff(final int attempt) {
+		final long limit = Math.min(this.maxBackoffMillis, this.backoffMillis << Math.min(attempt - 1, 20));
+		if (limit <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(limit + 1));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ConcurrentUpdateConflict(ExceptionMessage.MESSAGE_CONCURRENT_UPDATE);
+		}
+	}
+	
+	private Counter counter(final String name, final String entity) {
+		return this.meterRegistry.counter(METRIC_PREFIX + name, "entity", entity);
+	}
+
+}
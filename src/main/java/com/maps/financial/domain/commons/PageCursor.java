@@ -0,0 +1,64 @@
+package com.maps.financial.domain.commons;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.maps.financial.exceptions.ExceptionMessage;
+import com.maps.financial.exceptions.InvalidPageCursor;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Cursor de continuação da paginação por chave (keyset): data e id do último registro da página.
+ * A próxima página é buscada a partir dos registros posteriores a ele na ordem (data, id), pelo índice,
+ * sem percorrer as páginas anteriores. É trafegado como texto opaco (Base64 URL-safe de "data:id").
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class PageCursor {
+
+	private static final String SEPARATOR = ":";
+
+	private final LocalDate date;
+	private final Long id;
+
+	/**
+	 * Converte o cursor para texto
+	 *
+	 * @return String
+	 */
+	public String encode() {
+		final String value = this.date + SEPARATOR + this.id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Converte o texto informado para cursor. Retorna nulo caso o texto seja vazio (primeira página)
+	 *
+	 * @param cursor
+	 * @return PageCursor
+	 * @throws InvalidPageCursor
+	 */
+	public static PageCursor decode(final String cursor) throws InvalidPageCursor {
+		if (cursor == null || cursor.isEmpty()) {
+			return null;
+		}
+		try {
+			final String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			final int separator = value.indexOf(SEPARATOR);
+			return new PageCursor(LocalDate.parse(value.substring(0, separator)), Long.valueOf(value.substring(separator + 1)));
+		} catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+			throw new InvalidPageCursor(ExceptionMessage.MESSAGE_INVALID_PAGE_CURSOR);
+		}
+	}
+
+}
@@ -0,0 +1,306 @@
+package com.maps.financial.domain.commons;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Reservas em memória do valor disponível por entidade e id (ex.: saldo da conta corrente ou quantidade do ativo),
+ * em ponto fixo. Cada entrada mantém o último valor confirmado conhecido e a soma das reservas das transações em andamento,
+ * permitindo rejeitar uma saída sem valor disponível antes de qualquer acesso ao banco de dados.
+ * As reservas são liberadas ao término da transação (confirmação ou desfazimento); na confirmação, a variação
+ * registrada pela transação é aplicada ao valor confirmado.
+ *
+ * O valor confirmado é conhecido apenas após a carga inicial ou a leitura da entidade sob bloqueio, e vale somente no dia
+ * em que foi registrado (as validações consideram a data atual); fora disso nenhuma saída é rejeitada em memória,
+ * cabendo a verificação às validações da entidade.
+ * Valor confirmado, dia e soma das reservas de cada entidade formam um único estado imutável, atualizado atomicamente (CAS)
+ * e sem bloqueios: reservas concorrentes de uma mesma entidade nunca ultrapassam o valor disponível conhecido, e na confirmação
+ * a variação da transação é aplicada e as suas reservas liberadas no mesmo passo, sem instante em que a movimentação
+ * seja contada duas vezes.
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Component
+public class ReservationLedger {
+
+	private static final long UNKNOWN = Long.MIN_VALUE;
+
+	private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Reserva o valor informado da entidade do tipo e id informados até o término da transação em andamento
+	 *
+	 * @param type
+	 * @param id
+	 * @param amount
+	 * @return boolean false caso o valor disponível conhecido não comporte a reserva
+	 * @throws IllegalStateException caso não exista transação em andamento
+	 */
+	public boolean tryReserve(final Class<?> type, final Long id, final long amount) {
+		if (id == null || amount <= 0) {
+			return true;
+		}
+		requireTransaction(type);
+
+		final Key key = new Key(type, id);
+		final Entry entry = this.entries.computeIfAbsent(key, k -> new Entry());
+		final long today = today();
+		while (true) {
+			final State state = entry.state.get();
+			final long committed = state.getCommitted(today);
+			if (committed != UNKNOWN && committed - state.reserved < amount) {
+				return false;
+			}
+			if (entry.state.compareAndSet(state, state.withReserved(state.reserved + amount))) {
+				break;
+			}
+		}
+		getTransactionState().getPending(key, entry).reserved += amount;
+		return true;
+	}
+
+	/**
+	 * Verifica, sem reservar e sem exigir transação, se o valor disponível conhecido da entidade comporta o valor informado
+	 * Valor ainda não conhecido é considerado disponível.
+	 *
+	 * @param type
+	 * @param id
+	 * @param amount
+	 * @return boolean
+	 */
+	public boolean isAvailable(final Class<?> type, final Long id, final long amount) {
+		if (id == null || amount <= 0) {
+			return true;
+		}
+		final Long available = getAvailable(type, id);
+		return available == null || available >= amount;
+	}
+
+	/**
+	 * Registra o valor confirmado da entidade, lido com a entidade bloqueada
+	 * Dentro de uma transação vale apenas a primeira leitura da entidade: as seguintes já incluem alterações ainda
+	 * não confirmadas da própria transação.
+	 *
+	 * @param type
+	 * @param id
+	 * @param committed
+	 */
+	public void observe(final Class<?> type, final Long id, final long committed) {
+		if (id == null) {
+			return;
+		}
+		final Key key = new Key(type, id);
+		if (TransactionSynchronizationManager.isSynchronizationActive() && !getTransactionState().observed.add(key)) {
+			return;
+		}
+		final long today = today();
+		this.entries.computeIfAbsent(key, k -> new Entry()).state.updateAndGet(state -> state.withCommitted(committed, today));
+	}
+
+	/**
+	 * Aplica a variação informada ao valor confirmado da entidade caso a transação em andamento seja confirmada
+	 * A variação é aplicada logo após a confirmação, antes da liberação dos bloqueios da transação, no mesmo passo
+	 * em que as reservas da transação são liberadas.
+	 *
+	 * @param type
+	 * @param id
+	 * @param delta
+	 * @throws IllegalStateException caso não exista transação em andamento
+	 */
+	public void applyOnCommit(final Class<?> type, final Long id, final long delta) {
+		if (id == null || delta == 0) {
+			return;
+		}
+		requireTransaction(type);
+
+		final Key key = new Key(type, id);
+		getTransactionState().getPending(key, this.entries.computeIfAbsent(key, k -> new Entry())).delta += delta;
+	}
+
+	/**
+	 * Descarta o valor confirmado conhecido da entidade (ex.: após a sua exclusão)
+	 *
+	 * @param type
+	 * @param id
+	 */
+	public void forget(final Class<?> type, final Long id) {
+		if (id != null) {
+			final Entry entry = this.entries.get(new Key(type, id));
+			if (entry != null) {
+				final long today = today();
+				entry.state.updateAndGet(state -> state.withCommitted(UNKNOWN, today));
+			}
+		}
+	}
+
+	/**
+	 * Valor disponível conhecido da entidade (confirmado menos reservado), vazio caso ainda não conhecido
+	 * Ambos os valores são lidos do mesmo estado.
+	 *
+	 * @param type
+	 * @param id
+	 * @return Long
+	 */
+	Long getAvailable(final Class<?> type, final Long id) {
+		final Entry entry = this.entries.get(new Key(type, id));
+		if (entry == null) {
+			return null;
+		}
+		final State state = entry.state.get();
+		final long committed = state.getCommitted(today());
+		return committed == UNKNOWN ? null : committed - state.reserved;
+	}
+	
+	/**
+	 * Reservas, variações e entidades já lidas na transação em andamento, vinculadas à transação até o seu término
+	 * Na confirmação, cada entidade recebe a variação e tem as reservas liberadas em uma única atualização;
+	 * no desfazimento, apenas as reservas são liberadas.
+	 *
+	 * @return TransactionState
+	 */
+	private TransactionState getTransactionState() {
+		TransactionState transactionState = (TransactionState) TransactionSynchronizationManager.getResource(this);
+		if (transactionState == null) {
+			final TransactionState newState = new TransactionState();
+			TransactionSynchronizationManager.bindResource(this, newState);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					newState.complete(true, today());
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					newState.complete(false, today());
+					TransactionSynchronizationManager.unbindResourceIfPossible(ReservationLedger.this);
+				}
+			});
+			transactionState = newState;
+		}
+		return transactionState;
+	}
+	
+	private long today() {
+		return LocalDate.now().toEpochDay();
+	}
+
+	private void requireTransaction(final Class<?> type) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			throw new IllegalStateException("Reserva de " + type.getSimpleName() + " requer uma transação em andamento");
+		}
+	}
+
+	/**
+	 * Estado atual de uma entidade, substituído atomicamente a cada alteração
+	 */
+	private static final class Entry {
+
+		private final AtomicReference<State> state = new AtomicReference<>(new State(UNKNOWN, 0L, 0L));
+
+	}
+
+	/**
+	 * Valor confirmado conhecido, dia em que foi registrado e soma das reservas em andamento de uma entidade (imutável)
+	 */
+	@AllArgsConstructor(access = AccessLevel.PRIVATE)
+	private static final class State {
+
+		private final long committed;
+		private final long day;
+		private final long reserved;
+
+		private long getCommitted(final long today) {
+			return this.day == today ? this.committed : UNKNOWN;
+		}
+
+		private State withCommitted(final long value, final long today) {
+			return new State(value, today, this.reserved);
+		}
+
+		private State withReserved(final long value) {
+			return new State(this.committed, this.day, value);
+		}
+
+		/**
+		 * Aplica a variação confirmada (apenas a um valor confirmado conhecido no dia) e libera as reservas informadas
+		 */
+		private State complete(final long delta, final long released, final long today) {
+			final long committed = this.getCommitted(today);
+			return new State(committed == UNKNOWN ? this.committed : committed + delta, this.day, this.reserved - released);
+		}
+
+	}
+
+	/**
+	 * Reservas e variação registradas por uma transação para uma entidade
+	 */
+	private static final class Pending {
+
+		private final Entry entry;
+		private long reserved;
+		private long delta;
+
+		private Pending(final Entry entry) {
+			this.entry = entry;
+		}
+
+	}
+
+	/**
+	 * Estado da transação em andamento no ledger
+	 */
+	private static final class TransactionState {
+
+		private final Set<Key> observed = new HashSet<>();
+		private final Map<Key, Pending> pending = new HashMap<>();
+		private boolean completed;
+
+		private Pending getPending(final Key key, final Entry entry) {
+			return this.pending.computeIfAbsent(key, k -> new Pending(entry));
+		}
+
+		/**
+		 * Conclui a transação uma única vez: com confirmação, aplica as variações e libera as reservas;
+		 * sem confirmação, apenas libera as reservas
+		 */
+		private void complete(final boolean commit, final long today) {
+			if (this.completed) {
+				return;
+			}
+			this.completed = true;
+			for (Pending pending : this.pending.values()) {
+				final long delta = commit ? pending.delta : 0L;
+				pending.entry.state.updateAndGet(state -> state.complete(delta, pending.reserved, today));
+			}
+		}
+
+	}
+
+	/**
+	 * Chave das reservas: tipo e id da entidade
+	 */
+	@EqualsAndHashCode
+	@AllArgsConstructor(access = AccessLevel.PRIVATE)
+	private static final class Key {
+
+		private final Class<?> type;
+		private final Long id;
+
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.maps.financial.exceptions;
+
+/**
+ * Exception será lançada quando uma alteração não puder ser concluída por alterações concorrentes no mesmo registro,
+ * mesmo após as novas tentativas
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+public class ConcurrentUpdateConflict extends RuntimeException {
+	
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructor para a exception ConcurrentUpdateConflict
+	 * 
+	 * @param exceptionMessage
+	 */
+	public ConcurrentUpdateConflict(ExceptionMessage exceptionMessage) {
+		super(exceptionMessage.getValue());
+	}
+
+}
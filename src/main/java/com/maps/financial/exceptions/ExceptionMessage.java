@@ -16,7 +16,13 @@ public enum ExceptionMessage {
 	MESSAGE_MOVEMENT_NOT_ALLOWED_IN_WEEKEND("exception.message.movement-not-allowed-in-weekend"), 
 	MESSAGE_ISSUE_NOT_BEFORE_DUE("exception.message.issue-not-before-due"), 
 	MESSAGE_ACCESS_DENIED("exception.message.access-denied"),
-	MESSAGE_AUTHENTICATION_FAILED("exception.message.authentication-failed");
+	MESSAGE_AUTHENTICATION_FAILED("exception.message.authentication-failed"),
+	MESSAGE_INVALID_PAGE_CURSOR("exception.message.invalid-page-cursor"),
+	MESSAGE_LAUNCH_INCOMPLETE("exception.message.launch.incomplete"),
+	MESSAGE_CONCURRENT_UPDATE("exception.message.concurrent-update"),
+	MESSAGE_SUBMISSION_QUEUE_FULL("exception.message.submission-queue-full"),
+	MESSAGE_SUBMISSION_TIMEOUT("exception.message.submission-timeout"),
+	MESSAGE_VALUE_OUT_OF_RANGE("exception.message.value-out-of-range");
 	
 	private String value;
 	
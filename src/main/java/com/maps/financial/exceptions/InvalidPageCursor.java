@@ -0,0 +1,23 @@
+package com.maps.financial.exceptions;
+
+/**
+ * Exception será lançada quando o cursor de continuação informado em uma consulta paginada for inválido
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+public class InvalidPageCursor extends RuntimeException {
+	
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructor para a exception InvalidPageCursor
+	 * 
+	 * @param exceptionMessage
+	 */
+	public InvalidPageCursor(ExceptionMessage exceptionMessage) {
+		super(exceptionMessage.getValue());
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.maps.financial.exceptions;
+
+/**
+ * Exception será lançada quando a fila de movimentações estiver cheia, recusando novas movimentações
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+public class SubmissionQueueFull extends RuntimeException {
+	
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructor para a exception SubmissionQueueFull
+	 * 
+	 * @param exceptionMessage
+	 */
+	public SubmissionQueueFull(ExceptionMessage exceptionMessage) {
+		super(exceptionMessage.getValue());
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.maps.financial.exceptions;
+
+/**
+ * Exception será lançada quando a gravação de uma movimentação enfileirada não for concluída no tempo de espera
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+public class SubmissionTimeout extends RuntimeException {
+	
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructor para a exception SubmissionTimeout
+	 * 
+	 * @param exceptionMessage
+	 */
+	public SubmissionTimeout(ExceptionMessage exceptionMessage) {
+		super(exceptionMessage.getValue());
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.maps.financial.infra.concurrent;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Criação de threads virtuais (Java 21 ou superior) sem exigir esse nível de linguagem na compilação:
+ * as chamadas Thread.ofVirtual() e Executors.newThreadPerTaskExecutor(ThreadFactory) são obtidas por reflexão,
+ * permitindo que a aplicação continue compilada para Java 8 e use threads virtuais quando executada em Java 21.
+ *
+ * Threads virtuais bloqueadas dentro de blocos synchronized ficam presas à thread de plataforma que as executa;
+ * por isso as seções críticas da aplicação usam ReentrantLock (LockRegistry) e atualizações atômicas, nunca synchronized.
+ *
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+public final class VirtualThreads {
+	
+	private VirtualThreads() {
+	}
+	
+	/**
+	 * Verifica se a JVM em execução oferece threads virtuais
+	 * 
+	 * @return boolean
+	 */
+	public static boolean isAvailable() {
+		try {
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Executor que inicia uma nova thread virtual para cada tarefa, com nomes prefixados pelo prefixo informado
+	 * 
+	 * @param prefix
+	 * @return ExecutorService
+	 * @throws IllegalStateException caso a JVM em execução não ofereça threads virtuais
+	 */
+	public static ExecutorService newThreadPerTaskExecutor(final String prefix) {
+		if (!isAvailable()) {
+			throw new IllegalStateException("Threads virtuais requerem Java 21 ou superior (em execução: "
+					+ System.getProperty("java.version") + ")");
+		}
+		try {
+			final Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+			final ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+			final Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (ExecutorService) newExecutor.invoke(null, threadFactory);
+		} catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+			throw new IllegalStateException("Falha na criação do executor de threads virtuais", e);
+		}
+	}
+
+}
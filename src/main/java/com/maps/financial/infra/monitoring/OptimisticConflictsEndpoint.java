@@ -0,0 +1,32 @@
+package com.maps.financial.infra.monitoring;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.maps.financial.domain.commons.OptimisticRetry;
+
+/**
+ * Endpoint de monitoramento (/actuator/conflicts) com a quantidade de conflitos de versão por registro ("Entidade#id"),
+ * para identificação dos ativos e contas com maior concorrência
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Component
+@Endpoint(id = "conflicts")
+public class OptimisticConflictsEndpoint {
+	
+	@Autowired
+	private OptimisticRetry optimisticRetry;
+	
+	@ReadOperation
+	public Map<String, Long> conflicts() {
+		return optimisticRetry.getConflictsById();
+	}
+
+}
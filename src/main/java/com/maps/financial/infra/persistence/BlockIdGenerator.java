@@ -0,0 +1,71 @@
+package com.maps.financial.infra.persistence;
+
+import java.util.Map;
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Gerador de ids por blocos: cada entidade possui uma linha própria na tabela "id_block", com o limite
+ * superior do último bloco reservado (high-water mark). Um bloco de ids é reservado por vez em uma transação
+ * separada e os ids seguintes são atribuídos em memória (otimizador pooled), sem acesso ao banco a cada inclusão,
+ * o que permite o envio das inclusões em lote (hibernate.jdbc.batch_size). Por ser persistido, o limite superior
+ * continua válido após o reinício da aplicação e entre várias instâncias.
+ * 
+ * O tamanho do bloco de cada entidade é configurado pela propriedade "financial.id.block-size.<entidade>"
+ * (ex.: spring.jpa.properties.financial.id.block-size.launch=500), com o padrão em "financial.id.block-size.default".
+ * 
+ * Uso: @GenericGenerator(name = ..., strategy = BlockIdGenerator.STRATEGY, parameters = @Parameter(name = BlockIdGenerator.ENTITY_PARAM, value = "launch"))
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+public class BlockIdGenerator extends TableGenerator {
+	
+	public static final String STRATEGY = "com.maps.financial.infra.persistence.BlockIdGenerator";
+	public static final String ENTITY_PARAM = SEGMENT_VALUE_PARAM;
+	
+	static final String TABLE_NAME = "id_block";
+	static final String BLOCK_SIZE_PROPERTY = "financial.id.block-size.";
+	static final int DEFAULT_BLOCK_SIZE = 50;
+	
+	@Override
+	public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+		final String entity = params.getProperty(ENTITY_PARAM);
+		if (entity == null) {
+			throw new MappingException("BlockIdGenerator requer o parâmetro " + ENTITY_PARAM);
+		}
+		
+		params.setProperty(TABLE_PARAM, TABLE_NAME);
+		params.setProperty(SEGMENT_COLUMN_PARAM, "entity");
+		params.setProperty(VALUE_COLUMN_PARAM, "high_water_mark");
+		params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED.getExternalName());
+		params.setProperty(INCREMENT_PARAM, String.valueOf(
+				getBlockSize(serviceRegistry.getService(ConfigurationService.class).getSettings(), entity)));
+		super.configure(type, params, serviceRegistry);
+	}
+	
+	/**
+	 * Retorna o tamanho do bloco de ids configurado para a entidade, ou o padrão caso não esteja configurado
+	 * 
+	 * @param settings
+	 * @param entity
+	 * @return int
+	 */
+	static int getBlockSize(final Map<?, ?> settings, final String entity) {
+		final int defaultBlockSize = ConfigurationHelper.getInt(BLOCK_SIZE_PROPERTY + "default", settings, DEFAULT_BLOCK_SIZE);
+		final int blockSize = ConfigurationHelper.getInt(BLOCK_SIZE_PROPERTY + entity, settings, defaultBlockSize);
+		if (blockSize < 1) {
+			throw new MappingException("Tamanho do bloco de ids inválido para " + entity + ": " + blockSize);
+		}
+		return blockSize;
+	}
+
+}
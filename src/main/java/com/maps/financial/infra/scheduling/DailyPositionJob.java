@@ -0,0 +1,45 @@
+package com.maps.financial.infra.scheduling;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.maps.financial.domain.asset.AssetFacade;
+
+/**
+ * Rotina de fechamento diário: armazena as posições de todos os ativos no último dia útil encerrado.
+ * O horário de execução é definido por financial.position.snapshot.cron.
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Component
+public class DailyPositionJob {
+	
+	@Autowired
+	private AssetFacade assetFacade;
+	
+	@Scheduled(cron = "${financial.position.snapshot.cron:0 5 0 * * *}")
+	public void closeLastBusinessDay() {
+		assetFacade.closePositions(lastBusinessDay(LocalDate.now()));
+	}
+	
+	/**
+	 * Retorna o último dia útil anterior à data informada
+	 * 
+	 * @param date
+	 * @return LocalDate
+	 */
+	private LocalDate lastBusinessDay(LocalDate date) {
+		LocalDate lastDay = date.minusDays(1);
+		while (lastDay.getDayOfWeek() == DayOfWeek.SATURDAY || lastDay.getDayOfWeek() == DayOfWeek.SUNDAY) {
+			lastDay = lastDay.minusDays(1);
+		}
+		return lastDay;
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.maps.financial.infra.scheduling;
+
+import java.time.YearMonth;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.maps.financial.domain.account.AccountFacade;
+
+/**
+ * Rotina de fechamento mensal: gera os extratos de todas as contas correntes no mês anterior.
+ * O horário de execução é definido por financial.statement.cron.
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@Component
+public class StatementJob {
+	
+	@Autowired
+	private AccountFacade accountFacade;
+	
+	@Scheduled(cron = "${financial.statement.cron:0 30 0 1 * *}")
+	public void closeLastMonth() {
+		final YearMonth lastMonth = YearMonth.now().minusMonths(1);
+		accountFacade.generateStatements(lastMonth, lastMonth);
+	}
+
+}
@@ -26,8 +26,16 @@ public class SecurityUtils {
 	 * @return User
 	 */
 	public User getCurrentUser() {
-		String userString = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
-		return userService.findByUsername(userString);
+		return userService.findByUsername(getCurrentUsername());
+	}
+	
+	/**
+	 * Retorna o nome do usuário autenticado na aplicação, sem consulta ao banco de dados
+	 * 
+	 * @return String
+	 */
+	public String getCurrentUsername() {
+		return SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
 	}
 	
 	/**
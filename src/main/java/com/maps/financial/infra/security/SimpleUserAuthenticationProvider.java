@@ -8,6 +8,7 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import com.maps.financial.domain.user.User;
@@ -31,6 +32,7 @@ public class SimpleUserAuthenticationProvider implements AuthenticationProvider
 	 * Simples autenticação com usuário cadastrado no banco de dados.
 	 * Deve ser implementado algum mecanismos de autenticação. As credenciais devem ser recebidas
 	 *		através de cabeçalho HTTP Basic, em todas as requisições.
+	 * A função do usuário (ex.: ADMIN) é concedida como autoridade da autenticação.
 	 * 
 	 */
     @Override
@@ -41,7 +43,9 @@ public class SimpleUserAuthenticationProvider implements AuthenticationProvider
         User user = userService.findByUsername(username);
         if (user != null) {
         	if (username.equals(user.getUsername()) && password.equals(user.getPassword())) {
-        		return new UsernamePasswordAuthenticationToken(username, password, Collections.emptyList());
+        		return new UsernamePasswordAuthenticationToken(username, password, user.getJobFunction() != null 
+        				? Collections.singletonList(new SimpleGrantedAuthority(user.getJobFunction().name())) 
+        				: Collections.emptyList());
         	}
         }
  
@@ -1,10 +1,14 @@
 package com.maps.financial.resources.account;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -16,13 +20,22 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.maps.financial.domain.account.Account;
 import com.maps.financial.domain.account.AccountFacade;
 import com.maps.financial.domain.account.Launch;
+import com.maps.financial.domain.account.LaunchOutcome;
 import com.maps.financial.domain.account.LaunchType;
+import com.maps.financial.domain.account.Statement;
+import com.maps.financial.domain.commons.KeysetPage;
 import com.maps.financial.resources.account.dto.AccountDTO;
 import com.maps.financial.resources.account.dto.BalanceDTO;
 import com.maps.financial.resources.account.dto.LaunchDTO;
+import com.maps.financial.resources.account.dto.LaunchOutcomeDTO;
+import com.maps.financial.resources.account.dto.LaunchReceiptDTO;
+import com.maps.financial.resources.account.dto.StatementDTO;
+import com.maps.financial.resources.commons.NdjsonWriter;
+import com.maps.financial.resources.commons.dto.PageDTO;
 
 /**
  * Resource para Conta Corrente
@@ -41,55 +54,118 @@ public class AccountResource {
 	@Autowired
 	private ModelMapper modelMapper;
 	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
 	/**
 	 * Endpoint REST para cadastro de um novo lançamento de crédito na conta corrente do usuário logado
+	 * Com recibo=true retorna apenas o id do lançamento incluído e o saldo atual da conta
 	 * 
 	 * @param launchDTO
-	 * @return LaunchDTO
+	 * @param recibo
+	 * @return AccountDTO ou LaunchReceiptDTO
 	 */
 	@PostMapping("/credito")
-	public ResponseEntity<AccountDTO> includeLaunchInbound(@RequestBody final LaunchDTO launchDTO) {
+	public ResponseEntity<?> includeLaunchInbound(@RequestBody final LaunchDTO launchDTO,
+			@RequestParam(name = "recibo", defaultValue = "false") boolean recibo) {
 		Launch launch = modelMapper.map(launchDTO, Launch.class);
 		launch.setType(LaunchType.INBOUND);
 		final Account account = accountFacade.includeLaunch(launch);
 		final URI uri = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(account.getId()).toUri();
 		return ResponseEntity
 				.created(uri)
-				.body(modelMapper.map(account, AccountDTO.class));
+				.body(recibo ? createReceipt(launch) : modelMapper.map(account, AccountDTO.class));
 	}
 	
 	/**
 	 * Endpoint REST para cadastro de um novo lançamento de débito na conta corrente do usuário logado
+	 * Com recibo=true retorna apenas o id do lançamento incluído e o saldo atual da conta
 	 * 
 	 * @param launchDTO
-	 * @return LaunchDTO
+	 * @param recibo
+	 * @return AccountDTO ou LaunchReceiptDTO
 	 */
 	@PostMapping("/debito")
-	public ResponseEntity<AccountDTO> includeLaunchOutbound(@RequestBody final LaunchDTO launchDTO) {
+	public ResponseEntity<?> includeLaunchOutbound(@RequestBody final LaunchDTO launchDTO,
+			@RequestParam(name = "recibo", defaultValue = "false") boolean recibo) {
 		Launch launch = modelMapper.map(launchDTO, Launch.class);
 		launch.setType(LaunchType.OUTBOUND);
 		final Account account = accountFacade.includeLaunch(launch);
 		final URI uri = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(account.getId()).toUri();
 		return ResponseEntity
 				.created(uri)
-				.body(modelMapper.map(account, AccountDTO.class));
+				.body(recibo ? createReceipt(launch) : modelMapper.map(account, AccountDTO.class));
+	}
+	
+	/**
+	 * Endpoint REST para cadastro de um lote de lançamentos (crédito ou débito, conforme o tipo) na conta corrente do usuário logado
+	 * Retorna o resultado de cada lançamento, na ordem do lote: aceito, ou rejeitado com a mensagem do motivo
+	 * 
+	 * @param launchDTOs
+	 * @return List<LaunchOutcomeDTO>
+	 */
+	@PostMapping("/lancamento/lote")
+	public ResponseEntity<List<LaunchOutcomeDTO>> includeLaunches(@RequestBody final List<LaunchDTO> launchDTOs) {
+		final List<Launch> launches = launchDTOs.stream()
+				.map(launchDTO -> modelMapper.map(launchDTO, Launch.class))
+				.collect(Collectors.toList());
+		final List<LaunchOutcome> outcomes = accountFacade.includeLaunches(launches);
+		return ResponseEntity.ok()
+				.body(outcomes.stream()
+						.map(outcome -> LaunchOutcomeDTO.builder()
+								.indice(outcome.getIndex())
+								.aceito(outcome.isAccepted())
+								.mensagem(outcome.getMessage())
+								.build())
+						.collect(Collectors.toList()));
 	}
 	
 	/**
 	 * Endpoint REST para busca de lançamentos entre datas específicas da conta corrente do usuário logado
+	 * Retorna uma página de lançamentos e o cursor para a busca da próxima página (nulo na última)
 	 * 
 	 * @param dataInicio
 	 * @param dataFim
-	 * @return List<LaunchDTO>
+	 * @param cursor
+	 * @param tamanho
+	 * @return PageDTO<LaunchDTO>
 	 */
 	@GetMapping("/lancamento")
-	public ResponseEntity<List<LaunchDTO>> findLaunchesByDate(
-			@RequestParam("dataInicio") String dataInicio, @RequestParam("dataFim") String dataFim) {
-		final List<Launch> launches = accountFacade.getLaunches(dataInicio, dataFim);
+	public ResponseEntity<PageDTO<LaunchDTO>> findLaunchesByDate(
+			@RequestParam("dataInicio") String dataInicio, @RequestParam("dataFim") String dataFim,
+			@RequestParam(name = "cursor", required = false) String cursor, 
+			@RequestParam(name = "tamanho", defaultValue = "100") int tamanho) {
+		final KeysetPage<Launch> launches = accountFacade.getLaunches(dataInicio, dataFim, cursor, tamanho);
 		return ResponseEntity.ok()
-				.body(launches.stream()
-						.map(launch -> modelMapper.map(launch, LaunchDTO.class))
-						.collect(Collectors.toList()));
+				.body(PageDTO.<LaunchDTO>builder()
+						.content(launches.getContent()
+								.stream()
+								.map(launch -> modelMapper.map(launch, LaunchDTO.class))
+								.collect(Collectors.toList()))
+						.nextCursor(launches.getNextCursorValue())
+						.build());
+	}
+	
+	/**
+	 * Endpoint REST para exportação dos lançamentos entre datas específicas da conta corrente do usuário logado
+	 * Os lançamentos são escritos na resposta no formato NDJSON (um lançamento por linha) à medida que são lidos
+	 * 
+	 * @param dataInicio
+	 * @param dataFim
+	 * @param response
+	 * @throws IOException
+	 */
+	@GetMapping("/lancamento/exportacao")
+	public void exportLaunchesByDate(@RequestParam("dataInicio") String dataInicio, @RequestParam("dataFim") String dataFim,
+			final HttpServletResponse response) throws IOException {
+		final NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+		accountFacade.exportLaunches(dataInicio, dataFim, launch -> writer.write(LaunchDTO.builder()
+				.description(launch.getDescription())
+				.value(launch.getValue())
+				.date(launch.getDate())
+				.type(launch.getType())
+				.build()));
+		writer.finish();
 	}
 	
 	/**
@@ -103,5 +179,46 @@ public class AccountResource {
 		BigDecimal balance = accountFacade.getBalance(data);
 		return ResponseEntity.ok().body(BalanceDTO.builder().saldo(balance).build());
 	}
+	
+	/**
+	 * Endpoint REST para geração dos extratos mensais de todas as contas correntes entre os meses especificados
+	 * Somente usuários administradores podem gerar extratos
+	 * 
+	 * @param mesInicio
+	 * @param mesFim
+	 * @return Void
+	 */
+	@PostMapping("/extrato")
+	public ResponseEntity<Void> generateStatements(@RequestParam("mesInicio") String mesInicio, 
+			@RequestParam("mesFim") String mesFim) {
+		accountFacade.generateStatements(mesInicio, mesFim);
+		return ResponseEntity.noContent().build();
+	}
+	
+	/**
+	 * Endpoint REST para consulta do extrato da conta corrente do usuário logado em um mês específico (yyyy-MM)
+	 * 
+	 * @param mes
+	 * @return StatementDTO
+	 */
+	@GetMapping("/extrato")
+	public ResponseEntity<StatementDTO> getStatement(@RequestParam("mes") String mes) {
+		final Statement statement = accountFacade.getStatement(mes);
+		return ResponseEntity.ok().body(StatementDTO.builder()
+				.mes(mes)
+				.saldoInicial(statement.getOpeningBalance())
+				.entradas(statement.getTotalInbound())
+				.saidas(statement.getTotalOutbound())
+				.saldoFinal(statement.getClosingBalance())
+				.quantidadeLancamentos(statement.getLaunchCount())
+				.build());
+	}
+	
+	private LaunchReceiptDTO createReceipt(final Launch launch) {
+		return LaunchReceiptDTO.builder()
+				.id(launch.getId())
+				.saldo(accountFacade.getBalance(LocalDate.now().toString()))
+				.build();
+	}
 
 }
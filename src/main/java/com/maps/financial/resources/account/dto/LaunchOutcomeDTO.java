@@ -0,0 +1,19 @@
+package com.maps.financial.resources.account.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter 
+@Builder
+@NoArgsConstructor 
+@AllArgsConstructor
+public class LaunchOutcomeDTO {
+	
+	private int indice;
+	private boolean aceito;
+	private String mensagem;
+
+}
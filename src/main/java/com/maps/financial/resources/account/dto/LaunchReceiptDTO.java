@@ -0,0 +1,20 @@
+package com.maps.financial.resources.account.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter 
+@Builder
+@NoArgsConstructor 
+@AllArgsConstructor
+public class LaunchReceiptDTO {
+	
+	private Long id; //id do lançamento incluído
+	private BigDecimal saldo;
+
+}
@@ -0,0 +1,24 @@
+package com.maps.financial.resources.account.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter 
+@Builder
+@NoArgsConstructor 
+@AllArgsConstructor
+public class StatementDTO {
+	
+	private String mes;
+	private BigDecimal saldoInicial;
+	private BigDecimal entradas;
+	private BigDecimal saidas;
+	private BigDecimal saldoFinal;
+	private int quantidadeLancamentos;
+
+}
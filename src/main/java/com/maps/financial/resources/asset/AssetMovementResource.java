@@ -5,18 +5,23 @@ import java.net.URI;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.maps.financial.domain.asset.Asset;
 import com.maps.financial.domain.asset.AssetFacade;
 import com.maps.financial.domain.asset.AssetMovement;
+import com.maps.financial.domain.asset.MovementTicket;
 import com.maps.financial.domain.asset.MovementType;
 import com.maps.financial.resources.asset.dto.AssetDTO;
 import com.maps.financial.resources.asset.dto.AssetMovementDTO;
+import com.maps.financial.resources.asset.dto.MovementTicketDTO;
 
 /**
  * Resource para Movimentação de Ativo
@@ -37,36 +42,84 @@ public class AssetMovementResource {
 	
 	/**
 	 * Endpoint REST para movimentação de compra
+	 * Com recibo=true retorna apenas o id da movimentação incluída e a posição atual do ativo
+	 * Com assincrono=true retorna 202 com o protocolo da movimentação, incluída em segundo plano (429 com a fila cheia)
 	 * 
 	 * @param assetMovementDTO
-	 * @return AssetMovementDTO
+	 * @param recibo
+	 * @param assincrono
+	 * @return AssetDTO, AssetReceiptDTO ou MovementTicketDTO
 	 */
 	@PostMapping("/compra")
-	public ResponseEntity<AssetDTO> movementBuy(@RequestBody final AssetMovementDTO assetMovementDTO) {
+	public ResponseEntity<?> movementBuy(@RequestBody final AssetMovementDTO assetMovementDTO,
+			@RequestParam(name = "recibo", defaultValue = "false") boolean recibo,
+			@RequestParam(name = "assincrono", defaultValue = "false") boolean assincrono) {
 		AssetMovement newAssetMovement = modelMapper.map(assetMovementDTO, AssetMovement.class);
 		newAssetMovement.setType(MovementType.BUY);
+		if (assincrono) {
+			return submitMovement(assetMovementDTO.getAtivo(), newAssetMovement);
+		}
 		final Asset asset = assetFacade.includeMovement(assetMovementDTO.getAtivo(), newAssetMovement);
 		final URI uri = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(asset.getId()).toUri();
 		return ResponseEntity
 				.created(uri)
-				.body(modelMapper.map(asset, AssetDTO.class));
+				.body(recibo ? AssetReceipts.of(newAssetMovement.getId(), asset) : modelMapper.map(asset, AssetDTO.class));
 	}
 	
 	/**
 	 * Endpoint REST para movimentação de venda
+	 * Com recibo=true retorna apenas o id da movimentação incluída e a posição atual do ativo
+	 * Com assincrono=true retorna 202 com o protocolo da movimentação, incluída em segundo plano (429 com a fila cheia)
 	 * 
 	 * @param assetMovementDTO
-	 * @return AssetMovementDTO
+	 * @param recibo
+	 * @param assincrono
+	 * @return AssetDTO, AssetReceiptDTO ou MovementTicketDTO
 	 */
 	@PostMapping("/venda")
-	public ResponseEntity<AssetDTO> movementSell(@RequestBody final AssetMovementDTO assetMovementDTO) {
+	public ResponseEntity<?> movementSell(@RequestBody final AssetMovementDTO assetMovementDTO,
+			@RequestParam(name = "recibo", defaultValue = "false") boolean recibo,
+			@RequestParam(name = "assincrono", defaultValue = "false") boolean assincrono) {
 		AssetMovement newAssetMovement = modelMapper.map(assetMovementDTO, AssetMovement.class);
 		newAssetMovement.setType(MovementType.SELL);
+		if (assincrono) {
+			return submitMovement(assetMovementDTO.getAtivo(), newAssetMovement);
+		}
 		final Asset asset = assetFacade.includeMovement(assetMovementDTO.getAtivo(), newAssetMovement);
 		final URI uri = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(asset.getId()).toUri();
 		return ResponseEntity
 				.created(uri)
-				.body(modelMapper.map(asset, AssetDTO.class));
+				.body(recibo ? AssetReceipts.of(newAssetMovement.getId(), asset) : modelMapper.map(asset, AssetDTO.class));
+	}
+	
+	/**
+	 * Endpoint REST para consulta da situação de uma movimentação enviada com assincrono=true
+	 * 
+	 * @param protocolo
+	 * @return MovementTicketDTO
+	 */
+	@GetMapping("/situacao/{protocolo}")
+	public ResponseEntity<MovementTicketDTO> findMovementTicket(@PathVariable final String protocolo) {
+		return ResponseEntity.ok(toMovementTicketDTO(assetFacade.findMovementTicket(protocolo)));
+	}
+	
+	private ResponseEntity<MovementTicketDTO> submitMovement(final String assetName, final AssetMovement newAssetMovement) {
+		final MovementTicket ticket = assetFacade.submitMovement(assetName, newAssetMovement);
+		final URI uri = ServletUriComponentsBuilder.fromCurrentContextPath()
+				.path("/movimentacao/situacao/{protocolo}").buildAndExpand(ticket.getId()).toUri();
+		return ResponseEntity
+				.accepted()
+				.location(uri)
+				.body(toMovementTicketDTO(ticket));
+	}
+	
+	private MovementTicketDTO toMovementTicketDTO(final MovementTicket ticket) {
+		return MovementTicketDTO.builder()
+				.protocolo(ticket.getId())
+				.situacao(ticket.getStatus())
+				.movimentacao(ticket.getMovementId())
+				.mensagem(ticket.getMessage())
+				.build();
 	}
 
 }
@@ -0,0 +1,69 @@
+package com.maps.financial.resources.asset;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.maps.financial.domain.asset.Asset;
+import com.maps.financial.domain.asset.MarketPrice;
+import com.maps.financial.domain.asset.PositionSnapshot;
+import com.maps.financial.resources.asset.dto.AssetReceiptDTO;
+import com.maps.financial.resources.asset.dto.PositionDTO;
+
+/**
+ * Montagem dos recibos das inclusões em ativos: id do registro incluído e posição atual do ativo,
+ * sem as listas de movimentações e valores de mercado (tamanho independente do histórico do ativo)
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+final class AssetReceipts {
+	
+	private AssetReceipts() {
+	}
+	
+	/**
+	 * Recibo da inclusão do registro com o id informado no ativo
+	 * 
+	 * @param id
+	 * @param asset
+	 * @return AssetReceiptDTO
+	 */
+	static AssetReceiptDTO of(final Long id, final Asset asset) {
+		return AssetReceiptDTO.builder()
+				.id(id)
+				.ativo(asset.getId())
+				.posicao(toPositionDTO(asset.getPosition(LocalDate.now())))
+				.build();
+	}
+	
+	/**
+	 * Recibo da inclusão do valor de mercado do ativo na data informada (o último incluído na data)
+	 * 
+	 * @param asset
+	 * @param date
+	 * @return AssetReceiptDTO
+	 */
+	static AssetReceiptDTO ofMarketPrice(final Asset asset, final LocalDate date) {
+		final List<MarketPrice> marketPrices = asset.getMarketPrices();
+		Long id = null;
+		for (int i = marketPrices.size() - 1; i >= 0 && id == null; i--) {
+			if (marketPrices.get(i).getDate().isEqual(date)) {
+				id = marketPrices.get(i).getId();
+			}
+		}
+		return of(id, asset);
+	}
+	
+	static PositionDTO toPositionDTO(final PositionSnapshot position) {
+		return PositionDTO.builder()
+				.nomeAtivo(position.getAssetName())
+				.tipoAtivo(position.getAssetType())
+				.quantidadeTotal(position.getTotalQuantity())
+				.valorMercadoTotal(position.getTotalMarketPrice())
+				.rendimento(position.getIncome())
+				.lucro(position.getProfit())
+				.build();
+	}
+
+}
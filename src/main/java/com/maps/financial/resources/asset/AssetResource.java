@@ -1,12 +1,14 @@
 package com.maps.financial.resources.asset;
 
+import java.io.IOException;
 import java.net.URI;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -21,13 +23,19 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.maps.financial.domain.asset.Asset;
 import com.maps.financial.domain.asset.AssetFacade;
 import com.maps.financial.domain.asset.AssetMovement;
+import com.maps.financial.domain.asset.MovementType;
+import com.maps.financial.domain.asset.PositionSnapshot;
+import com.maps.financial.domain.commons.KeysetPage;
 import com.maps.financial.resources.asset.dto.AssetDTO;
 import com.maps.financial.resources.asset.dto.AssetMovementDTO;
 import com.maps.financial.resources.asset.dto.MarketPriceDTO;
 import com.maps.financial.resources.asset.dto.PositionDTO;
+import com.maps.financial.resources.commons.NdjsonWriter;
+import com.maps.financial.resources.commons.dto.PageDTO;
 
 /**
  * Resource para Ativo
@@ -46,6 +54,9 @@ public class AssetResource {
 	@Autowired
 	private ModelMapper modelMapper;
 	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
 	private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 	
 	/**
@@ -55,8 +66,8 @@ public class AssetResource {
 	 */
 	@GetMapping("/posicao")
 	public ResponseEntity<List<PositionDTO>> findAssetsPosition(@RequestParam("data") String data) {
-		final List<Asset> assets = assetFacade.findAll();
-		return ResponseEntity.ok().body(createPositions(assets, data));
+		final List<PositionSnapshot> positions = assetFacade.getPositions(LocalDate.parse(data, formatter));
+		return ResponseEntity.ok().body(createPositions(positions));
 	}
 
 	/**
@@ -113,18 +124,21 @@ public class AssetResource {
 	
 	/**
 	 * Endpoint REST para adição de um novo valor de mercado em data determinada para um ativo específico
+	 * Com recibo=true retorna apenas o id do valor de mercado incluído e a posição atual do ativo
 	 * 
 	 * @param assetId
 	 * @param marketPriceDTO
-	 * @return AssetDTO
+	 * @param recibo
+	 * @return AssetDTO ou AssetReceiptDTO
 	 */
 	@PostMapping("/{assetId}/adiciona-valor-mercado")
-	public ResponseEntity<AssetDTO> includeMarketPrice(@PathVariable final Long assetId, @RequestBody final MarketPriceDTO marketPriceDTO) {
+	public ResponseEntity<?> includeMarketPrice(@PathVariable final Long assetId, @RequestBody final MarketPriceDTO marketPriceDTO,
+			@RequestParam(name = "recibo", defaultValue = "false") boolean recibo) {
 		final Asset asset = assetFacade.includeMarketPrice(assetId, marketPriceDTO.getPrice(), marketPriceDTO.getDate());
 		final URI uri = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(asset.getId()).toUri();
 		return ResponseEntity
 				.created(uri)
-				.body(modelMapper.map(asset, AssetDTO.class));
+				.body(recibo ? AssetReceipts.ofMarketPrice(asset, marketPriceDTO.getDate()) : modelMapper.map(asset, AssetDTO.class));
 	}
 	
 	/**
@@ -142,50 +156,83 @@ public class AssetResource {
 	
 	/**
 	 * Endpoint REST para cadastro de um novo movimento
+	 * Com recibo=true retorna apenas o id da movimentação incluída e a posição atual do ativo
 	 * 
 	 * @param assetDTO
 	 * @param assetMovementDTO
-	 * @return AssetDTO
+	 * @param recibo
+	 * @return AssetDTO ou AssetReceiptDTO
 	 */
 	@PostMapping("/{assetId}/movimentacao")
-	public ResponseEntity<AssetDTO> includeMovement(@PathVariable final Long assetId, @RequestBody final AssetMovementDTO assetMovementDTO) {
-		final Asset asset = assetFacade.includeMovement(assetId, modelMapper.map(assetMovementDTO, AssetMovement.class));
+	public ResponseEntity<?> includeMovement(@PathVariable final Long assetId, @RequestBody final AssetMovementDTO assetMovementDTO,
+			@RequestParam(name = "recibo", defaultValue = "false") boolean recibo) {
+		final AssetMovement newAssetMovement = modelMapper.map(assetMovementDTO, AssetMovement.class);
+		final Asset asset = assetFacade.includeMovement(assetId, newAssetMovement);
 		final URI uri = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(asset.getId()).toUri();
 		return ResponseEntity
 				.created(uri)
-				.body(modelMapper.map(asset, AssetDTO.class));
+				.body(recibo ? AssetReceipts.of(newAssetMovement.getId(), asset) : modelMapper.map(asset, AssetDTO.class));
 	}
 	
 	/**
 	 * Endpoint REST para busca de movimentações de um ativo entre datas específicas
+	 * Filtra opcionalmente pelo tipo (BUY ou SELL) e retorna uma página de movimentações e o cursor
+	 * para a busca da próxima página (nulo na última)
 	 * 
 	 * @param assetId
-	 * @return AssetDTO
+	 * @param dataInicio
+	 * @param dataFim
+	 * @param tipo
+	 * @param cursor
+	 * @param tamanho
+	 * @return PageDTO<AssetMovementDTO>
 	 */
 	@GetMapping("/{assetId}/movimentacao")
-	public ResponseEntity<List<AssetMovementDTO>> findMovementsByDate(@PathVariable final Long assetId, 
-			@RequestParam("dataInicio") String dataInicio, @RequestParam("dataFim") String dataFim) {
-		final List<AssetMovement> movements = assetFacade.getMovements(assetId, dataInicio, dataFim);
+	public ResponseEntity<PageDTO<AssetMovementDTO>> findMovementsByDate(@PathVariable final Long assetId, 
+			@RequestParam("dataInicio") String dataInicio, @RequestParam("dataFim") String dataFim,
+			@RequestParam(name = "tipo", required = false) MovementType tipo,
+			@RequestParam(name = "cursor", required = false) String cursor, 
+			@RequestParam(name = "tamanho", defaultValue = "100") int tamanho) {
+		final KeysetPage<AssetMovement> movements = assetFacade.getMovements(assetId, dataInicio, dataFim, tipo, cursor, tamanho);
 		return ResponseEntity.ok()
-				.body(movements.stream()
-						.map(movement -> modelMapper.map(movement, AssetMovementDTO.class))
-						.collect(Collectors.toList()));
+				.body(PageDTO.<AssetMovementDTO>builder()
+						.content(movements.getContent()
+								.stream()
+								.map(movement -> modelMapper.map(movement, AssetMovementDTO.class))
+								.collect(Collectors.toList()))
+						.nextCursor(movements.getNextCursorValue())
+						.build());
+	}
+	
+	/**
+	 * Endpoint REST para exportação das movimentações de um ativo entre datas específicas
+	 * As movimentações são escritas na resposta no formato NDJSON (uma movimentação por linha) à medida que são lidas
+	 * 
+	 * @param assetId
+	 * @param dataInicio
+	 * @param dataFim
+	 * @param response
+	 * @throws IOException
+	 */
+	@GetMapping("/{assetId}/movimentacao/exportacao")
+	public void exportMovementsByDate(@PathVariable final Long assetId, 
+			@RequestParam("dataInicio") String dataInicio, @RequestParam("dataFim") String dataFim,
+			final HttpServletResponse response) throws IOException {
+		final NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+		assetFacade.exportMovements(assetId, dataInicio, dataFim, movement -> writer.write(AssetMovementDTO.builder()
+				.id(movement.getId())
+				.quantity(movement.getQuantity())
+				.value(movement.getValue())
+				.date(movement.getDate())
+				.type(movement.getType())
+				.build()));
+		writer.finish();
 	}
 	
-	private List<PositionDTO> createPositions(List<Asset> assets, String data) {
-		LocalDate date = LocalDate.parse(data, formatter);
-		List<PositionDTO> positions = new ArrayList<>();
-		for (Asset asset : assets) {
-			positions.add(PositionDTO.builder()
-					.nomeAtivo(asset.getName())
-					.tipoAtivo(asset.getType())
-					.quantidadeTotal(asset.getTotalQuantity(date))
-					.valorMercadoTotal(asset.getTotalMarketPrice(date))
-					.rendimento(asset.getIncome(date))
-					.lucro(asset.getProfit(date))
-					.build());
-		}
-		return positions;
+	private List<PositionDTO> createPositions(List<PositionSnapshot> positions) {
+		return positions.stream()
+				.map(AssetReceipts::toPositionDTO)
+				.collect(Collectors.toList());
 	}
 
 }
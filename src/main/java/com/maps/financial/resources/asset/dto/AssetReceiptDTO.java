@@ -0,0 +1,19 @@
+package com.maps.financial.resources.asset.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter 
+@Builder
+@NoArgsConstructor 
+@AllArgsConstructor
+public class AssetReceiptDTO {
+	
+	private Long id; //id do registro incluído (movimentação ou valor de mercado)
+	private Long ativo;
+	private PositionDTO posicao;
+
+}
@@ -0,0 +1,22 @@
+package com.maps.financial.resources.asset.dto;
+
+import com.maps.financial.domain.asset.MovementTicketStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter 
+@Builder
+@NoArgsConstructor 
+@AllArgsConstructor
+public class MovementTicketDTO {
+	
+	private String protocolo;
+	private MovementTicketStatus situacao;
+	private Long movimentacao; //id da movimentação incluída
+	private String mensagem; //motivo da rejeição
+	
+}
@@ -1,5 +1,6 @@
 package com.maps.financial.resources.commons;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -8,9 +9,14 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import com.maps.financial.exceptions.AccountBalanceNotAvailable;
 import com.maps.financial.exceptions.AssetQuantityNotAvailable;
 import com.maps.financial.exceptions.AuthorizationException;
+import com.maps.financial.exceptions.ConcurrentUpdateConflict;
+import com.maps.financial.exceptions.ExceptionMessage;
+import com.maps.financial.exceptions.InvalidPageCursor;
 import com.maps.financial.exceptions.IssueDateNotBeforeDueDate;
 import com.maps.financial.exceptions.MovementNotAllowedInDate;
 import com.maps.financial.exceptions.ObjectNotFoundException;
+import com.maps.financial.exceptions.SubmissionQueueFull;
+import com.maps.financial.exceptions.SubmissionTimeout;
 import com.maps.financial.resources.commons.dto.DefaultErrorDTO;
 
 
@@ -80,6 +86,48 @@ public class ApplicationControllerAdvice {
 				.body(getError(statusError, ex.getMessage()));
     }
 	
+	@ExceptionHandler(InvalidPageCursor.class)
+    public ResponseEntity<DefaultErrorDTO> handleInvalidPageCursor(InvalidPageCursor ex){
+		HttpStatus statusError = HttpStatus.BAD_REQUEST;
+		return ResponseEntity
+				.status(statusError)
+				.body(getError(statusError, ex.getMessage()));
+    }
+	
+	@ExceptionHandler(ConcurrentUpdateConflict.class)
+    public ResponseEntity<DefaultErrorDTO> handleConcurrentUpdateConflict(ConcurrentUpdateConflict ex){
+		HttpStatus statusError = HttpStatus.CONFLICT;
+		return ResponseEntity
+				.status(statusError)
+				.body(getError(statusError, ex.getMessage()));
+    }
+	
+	@ExceptionHandler(SubmissionQueueFull.class)
+    public ResponseEntity<DefaultErrorDTO> handleSubmissionQueueFull(SubmissionQueueFull ex){
+		HttpStatus statusError = HttpStatus.TOO_MANY_REQUESTS;
+		return ResponseEntity
+				.status(statusError)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body(getError(statusError, ex.getMessage()));
+    }
+	
+	@ExceptionHandler(SubmissionTimeout.class)
+    public ResponseEntity<DefaultErrorDTO> handleSubmissionTimeout(SubmissionTimeout ex){
+		HttpStatus statusError = HttpStatus.SERVICE_UNAVAILABLE;
+		return ResponseEntity
+				.status(statusError)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body(getError(statusError, ex.getMessage()));
+    }
+	
+	@ExceptionHandler(ArithmeticException.class)
+    public ResponseEntity<DefaultErrorDTO> handleArithmeticException(ArithmeticException ex){
+		HttpStatus statusError = HttpStatus.BAD_REQUEST;
+		return ResponseEntity
+				.status(statusError)
+				.body(getError(statusError, ExceptionMessage.MESSAGE_VALUE_OUT_OF_RANGE.getValue()));
+    }
+	
 	private DefaultErrorDTO getError(HttpStatus status, String message) {
 		return DefaultErrorDTO.builder()
 				.status(status)
@@ -0,0 +1,78 @@
+package com.maps.financial.resources.commons;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Escritor de registros no formato NDJSON (um objeto JSON por linha) diretamente na resposta informada
+ * Cada registro é serializado e descartado em seguida, mantendo o uso de memória constante durante exportações.
+ * A resposta só é iniciada no primeiro registro, mantendo-a disponível para o tratamento de erros lançados antes dele.
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+public class NdjsonWriter {
+	
+	public static final String CONTENT_TYPE = "application/x-ndjson";
+	
+	private final ObjectMapper mapper;
+	private final ObjectWriter writer;
+	private final HttpServletResponse response;
+	private JsonGenerator generator; //criado no primeiro registro
+	
+	/**
+	 * Constructor com o ObjectMapper da aplicação e a resposta onde os registros serão escritos
+	 * 
+	 * @param mapper
+	 * @param response
+	 */
+	public NdjsonWriter(final ObjectMapper mapper, final HttpServletResponse response) {
+		this.mapper = mapper;
+		this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE); //envio em blocos, não por registro
+		this.response = response;
+	}
+	
+	/**
+	 * Escreve o registro informado em uma nova linha
+	 * 
+	 * @param row
+	 * @throws UncheckedIOException
+	 */
+	public void write(final Object row) throws UncheckedIOException {
+		try {
+			if (this.generator == null) {
+				this.response.setContentType(CONTENT_TYPE);
+				this.generator = this.mapper.getFactory()
+						.createGenerator(this.response.getOutputStream())
+						.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			}
+			this.writer.writeValue(this.generator, row);
+			this.generator.writeRaw('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Finaliza a exportação, enviando os registros pendentes para a resposta
+	 * Não deve ser chamado quando a exportação falhar, permitindo o tratamento do erro antes do primeiro registro
+	 * 
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if (this.generator != null) {
+			this.generator.close();
+		} else {
+			this.response.setContentType(CONTENT_TYPE);
+		}
+	}
+
+}
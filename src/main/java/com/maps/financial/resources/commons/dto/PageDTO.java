@@ -0,0 +1,25 @@
+package com.maps.financial.resources.commons.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter 
+@Builder
+@NoArgsConstructor 
+@AllArgsConstructor
+public class PageDTO<T> {
+	
+	@JsonProperty("itens")
+	private List<T> content;
+	
+	@JsonProperty("proximoCursor")
+	private String nextCursor;
+
+}
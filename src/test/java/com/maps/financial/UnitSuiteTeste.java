@@ -6,15 +6,35 @@ import org.junit.runners.Suite.SuiteClasses;
 
 import com.maps.financial.domain.account.AccountFacadeTest;
 import com.maps.financial.domain.account.AccountServiceTest;
+import com.maps.financial.domain.account.StatementServiceTest;
 import com.maps.financial.domain.asset.AssetFacadeTest;
 import com.maps.financial.domain.asset.AssetServiceTest;
+import com.maps.financial.domain.asset.DailyPositionServiceTest;
+import com.maps.financial.domain.asset.MovementQueueTest;
+import com.maps.financial.domain.asset.MovementTicketsTest;
+import com.maps.financial.domain.asset.PositionCacheTest;
+import com.maps.financial.domain.commons.FixedPointTest;
+import com.maps.financial.domain.commons.KeysetPageTest;
+import com.maps.financial.domain.commons.LockRegistryTest;
+import com.maps.financial.domain.commons.OptimisticRetryTest;
+import com.maps.financial.domain.commons.ReservationLedgerTest;
 
 @RunWith(Suite.class)
 @SuiteClasses({ 
 	AccountFacadeTest.class,
 	AccountServiceTest.class,
+	StatementServiceTest.class,
 	AssetFacadeTest.class,
-	AssetServiceTest.class
+	AssetServiceTest.class,
+	DailyPositionServiceTest.class,
+	MovementQueueTest.class,
+	MovementTicketsTest.class,
+	PositionCacheTest.class,
+	FixedPointTest.class,
+	KeysetPageTest.class,
+	LockRegistryTest.class,
+	OptimisticRetryTest.class,
+	ReservationLedgerTest.class
 })
 public class UnitSuiteTeste {
 
@@ -0,0 +1,115 @@
+package com.maps.financial.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.maps.financial.FinancialApplication;
+import com.maps.financial.domain.asset.Asset;
+import com.maps.financial.domain.asset.MarketPrice;
+
+/**
+ * Vazão de inclusões de preços de mercado em lote conforme o tamanho do bloco de ids (BlockIdGenerator).
+ * Com bloco 1 cada inclusão reserva o seu id na tabela id_block; com blocos maiores os ids são atribuídos
+ * em memória e as inclusões são enviadas em lote (hibernate.jdbc.batch_size). Cada operação inclui "rows" preços.
+ * Execução:
+ * 	mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.maps.financial.benchmark.IdAllocationBenchmark
+ * ou pela IDE, executando o método main desta classe.
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdAllocationBenchmark {
+	
+	@Param({ "1", "50", "500" })
+	private int blockSize;
+	
+	@Param({ "1000" })
+	private int rows;
+	
+	private ConfigurableApplicationContext context;
+	private EntityManagerFactory entityManagerFactory;
+	private TransactionTemplate transactionTemplate;
+	private Long assetId;
+	
+	@Setup
+	public void setup() {
+		context = SpringApplication.run(FinancialApplication.class,
+				"--spring.main.web-application-type=none",
+				"--spring.main.banner-mode=off",
+				"--logging.level.root=WARN",
+				"--financial.scheduling.enabled=false",
+				"--spring.jpa.properties.financial.id.block-size.market_price=" + blockSize);
+		entityManagerFactory = context.getBean(EntityManagerFactory.class);
+		transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		assetId = transactionTemplate.execute(status -> EntityManagerFactoryUtils
+				.getTransactionalEntityManager(entityManagerFactory)
+				.createQuery("select min(a.id) from Asset a", Long.class)
+				.getSingleResult());
+	}
+	
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public Long insertMarketPrices() {
+		return transactionTemplate.execute(status -> {
+			final EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+			final Asset asset = entityManager.getReference(Asset.class, assetId);
+			MarketPrice marketPrice = null;
+			for (int i = 0; i < rows; i++) {
+				marketPrice = MarketPrice.builder()
+						.asset(asset)
+						.price(BigDecimal.valueOf(1000 + i, 2))
+						.date(LocalDate.of(2020, 1, 2).plusDays(i))
+						.build();
+				entityManager.persist(marketPrice);
+			}
+			entityManager.flush();
+			entityManager.clear();
+			return marketPrice.getId();
+		});
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(IdAllocationBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+
+}
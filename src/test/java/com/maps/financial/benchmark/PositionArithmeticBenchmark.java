@@ -0,0 +1,106 @@
+package com.maps.financial.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.maps.financial.domain.commons.FixedPoint;
+
+/**
+ * Comparação entre o cálculo de posição com BigDecimal e com ponto fixo (FixedPoint).
+ * Para medir também a alocação de memória, executar com o profiler de GC:
+ * 	mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.maps.financial.benchmark.PositionArithmeticBenchmark
+ * ou pela IDE, executando o método main desta classe.
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PositionArithmeticBenchmark {
+	
+	@Param({ "10000" })
+	private int movements;
+	
+	private List<BigDecimal> quantities;
+	private List<BigDecimal> values;
+	private BigDecimal price;
+	
+	private long[] fixedQuantities;
+	private long[] fixedValues;
+	private long fixedPrice;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(13072020L);
+		quantities = new ArrayList<>(movements);
+		values = new ArrayList<>(movements);
+		fixedQuantities = new long[movements];
+		fixedValues = new long[movements];
+		for (int i = 0; i < movements; i++) {
+			BigDecimal quantity = BigDecimal.valueOf(random.nextInt(100000000), FixedPoint.QUANTITY_SCALE);
+			BigDecimal value = BigDecimal.valueOf(random.nextInt(1000000), FixedPoint.MONEY_SCALE);
+			quantities.add(quantity);
+			values.add(value);
+			fixedQuantities[i] = FixedPoint.ofQuantity(quantity);
+			fixedValues[i] = FixedPoint.ofMoney(value);
+		}
+		price = BigDecimal.valueOf(1050000000L, FixedPoint.PRICE_SCALE);
+		fixedPrice = FixedPoint.ofPrice(price);
+	}
+	
+	@Benchmark
+	public BigDecimal bigDecimalPosition() {
+		BigDecimal quantity = quantities.stream().reduce(BigDecimal.ZERO, BigDecimal::add).setScale(2, BigDecimal.ROUND_DOWN);
+		BigDecimal value = values.stream().map(v -> v.setScale(2, BigDecimal.ROUND_DOWN)).reduce(BigDecimal.ZERO, BigDecimal::add);
+		BigDecimal average = value.divide(quantity, BigDecimal.ROUND_DOWN).setScale(2, BigDecimal.ROUND_DOWN);
+		BigDecimal marketValue = quantity.multiply(price).setScale(2, BigDecimal.ROUND_DOWN);
+		return marketValue.add(price.divide(average, BigDecimal.ROUND_DOWN).setScale(2, BigDecimal.ROUND_DOWN));
+	}
+	
+	@Benchmark
+	public long fixedPointPosition() {
+		long quantity = 0L;
+		long value = 0L;
+		for (int i = 0; i < fixedQuantities.length; i++) {
+			quantity = FixedPoint.add(quantity, fixedQuantities[i]);
+			value = FixedPoint.add(value, fixedValues[i]);
+		}
+		quantity = FixedPoint.rescale(quantity, FixedPoint.QUANTITY_SCALE, 2);
+		long average = FixedPoint.divide(value, 2, quantity, 2, 2);
+		long marketValue = FixedPoint.multiply(quantity, 2, fixedPrice, FixedPoint.PRICE_SCALE, 2);
+		return FixedPoint.add(marketValue, FixedPoint.divide(fixedPrice, FixedPoint.PRICE_SCALE, average, 2, 2));
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(PositionArithmeticBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build();
+		new Runner(options).run();
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.maps.financial.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.maps.financial.infra.concurrent.VirtualThreads;
+
+/**
+ * Carga de requisições simultâneas bloqueadas em acessos ao banco de dados, atendidas pelo pool de threads de plataforma
+ * do Tomcat (server.tomcat.max-threads, padrão 200) ou por uma thread virtual por requisição (financial.threads.virtual.enabled).
+ * Cada operação atende "requests" requisições enviadas ao mesmo tempo, cada uma bloqueada por "latency" milissegundos
+ * (tempo de espera das consultas JPA); o resultado é o tempo para atender todas.
+ * Requer Java 21 ou superior para o modo virtual. Execução:
+ * 	mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.maps.financial.benchmark.RequestThreadsBenchmark
+ * ou pela IDE, executando o método main desta classe.
+ * 
+ * @author Elisson
+ * @date 13/07/2020
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestThreadsBenchmark {
+	
+	@Param({ "platform", "virtual" })
+	private String threads;
+	
+	@Param({ "200", "2000", "10000" })
+	private int requests;
+	
+	@Param({ "20" })
+	private long latency;
+	
+	@Param({ "200" })
+	private int maxThreads;
+	
+	private ExecutorService executor;
+	
+	@Setup
+	public void setup() {
+		executor = "virtual".equals(threads) 
+				? VirtualThreads.newThreadPerTaskExecutor("http-virtual-")
+				: Executors.newFixedThreadPool(maxThreads, new CustomizableThreadFactory("http-platform-"));
+	}
+	
+	@TearDown
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+	
+	@Benchmark
+	public int serveRequests() throws Exception {
+		final List<Future<Integer>> responses = new ArrayList<>(requests);
+		for (int i = 0; i < requests; i++) {
+			responses.add(executor.submit(() -> {
+				Thread.sleep(latency);
+				return 200;
+			}));
+		}
+		int served = 0;
+		for (Future<Integer> response : responses) {
+			served += response.get() == 200 ? 1 : 0;
+		}
+		return served;
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(RequestThreadsBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+
+}
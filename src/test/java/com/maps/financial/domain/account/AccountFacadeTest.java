@@ -5,8 +5,11 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -14,11 +17,16 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import com.maps.financial.domain.commons.OptimisticRetry;
 import com.maps.financial.domain.asset.AssetMovement;
 import com.maps.financial.domain.asset.MovementType;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @RunWith(MockitoJUnitRunner.class)
 public class AccountFacadeTest {
 	
@@ -28,9 +36,16 @@ public class AccountFacadeTest {
 	@Mock
 	private AccountService service;
 	
+	@Mock
+	private StatementService statementService;
+	
 	@Mock
 	private LaunchFactory launchFactory;
 	
+	@Spy
+	private OptimisticRetry optimisticRetry = new OptimisticRetry(Mockito.mock(PlatformTransactionManager.class), 
+			new SimpleMeterRegistry(), 3, Duration.ZERO, Duration.ZERO);
+	
 	private static final Long ACCOUNT_ID = 1L;
 	private static final String DESCRIPTION_BUY = "LAUNCH FOR A BUY";
 	private static final String DESCRIPTION_SELL = "LAUNCH FOR A SELL";
@@ -71,8 +86,31 @@ public class AccountFacadeTest {
 	public void getLaunchesTest() {
 		String dateBegin = LocalDate.now().format(formatter);
 		String dateEnd = LocalDate.now().format(formatter);
-		facade.getLaunches(dateBegin, dateEnd);
-		verify(service, times(1)).getLaunches(dateBegin, dateEnd);
+		facade.getLaunches(dateBegin, dateEnd, null, 10);
+		verify(service, times(1)).getLaunches(dateBegin, dateEnd, null, 10);
+	}
+	
+	@Test
+	public void exportLaunchesTest() {
+		String dateBegin = LocalDate.now().format(formatter);
+		String dateEnd = LocalDate.now().format(formatter);
+		Consumer<Launch> consumer = launch -> { };
+		facade.exportLaunches(dateBegin, dateEnd, consumer);
+		verify(service, times(1)).exportLaunches(dateBegin, dateEnd, consumer);
+	}
+	
+	@Test
+	public void generateStatementsTest() {
+		facade.generateStatements("2020-06", "2020-07");
+		verify(statementService, times(1)).generateStatements("2020-06", "2020-07");
+		facade.generateStatements(YearMonth.of(2020, 6), YearMonth.of(2020, 7));
+		verify(statementService, times(1)).generate(YearMonth.of(2020, 6), YearMonth.of(2020, 7));
+	}
+	
+	@Test
+	public void getStatementTest() {
+		facade.getStatement("2020-07");
+		verify(statementService, times(1)).getStatement("2020-07");
 	}
 	
 	@Test
@@ -1,7 +1,16 @@
 package com.maps.financial.domain.account;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -10,8 +19,12 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -19,11 +32,20 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.maps.financial.domain.commons.FixedPoint;
+import com.maps.financial.domain.commons.KeysetPage;
+import com.maps.financial.domain.commons.LockRegistry;
+import com.maps.financial.domain.commons.PageCursor;
+import com.maps.financial.domain.commons.ReservationLedger;
 import com.maps.financial.domain.user.JobFunction;
 import com.maps.financial.domain.user.User;
 import com.maps.financial.exceptions.AccountBalanceNotAvailable;
 import com.maps.financial.exceptions.AuthorizationException;
+import com.maps.financial.exceptions.ExceptionMessage;
+import com.maps.financial.exceptions.InvalidPageCursor;
 import com.maps.financial.exceptions.ObjectNotFoundException;
 import com.maps.financial.infra.security.SecurityUtils;
 
@@ -33,9 +55,21 @@ public class AccountServiceTest {
 	@Mock
 	private AccountRepository repository;
 	
+	@Mock
+	private LaunchRepository launchRepository;
+	
 	@Mock
 	private SecurityUtils securityUtils;
 	
+	@Mock
+	private EntityManager entityManager;
+	
+	@Mock
+	private LockRegistry lockRegistry;
+	
+	@Mock
+	private ReservationLedger reservationLedger;
+	
 	@InjectMocks
 	private AccountService service;
 	
@@ -53,6 +87,7 @@ public class AccountServiceTest {
 		accounts.add(account);
 		userAdmin = createUserAdmin();
 		userAdmin.setAccount(account);
+		lenient().when(reservationLedger.tryReserve(eq(Account.class), any(), anyLong())).thenReturn(Boolean.TRUE);
 	}
 
 	@Test
@@ -102,6 +137,74 @@ public class AccountServiceTest {
 		assertEquals(launch, accountReturned.getLaunches().get(0));
 	}
 	
+	@Test
+	public void includeLaunchOutboundWithoutReservationTest() {
+		Launch launch = createLaunch(LaunchType.OUTBOUND, 10.00, LocalDate.of(2020, 7, 9));
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		when(reservationLedger.tryReserve(Account.class, ACCOUNT_ID, 1000L)).thenReturn(Boolean.FALSE);
+		try {
+			service.includeLaunch(launch);
+		} catch (AccountBalanceNotAvailable e) {
+			verify(repository, never()).findById(any());
+			verify(lockRegistry, never()).lock(any(), any());
+			return;
+		}
+		throw new AssertionError("AccountBalanceNotAvailable esperada");
+	}
+	
+	@Test
+	public void includeLaunchReservesAmountAppliedOnCommitTest() {
+		Launch launch = createLaunch(LaunchType.OUTBOUND, 1.00, LocalDate.of(2020, 7, 9));
+		launch.setValue(new BigDecimal("1.005"));
+		when(repository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		service.includeLaunch(launch);
+		verify(reservationLedger, times(1)).tryReserve(Account.class, ACCOUNT_ID, 101L);
+		verify(reservationLedger, times(1)).applyOnCommit(Account.class, ACCOUNT_ID, -101L);
+	}
+	
+	@Test
+	public void includeLaunchAppliesBalanceOnCommitTest() {
+		Launch launch = createLaunch(LaunchType.INBOUND, 10.00, LocalDate.of(2020, 7, 9));
+		when(repository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		service.includeLaunch(launch);
+		verify(reservationLedger, times(1)).observe(Account.class, ACCOUNT_ID, FixedPoint.ofMoney(formatBigDecimalScale(20.50)));
+		verify(reservationLedger, times(1)).applyOnCommit(Account.class, ACCOUNT_ID, FixedPoint.ofMoney(formatBigDecimalScale(10.00)));
+		verify(reservationLedger, never()).tryReserve(any(), any(), anyLong());
+	}
+	
+	@Test
+	public void includeLaunchObservesBalanceAfterLastLaunchTest() {
+		Launch launch = createLaunch(LaunchType.OUTBOUND, 2.00, LocalDate.of(2020, 7, 9));
+		when(repository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		when(launchRepository.findLastBalancesAfter(ACCOUNT_ID, PageRequest.of(0, 1)))
+			.thenReturn(Arrays.asList(formatBigDecimalScale(5.50)));
+		service.includeLaunch(launch);
+		verify(reservationLedger, times(1)).observe(Account.class, ACCOUNT_ID, FixedPoint.ofMoney(formatBigDecimalScale(5.50)));
+		verify(reservationLedger, times(1)).applyOnCommit(Account.class, ACCOUNT_ID, FixedPoint.ofMoney(formatBigDecimalScale(2.00).negate()));
+	}
+	
+	@Test
+	public void includeLaunchSecondOutboundWithUnavailableBalanceTest() {
+		Launch first = createLaunch(LaunchType.OUTBOUND, 15.00, LocalDate.of(2020, 7, 9));
+		Launch second = createLaunch(LaunchType.OUTBOUND, 10.00, LocalDate.of(2020, 7, 10));
+		when(repository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		when(launchRepository.findLastBalancesAfter(ACCOUNT_ID, PageRequest.of(0, 1)))
+			.thenReturn(new ArrayList<>(), Arrays.asList(formatBigDecimalScale(5.50)));
+		service.includeLaunch(first);
+		try {
+			service.includeLaunch(second);
+			fail();
+		} catch (AccountBalanceNotAvailable e) {
+			assertEquals(ExceptionMessage.MESSAGE_ACCOUNT_BALANACE_NOT_AVAILABLE.getValue(), e.getMessage());
+		}
+		verify(reservationLedger, times(1)).applyOnCommit(eq(Account.class), eq(ACCOUNT_ID), anyLong());
+		verify(launchRepository, times(1)).addToBalancesAfter(any(), any(), any());
+	}
+	
 	@Test(expected = AccountBalanceNotAvailable.class)
 	public void includeLaunchOutboundWithUnavailableBalanceTest() {
 		Launch launch = createLaunch(LaunchType.OUTBOUND, 30.00, LocalDate.of(2020, 7, 9));
@@ -118,20 +221,60 @@ public class AccountServiceTest {
 		service.includeLaunch(launch);
 	}
 	
+	@Test
+	public void includeLaunchBalanceAfterTest() {
+		Launch launch = createLaunch(LaunchType.OUTBOUND, 5.20, LocalDate.of(2020, 7, 9));
+		final Optional<Account> optional = Optional.of(account);	
+		when(repository.findById(ACCOUNT_ID)).thenReturn(optional);	
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		when(launchRepository.findBalancesAfter(ACCOUNT_ID, LocalDate.of(2020, 7, 9), PageRequest.of(0, 1)))
+			.thenReturn(Arrays.asList(formatBigDecimalScale(38.70)));
+		service.includeLaunch(launch);
+		assertEquals(formatBigDecimalScale(33.50), launch.getBalanceAfter());
+		verify(launchRepository, times(1)).addToBalancesAfter(ACCOUNT_ID, LocalDate.of(2020, 7, 9), formatBigDecimalScale(5.20).negate());
+	}
+	
+	@Test
+	public void includeLaunchFirstBalanceAfterTest() {
+		Launch launch = createLaunch(LaunchType.INBOUND, 10.00, LocalDate.of(2020, 7, 9));
+		final Optional<Account> optional = Optional.of(account);	
+		when(repository.findById(ACCOUNT_ID)).thenReturn(optional);	
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		service.includeLaunch(launch);
+		assertEquals(formatBigDecimalScale(30.50), launch.getBalanceAfter()); //saldo inicial da conta + lançamento
+		verify(launchRepository, times(1)).addToBalancesAfter(ACCOUNT_ID, LocalDate.of(2020, 7, 9), formatBigDecimalScale(10.00));
+	}
+	
+	@Test
+	public void includeLaunchNullBalanceAfterTest() {
+		final Optional<Account> optional = Optional.of(account);	
+		when(repository.findById(ACCOUNT_ID)).thenReturn(optional);	
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		service.includeLaunch(null);
+		verify(launchRepository, times(0)).addToBalancesAfter(any(), any(), any());
+	}
+	
 	@Test
 	public void getBalanceTest() {
-		account.includeLaunch(createLaunch(LaunchType.INBOUND, 20.00, LocalDate.of(2020, 7, 9)));
-		account.includeLaunch(createLaunch(LaunchType.INBOUND, 18.70, LocalDate.of(2020, 7, 9)));
-		account.includeLaunch(createLaunch(LaunchType.OUTBOUND, 5.20, LocalDate.of(2020, 7, 9)));
-		account.includeLaunch(createLaunch(LaunchType.INBOUND, 0.80, LocalDate.of(2020, 7, 9)));
-		account.includeLaunch(createLaunch(LaunchType.OUTBOUND, 5.20, LocalDate.of(2020, 7, 11))); //Não deve ser considerado no cálculo
-		account.includeLaunch(createLaunch(LaunchType.OUTBOUND, 5.20, LocalDate.of(2020, 7, 11))); //Não deve ser considerado no cálculo
 		final Optional<Account> optional = Optional.of(account);	
 		when(repository.findById(ACCOUNT_ID)).thenReturn(optional);
 		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		when(launchRepository.findBalancesAfter(ACCOUNT_ID, LocalDate.of(2020, 7, 10), PageRequest.of(0, 1)))
+			.thenReturn(Arrays.asList(formatBigDecimalScale(54.80)));
 		BigDecimal valueReturned = service.getBalance(LocalDate.of(2020, 7, 10).format(formatter));
 		assertNotNull(valueReturned);
 		assertEquals(formatBigDecimalScale(54.80), valueReturned);	
+		verify(launchRepository, times(1)).findBalancesAfter(eq(ACCOUNT_ID), eq(LocalDate.of(2020, 7, 10)), any());
+	}
+	
+	@Test
+	public void getBalanceWithoutLaunchesTest() {
+		final Optional<Account> optional = Optional.of(account);	
+		when(repository.findById(ACCOUNT_ID)).thenReturn(optional);
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		BigDecimal valueReturned = service.getBalance(LocalDate.of(2020, 7, 10).format(formatter));
+		assertNotNull(valueReturned);
+		assertEquals(formatBigDecimalScale(20.50), valueReturned);	
 	}
 	
 	@Test
@@ -153,21 +296,139 @@ public class AccountServiceTest {
 	
 	@Test
 	public void getLaunchesTest() {
-		account.includeLaunch(createLaunch(LaunchType.INBOUND, 20.00, LocalDate.of(2020, 7, 6)));
-		account.includeLaunch(createLaunch(LaunchType.INBOUND, 18.70, LocalDate.of(2020, 7, 7)));
-		account.includeLaunch(createLaunch(LaunchType.OUTBOUND, 5.20, LocalDate.of(2020, 7, 8)));
-		account.includeLaunch(createLaunch(LaunchType.INBOUND, 0.80, LocalDate.of(2020, 7, 9)));
-		account.includeLaunch(createLaunch(LaunchType.OUTBOUND, 7.20, LocalDate.of(2020, 7, 10))); 
-		account.includeLaunch(createLaunch(LaunchType.OUTBOUND, 5.20, LocalDate.of(2020, 7, 11)));
-		final Optional<Account> optional = Optional.of(account);	
-		when(repository.findById(ACCOUNT_ID)).thenReturn(optional);	
+		final Launch launch1 = createLaunch(LaunchType.OUTBOUND, 5.20, LocalDate.of(2020, 7, 8));
+		final Launch launch2 = createLaunch(LaunchType.INBOUND, 0.80, LocalDate.of(2020, 7, 9));
+		final Launch launch3 = createLaunch(LaunchType.OUTBOUND, 7.20, LocalDate.of(2020, 7, 10));
+		ReflectionTestUtils.setField(service, "maxPageSize", 1000);
+		ReflectionTestUtils.setField(launch2, "id", 12L);
 		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
-		final List<Launch> launches = service.getLaunches(LocalDate.of(2020, 7, 8).format(formatter), 
-				LocalDate.of(2020, 7, 10).format(formatter));
+		when(launchRepository.findByAccountIdAndDateBetween(ACCOUNT_ID, LocalDate.of(2020, 7, 8), LocalDate.of(2020, 7, 10), 
+				LocalDate.of(2020, 7, 8), 0L, PageRequest.of(0, 3)))
+			.thenReturn(Arrays.asList(launch1, launch2, launch3));
+		final KeysetPage<Launch> launches = service.getLaunches(LocalDate.of(2020, 7, 8).format(formatter), 
+				LocalDate.of(2020, 7, 10).format(formatter), null, 2);
 		assertNotNull(launches);
-		assertEquals(3, launches.size());	
-		assertEquals(formatBigDecimalScale(5.20), launches.get(0).getValue());
-		assertEquals(formatBigDecimalScale(7.20), launches.get(2).getValue());
+		assertEquals(2, launches.getContent().size());	
+		assertEquals(formatBigDecimalScale(5.20), launches.getContent().get(0).getValue());
+		assertEquals(new PageCursor(LocalDate.of(2020, 7, 9), 12L), launches.getNextCursor());
+	}
+	
+	@Test
+	public void getLaunchesWithCursorTest() {
+		final Launch launch3 = createLaunch(LaunchType.OUTBOUND, 7.20, LocalDate.of(2020, 7, 10));
+		final String cursor = new PageCursor(LocalDate.of(2020, 7, 9), 12L).encode();
+		ReflectionTestUtils.setField(service, "maxPageSize", 1000);
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		when(launchRepository.findByAccountIdAndDateBetween(ACCOUNT_ID, LocalDate.of(2020, 7, 8), LocalDate.of(2020, 7, 10), 
+				LocalDate.of(2020, 7, 9), 12L, PageRequest.of(0, 3)))
+			.thenReturn(Arrays.asList(launch3));
+		final KeysetPage<Launch> launches = service.getLaunches(LocalDate.of(2020, 7, 8).format(formatter), 
+				LocalDate.of(2020, 7, 10).format(formatter), cursor, 2);
+		assertEquals(1, launches.getContent().size());	
+		assertEquals(formatBigDecimalScale(7.20), launches.getContent().get(0).getValue());
+		assertNull(launches.getNextCursor());
+	}
+	
+	@Test
+	public void getLaunchesPageSizeLimitTest() {
+		ReflectionTestUtils.setField(service, "maxPageSize", 5);
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		service.getLaunches("2020-07-08", "2020-07-10", null, 50);
+		verify(launchRepository, times(1)).findByAccountIdAndDateBetween(ACCOUNT_ID, LocalDate.of(2020, 7, 8), 
+				LocalDate.of(2020, 7, 10), LocalDate.of(2020, 7, 8), 0L, PageRequest.of(0, 6));
+	}
+	
+	@Test(expected = InvalidPageCursor.class)
+	public void getLaunchesWithInvalidCursorTest() {
+		service.getLaunches("2020-07-08", "2020-07-10", "invalido", 2);
+	}
+	
+	@Test
+	public void exportLaunchesTest() {
+		final Launch launch1 = createLaunch(LaunchType.INBOUND, 20.00, LocalDate.of(2020, 7, 6));
+		final Launch launch2 = createLaunch(LaunchType.OUTBOUND, 5.20, LocalDate.of(2020, 7, 8));
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		when(launchRepository.streamByAccountIdAndDateBetween(ACCOUNT_ID, LocalDate.of(2020, 7, 1), LocalDate.of(2020, 7, 31)))
+			.thenReturn(Stream.of(launch1, launch2));
+		final List<Launch> exported = new ArrayList<>();
+		service.exportLaunches("2020-07-01", "2020-07-31", exported::add);
+		assertEquals(Arrays.asList(launch1, launch2), exported);
+		verify(entityManager, times(1)).detach(launch1);
+		verify(entityManager, times(1)).detach(launch2);
+	}
+	
+	@Test
+	public void includeLaunchesTest() {
+		final Launch launch1 = createLaunch(LaunchType.INBOUND, 10.00, LocalDate.of(2020, 7, 10));
+		final Launch launch2 = createLaunch(LaunchType.OUTBOUND, 30.00, LocalDate.of(2020, 7, 11));
+		final Launch launch3 = createLaunch(null, 1.00, LocalDate.of(2020, 7, 11));
+		final Launch launch4 = createLaunch(LaunchType.OUTBOUND, 5.20, LocalDate.of(2020, 7, 12));
+		when(repository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		when(launchRepository.findLastDate(ACCOUNT_ID)).thenReturn(LocalDate.of(2020, 7, 9));
+		when(launchRepository.findBalancesAfter(ACCOUNT_ID, LocalDate.of(2020, 7, 9), PageRequest.of(0, 1)))
+			.thenReturn(Arrays.asList(formatBigDecimalScale(38.70)));
+		final List<LaunchOutcome> outcomes = service.includeLaunches(Arrays.asList(launch1, launch2, launch3, launch4), 10);
+		assertEquals(4, outcomes.size());
+		assertTrue(outcomes.get(0).isAccepted());
+		assertFalse(outcomes.get(1).isAccepted());
+		assertEquals(ExceptionMessage.MESSAGE_ACCOUNT_BALANACE_NOT_AVAILABLE.getValue(), outcomes.get(1).getMessage());
+		assertFalse(outcomes.get(2).isAccepted());
+		assertEquals(ExceptionMessage.MESSAGE_LAUNCH_INCOMPLETE.getValue(), outcomes.get(2).getMessage());
+		assertTrue(outcomes.get(3).isAccepted());
+		assertEquals(13, outcomes.get(3).getIndex());
+		assertEquals(2, account.getLaunches().size());
+		assertEquals(formatBigDecimalScale(48.70), launch1.getBalanceAfter());
+		assertEquals(formatBigDecimalScale(43.50), launch4.getBalanceAfter());
+		verify(launchRepository, times(0)).addToBalancesAfter(any(), any(), any());
+		verify(entityManager, times(1)).flush();
+		verify(entityManager, times(1)).clear();
+	}
+	
+	@Test
+	public void includeLaunchesBackdatedTest() {
+		final Launch launch1 = createLaunch(LaunchType.INBOUND, 10.00, LocalDate.of(2020, 7, 10));
+		final Launch launch2 = createLaunch(LaunchType.OUTBOUND, 5.20, LocalDate.of(2020, 7, 5));
+		final Launch launch3 = createLaunch(LaunchType.INBOUND, 1.00, LocalDate.of(2020, 7, 11));
+		when(repository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		when(launchRepository.findLastDate(ACCOUNT_ID)).thenReturn(LocalDate.of(2020, 7, 9));
+		when(launchRepository.findBalancesAfter(ACCOUNT_ID, LocalDate.of(2020, 7, 9), PageRequest.of(0, 1)))
+			.thenReturn(Arrays.asList(formatBigDecimalScale(38.70)));
+		when(launchRepository.findBalancesAfter(ACCOUNT_ID, LocalDate.of(2020, 7, 5), PageRequest.of(0, 1)))
+			.thenReturn(Arrays.asList(formatBigDecimalScale(25.00)));
+		final List<LaunchOutcome> outcomes = service.includeLaunches(Arrays.asList(launch1, launch2, launch3), 0);
+		assertTrue(outcomes.stream().allMatch(LaunchOutcome::isAccepted));
+		assertEquals(formatBigDecimalScale(48.70), launch1.getBalanceAfter());
+		assertEquals(formatBigDecimalScale(19.80), launch2.getBalanceAfter());
+		assertEquals(formatBigDecimalScale(44.50), launch3.getBalanceAfter());
+		verify(launchRepository, times(1)).addToBalancesAfter(ACCOUNT_ID, LocalDate.of(2020, 7, 5), formatBigDecimalScale(5.20).negate());
+	}
+	
+	@Test
+	public void includeLaunchesOutboundExceedingRunningBalanceTest() {
+		final Launch launch1 = createLaunch(LaunchType.OUTBOUND, 10.00, LocalDate.of(2020, 7, 10));
+		final Launch launch2 = createLaunch(LaunchType.OUTBOUND, 10.00, LocalDate.of(2020, 7, 11));
+		final Launch launch3 = createLaunch(LaunchType.OUTBOUND, 5.00, LocalDate.of(2020, 7, 12));
+		when(repository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+		when(securityUtils.getCurrentUser()).thenReturn(userAdmin);
+		when(launchRepository.findLastDate(ACCOUNT_ID)).thenReturn(LocalDate.of(2020, 7, 9));
+		when(launchRepository.findBalancesAfter(ACCOUNT_ID, LocalDate.of(2020, 7, 9), PageRequest.of(0, 1)))
+			.thenReturn(Arrays.asList(formatBigDecimalScale(15.00)));
+		final List<LaunchOutcome> outcomes = service.includeLaunches(Arrays.asList(launch1, launch2, launch3), 0);
+		assertTrue(outcomes.get(0).isAccepted());
+		assertFalse(outcomes.get(1).isAccepted());
+		assertEquals(ExceptionMessage.MESSAGE_ACCOUNT_BALANACE_NOT_AVAILABLE.getValue(), outcomes.get(1).getMessage());
+		assertTrue(outcomes.get(2).isAccepted());
+		assertEquals(2, account.getLaunches().size());
+		assertEquals(formatBigDecimalScale(0.00), launch3.getBalanceAfter());
+		verify(reservationLedger, times(1)).applyOnCommit(Account.class, ACCOUNT_ID, FixedPoint.ofMoney(formatBigDecimalScale(15.00).negate()));
+	}
+	
+	@Test(expected = AuthorizationException.class)
+	public void includeLaunchesWithUserAdminTest() {
+		when(securityUtils.currentUserIsAdmin()).thenReturn(Boolean.TRUE);
+		service.includeLaunches(Arrays.asList(createLaunch(LaunchType.INBOUND, 10.00, LocalDate.of(2020, 7, 9))), 0);
 	}
 	
 	private BigDecimal formatBigDecimalScale(Double returnedValue) {
@@ -0,0 +1,185 @@
+package com.maps.financial.domain.account;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.maps.financial.domain.user.JobFunction;
+import com.maps.financial.domain.user.User;
+import com.maps.financial.exceptions.AuthorizationException;
+import com.maps.financial.exceptions.ObjectNotFoundException;
+import com.maps.financial.infra.security.SecurityUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StatementServiceTest {
+	
+	@Mock
+	private StatementRepository repository;
+	
+	@Mock
+	private AccountRepository accountRepository;
+	
+	@Mock
+	private LaunchRepository launchRepository;
+	
+	@Mock
+	private SecurityUtils securityUtils;
+	
+	@Mock
+	private PlatformTransactionManager transactionManager;
+	
+	@Mock
+	private EntityManager entityManager;
+	
+	@InjectMocks
+	private StatementService service;
+	
+	private static final Long ACCOUNT_ID = 1L;
+	private ExecutorService executor;
+	private Account account;
+	
+	@Before
+	public void init() {
+		executor = Executors.newFixedThreadPool(2);
+		ReflectionTestUtils.setField(service, "statementExecutor", executor);
+		account = Account.builder().id(ACCOUNT_ID).balance(new BigDecimal("20.50")).build();
+	}
+	
+	@After
+	public void shutdown() {
+		executor.shutdown();
+	}
+	
+	@Test
+	public void sweepTest() {
+		final List<Launch> launches = Arrays.asList(
+				createLaunch(LaunchType.INBOUND, "20.00", LocalDate.of(2020, 5, 4)),
+				createLaunch(LaunchType.OUTBOUND, "5.20", LocalDate.of(2020, 5, 29)),
+				createLaunch(LaunchType.INBOUND, "0.80", LocalDate.of(2020, 7, 1)),
+				createLaunch(LaunchType.OUTBOUND, "10.10", LocalDate.of(2020, 7, 31)));
+		final List<Statement> statements = StatementSweep.sweep(account, 2050L, YearMonth.of(2020, 5), 
+				YearMonth.of(2020, 8), launches.iterator());
+		
+		assertEquals(4, statements.size());
+		assertStatement(statements.get(0), LocalDate.of(2020, 5, 1), "20.50", "20.00", "5.20", "35.30", 2);
+		assertStatement(statements.get(1), LocalDate.of(2020, 6, 1), "35.30", "0.00", "0.00", "35.30", 0);
+		assertStatement(statements.get(2), LocalDate.of(2020, 7, 1), "35.30", "0.80", "10.10", "26.00", 2);
+		assertStatement(statements.get(3), LocalDate.of(2020, 8, 1), "26.00", "0.00", "0.00", "26.00", 0);
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void generateForAccountTest() {
+		when(accountRepository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+		when(launchRepository.findBalancesAfter(ACCOUNT_ID, LocalDate.of(2020, 6, 30), PageRequest.of(0, 1)))
+			.thenReturn(Arrays.asList(new BigDecimal("100.00")));
+		when(launchRepository.streamByAccountIdAndDateBetween(ACCOUNT_ID, LocalDate.of(2020, 7, 1), LocalDate.of(2020, 8, 31)))
+			.thenReturn(Stream.of(createLaunch(LaunchType.OUTBOUND, "30.00", LocalDate.of(2020, 8, 3))));
+		
+		assertEquals(2, service.generateForAccount(ACCOUNT_ID, YearMonth.of(2020, 7), YearMonth.of(2020, 8)));
+		final ArgumentCaptor<List<Statement>> captor = ArgumentCaptor.forClass(List.class);
+		verify(repository, times(1)).deleteByAccountIdAndPeriodBetween(ACCOUNT_ID, LocalDate.of(2020, 7, 1), LocalDate.of(2020, 8, 1));
+		verify(repository, times(1)).saveAll(captor.capture());
+		assertStatement(captor.getValue().get(0), LocalDate.of(2020, 7, 1), "100.00", "0.00", "0.00", "100.00", 0);
+		assertStatement(captor.getValue().get(1), LocalDate.of(2020, 8, 1), "100.00", "0.00", "30.00", "70.00", 1);
+		verify(entityManager, times(1)).detach(any(Launch.class));
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void generateForAccountWithoutPreviousLaunchesTest() {
+		when(accountRepository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+		when(launchRepository.streamByAccountIdAndDateBetween(ACCOUNT_ID, LocalDate.of(2020, 7, 1), LocalDate.of(2020, 7, 31)))
+			.thenReturn(Stream.empty());
+		service.generateForAccount(ACCOUNT_ID, YearMonth.of(2020, 7), YearMonth.of(2020, 7));
+		final ArgumentCaptor<List<Statement>> captor = ArgumentCaptor.forClass(List.class);
+		verify(repository, times(1)).saveAll(captor.capture());
+		assertStatement(captor.getValue().get(0), LocalDate.of(2020, 7, 1), "20.50", "0.00", "0.00", "20.50", 0); //saldo inicial da conta
+	}
+	
+	@Test
+	public void generateAllAccountsTest() {
+		final Account otherAccount = Account.builder().id(2L).balance(new BigDecimal("5.00")).build();
+		when(accountRepository.findAllIds()).thenReturn(Arrays.asList(ACCOUNT_ID, 2L));
+		when(accountRepository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+		when(accountRepository.findById(2L)).thenReturn(Optional.of(otherAccount));
+		when(launchRepository.streamByAccountIdAndDateBetween(any(), any(), any())).thenAnswer(invocation -> Stream.empty());
+		assertEquals(6, service.generate(YearMonth.of(2020, 5), YearMonth.of(2020, 7)));
+		verify(repository, times(2)).saveAll(any());
+	}
+	
+	@Test(expected = ObjectNotFoundException.class)
+	public void generateWithFailedAccountTest() {
+		when(accountRepository.findAllIds()).thenReturn(Arrays.asList(ACCOUNT_ID));
+		service.generate(YearMonth.of(2020, 5), YearMonth.of(2020, 7));
+	}
+	
+	@Test(expected = AuthorizationException.class)
+	public void generateStatementsWithUserNotAdminTest() {
+		when(securityUtils.currentUserIsAdmin()).thenReturn(Boolean.FALSE);
+		service.generateStatements("2020-05", "2020-07");
+	}
+	
+	@Test
+	public void getStatementTest() {
+		final User user = User.builder().jobFunction(JobFunction.USER).build();
+		user.setAccount(account);
+		final Statement statement = Statement.builder().account(account).period(LocalDate.of(2020, 7, 1)).build();
+		when(securityUtils.getCurrentUser()).thenReturn(user);
+		when(repository.findByAccountIdAndPeriod(ACCOUNT_ID, LocalDate.of(2020, 7, 1))).thenReturn(Optional.of(statement));
+		assertEquals(statement, service.getStatement("2020-07"));
+	}
+	
+	@Test(expected = ObjectNotFoundException.class)
+	public void getStatementNotGeneratedTest() {
+		final User user = User.builder().jobFunction(JobFunction.USER).build();
+		user.setAccount(account);
+		when(securityUtils.getCurrentUser()).thenReturn(user);
+		service.getStatement("2020-07");
+	}
+	
+	private void assertStatement(Statement statement, LocalDate period, String opening, String inbound, 
+			String outbound, String closing, int count) {
+		assertEquals(period, statement.getPeriod());
+		assertEquals(new BigDecimal(opening), statement.getOpeningBalance());
+		assertEquals(new BigDecimal(inbound), statement.getTotalInbound());
+		assertEquals(new BigDecimal(outbound), statement.getTotalOutbound());
+		assertEquals(new BigDecimal(closing), statement.getClosingBalance());
+		assertEquals(count, statement.getLaunchCount());
+	}
+	
+	private Launch createLaunch(LaunchType type, String value, LocalDate date) {
+		return Launch.builder()
+				.type(type)
+				.value(new BigDecimal(value))
+				.date(date)
+				.build();
+	}
+
+}
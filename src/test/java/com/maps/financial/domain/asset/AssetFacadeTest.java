@@ -1,20 +1,35 @@
 package com.maps.financial.domain.asset;
 
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import com.maps.financial.domain.commons.OptimisticRetry;
 import com.maps.financial.domain.account.AccountFacade;
+import com.maps.financial.exceptions.ObjectNotFoundException;
+import com.maps.financial.exceptions.SubmissionTimeout;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @RunWith(MockitoJUnitRunner.class)
 public class AssetFacadeTest {
@@ -28,6 +43,10 @@ public class AssetFacadeTest {
 	@Mock
 	private AccountFacade accountFacade;
 	
+	@Spy
+	private OptimisticRetry optimisticRetry = new OptimisticRetry(Mockito.mock(PlatformTransactionManager.class), 
+			new SimpleMeterRegistry(), 3, Duration.ZERO, Duration.ZERO);
+	
 	private static final Long ASSET_ID = 1L;
 	private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 	private Asset asset;
@@ -110,12 +129,38 @@ public class AssetFacadeTest {
 		verify(service, times(1)).excludeMarketPrice(ASSET_ID, date);
 	}
 	
+	@Test
+	public void getPositionsTest() {
+		LocalDate date = LocalDate.now();
+		facade.getPositions(date);
+		verify(service, times(1)).getPositions(date);
+	}
+	
+	@Test
+	public void closePositionsTest() {
+		LocalDate date = LocalDate.now();
+		when(service.findAllIds()).thenReturn(Arrays.asList(1L, 2L));
+		doThrow(new ObjectNotFoundException(1L, Asset.class)).when(service).closePosition(1L, date);
+		facade.closePositions(date);
+		verify(service, times(1)).closePosition(1L, date);
+		verify(service, times(1)).closePosition(2L, date);
+	}
+	
 	@Test
 	public void getMovementsTest() {
 		String dateBegin = LocalDate.now().format(formatter);
 		String dateEnd = LocalDate.now().format(formatter);
-		facade.getMovements(ASSET_ID, dateBegin, dateEnd);
-		verify(service, times(1)).getMovements(ASSET_ID, dateBegin, dateEnd);
+		facade.getMovements(ASSET_ID, dateBegin, dateEnd, MovementType.BUY, null, 10);
+		verify(service, times(1)).getMovements(ASSET_ID, dateBegin, dateEnd, MovementType.BUY, null, 10);
+	}
+	
+	@Test
+	public void exportMovementsTest() {
+		String dateBegin = LocalDate.now().format(formatter);
+		String dateEnd = LocalDate.now().format(formatter);
+		Consumer<AssetMovement> consumer = movement -> { };
+		facade.exportMovements(ASSET_ID, dateBegin, dateEnd, consumer);
+		verify(service, times(1)).exportMovements(ASSET_ID, dateBegin, dateEnd, consumer);
 	}
 	
 	@Test
@@ -126,6 +171,16 @@ public class AssetFacadeTest {
 		verify(service, times(1)).includeMovementByAssetId(ASSET_ID, movement);
 	}
 	
+	@Test(expected = SubmissionTimeout.class)
+	public void includeMovementWithQueueTimeoutTest() {
+		AssetMovement movement = AssetMovement.builder().build();
+		MovementQueue movementQueue = Mockito.mock(MovementQueue.class);
+		when(movementQueue.submit(ASSET_ID, movement)).thenReturn(new CompletableFuture<>());
+		ReflectionTestUtils.setField(facade, "movementQueue", movementQueue);
+		ReflectionTestUtils.setField(facade, "movementQueueTimeout", Duration.ofMillis(10));
+		facade.includeMovement(ASSET_ID, movement);
+	}
+	
 	private Asset createAsset() {
 		return Asset.builder()
 				.id(ASSET_ID)
@@ -1,26 +1,52 @@
 package com.maps.financial.domain.asset;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.lang.reflect.Field;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
+
+import org.hibernate.Hibernate;
+import org.hibernate.collection.internal.PersistentBag;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.maps.financial.domain.commons.KeysetPage;
+import com.maps.financial.domain.commons.LockRegistry;
+import com.maps.financial.domain.commons.PageCursor;
+import com.maps.financial.domain.commons.ReservationLedger;
 import com.maps.financial.exceptions.AssetQuantityNotAvailable;
 import com.maps.financial.exceptions.AuthorizationException;
 import com.maps.financial.exceptions.IssueDateNotBeforeDueDate;
@@ -34,9 +60,27 @@ public class AssetServiceTest {
 	@Mock
 	private AssetRepository repository;
 	
+	@Mock
+	private AssetMovementRepository movementRepository;
+	
 	@Mock
 	private SecurityUtils securityUtils;
 	
+	@Mock
+	private DailyPositionService dailyPositionService;
+	
+	@Mock
+	private EntityManager entityManager;
+	
+	@Mock
+	private LockRegistry lockRegistry;
+	
+	@Mock
+	private ReservationLedger reservationLedger;
+	
+	@Spy
+	private PositionCache positionCache = new PositionCache(100, Duration.ofMinutes(5));
+	
 	@InjectMocks
 	private AssetService service;
 	
@@ -88,6 +132,16 @@ public class AssetServiceTest {
 		final Asset assetReturned = service.create(asset);			
 		assertEquals(asset, assetReturned);	
 		verify(repository, times(1)).save(asset);
+		verify(reservationLedger, times(1)).observe(Asset.class, ASSET_ID, 0L);
+	}
+	
+	@Test
+	public void loadAvailableQuantitiesTest() {
+		when(repository.findPositionTotals(LocalDate.now())).thenReturn(Arrays.asList(
+				new AssetPositionTotals(ASSET_ID, "ATIVO", AssetType.RF, new BigDecimal("5.5"), new BigDecimal("2.25"), 
+						BigDecimal.ZERO, BigDecimal.ZERO, null)));
+		service.loadAvailableQuantities();
+		verify(reservationLedger, times(1)).observe(Asset.class, ASSET_ID, 325000000L);
 	}
 	
 	@Test(expected = AuthorizationException.class)
@@ -172,8 +226,11 @@ public class AssetServiceTest {
 		final Optional<Asset> optional = Optional.of(asset);
 		when(repository.findById(ASSET_ID)).thenReturn(optional);
 		when(securityUtils.currentUserIsAdmin()).thenReturn(Boolean.TRUE);
+		positionCache.invalidate(ASSET_ID);
 		service.delete(ASSET_ID);		
+		verify(dailyPositionService, times(1)).deleteByAssetId(ASSET_ID);
 		verify(repository, times(1)).delete(asset);
+		assertEquals(0, positionCache.trackedGenerations());
 	}
 	
 	@Test(expected = AuthorizationException.class)
@@ -194,6 +251,77 @@ public class AssetServiceTest {
 		assertEquals(movement, assetReturned.getMovements().get(0));	
 	}
 	
+	@Test
+	public void includeMovementByAssetNameTest() {
+		when(repository.findIdByName("ATIVO")).thenReturn(ASSET_ID);
+		when(repository.findById(ASSET_ID)).thenReturn(Optional.of(asset));
+		when(securityUtils.currentUserIsAdmin()).thenReturn(Boolean.FALSE);
+		AssetMovement movement = createAssetMovement(1L, MovementType.BUY, 1.00, 1.00, LocalDate.of(2020, 7, 10));
+		Asset assetReturned = service.includeMovementByAssetName("ATIVO", movement);
+		assertEquals(1, assetReturned.getMovements().size());
+		InOrder inOrder = inOrder(lockRegistry, repository);
+		inOrder.verify(lockRegistry).lock(Asset.class, ASSET_ID);
+		inOrder.verify(repository).findById(ASSET_ID);
+	}
+	
+	@Test(expected = ObjectNotFoundException.class)
+	public void includeMovementByAssetNameNotFoundTest() {
+		AssetMovement movement = createAssetMovement(1L, MovementType.BUY, 1.00, 1.00, LocalDate.of(2020, 7, 10));
+		service.includeMovementByAssetName("ATIVO", movement);
+	}
+	
+	@Test
+	public void reserveMovementSellTest() {
+		AssetMovement movement = createAssetMovement(1L, MovementType.SELL, 2.00, 1.00, LocalDate.of(2020, 7, 10));
+		when(reservationLedger.tryReserve(Asset.class, ASSET_ID, 200000000L)).thenReturn(Boolean.TRUE);
+		service.reserveMovement(ASSET_ID, movement);
+		verify(reservationLedger, times(1)).tryReserve(Asset.class, ASSET_ID, 200000000L);
+	}
+	
+	@Test
+	public void reserveMovementBuyTest() {
+		AssetMovement movement = createAssetMovement(1L, MovementType.BUY, 2.00, 1.00, LocalDate.of(2020, 7, 10));
+		service.reserveMovement(ASSET_ID, movement);
+		verify(reservationLedger, never()).tryReserve(any(), any(), anyLong());
+	}
+	
+	@Test
+	public void reserveMovementSellWithoutQuantityTest() {
+		AssetMovement movement = createAssetMovement(1L, MovementType.SELL, 2.00, 1.00, LocalDate.of(2020, 7, 10));
+		try {
+			service.reserveMovement(ASSET_ID, movement);
+		} catch (AssetQuantityNotAvailable e) {
+			verify(repository, never()).findById(any());
+			return;
+		}
+		throw new AssertionError("AssetQuantityNotAvailable esperada");
+	}
+	
+	@Test
+	public void prevalidateMovementTest() {
+		AssetMovement movement = createAssetMovement(1L, MovementType.SELL, 2.00, 1.00, LocalDate.of(2020, 7, 10));
+		when(repository.findIdByName("ATIVO")).thenReturn(ASSET_ID);
+		when(reservationLedger.isAvailable(Asset.class, ASSET_ID, 200000000L)).thenReturn(Boolean.TRUE);
+		assertEquals(ASSET_ID, service.prevalidateMovement("ATIVO", movement));
+		verify(repository, never()).findById(any());
+		verify(reservationLedger, never()).tryReserve(any(), any(), anyLong());
+	}
+	
+	@Test(expected = AssetQuantityNotAvailable.class)
+	public void prevalidateMovementSellWithoutQuantityTest() {
+		AssetMovement movement = createAssetMovement(1L, MovementType.SELL, 2.00, 1.00, LocalDate.of(2020, 7, 10));
+		when(repository.findIdByName("ATIVO")).thenReturn(ASSET_ID);
+		when(reservationLedger.isAvailable(Asset.class, ASSET_ID, 200000000L)).thenReturn(Boolean.FALSE);
+		service.prevalidateMovement("ATIVO", movement);
+	}
+	
+	@Test(expected = MovementNotAllowedInDate.class)
+	public void prevalidateMovementInWeekendTest() {
+		AssetMovement movement = createAssetMovement(1L, MovementType.BUY, 2.00, 1.00, LocalDate.of(2020, 7, 11));
+		when(repository.findIdByName("ATIVO")).thenReturn(ASSET_ID);
+		service.prevalidateMovement("ATIVO", movement);
+	}
+	
 	@Test(expected = AssetQuantityNotAvailable.class)
 	public void includeMovementSellWithoutQuantityTest() {
 		final Optional<Asset> optional = Optional.of(asset);
@@ -352,6 +480,23 @@ public class AssetServiceTest {
 		assertEquals(formatBigDecimalScale(40.00), assetReturned.getTotalMarketPrice(LocalDate.of(2020, 7, 10)));
 	}
 	
+	@Test
+	public void getTotalMarketPriceAsOfDateTest() {
+		addMovements();
+		asset.includeMarketPrice(new BigDecimal(2.00), LocalDate.of(2020, 7, 8));
+		asset.includeMarketPrice(new BigDecimal(3.00), LocalDate.of(2020, 7, 20));
+		final Optional<Asset> optional = Optional.of(asset);
+		when(repository.findById(ASSET_ID)).thenReturn(optional);
+		assertEquals(formatBigDecimalScale(0.00), service.getTotalMarketPrice(ASSET_ID, LocalDate.of(2020, 6, 20)));
+		assertEquals(formatBigDecimalScale(4.50), service.getTotalMarketPrice(ASSET_ID, LocalDate.of(2020, 7, 7)));
+		assertEquals(formatBigDecimalScale(9.62), service.getTotalMarketPrice(ASSET_ID, LocalDate.of(2020, 7, 10)));
+		assertEquals(formatBigDecimalScale(2.08), service.getIncome(ASSET_ID, LocalDate.of(2020, 7, 10)));
+		
+		service.excludeMarketPrice(ASSET_ID, LocalDate.of(2020, 7, 8).format(formatter));
+		assertEquals(2, asset.getMarketPrices().size());
+		assertEquals(formatBigDecimalScale(4.81), service.getTotalMarketPrice(ASSET_ID, LocalDate.of(2020, 7, 10)));
+	}
+	
 	@Test
 	public void getTotalQuantityTest() {
 		addMovements();
@@ -443,17 +588,437 @@ public class AssetServiceTest {
 	
 	@Test
 	public void getMovementsTest() {
+		final AssetMovement movement1 = createAssetMovement(2L, MovementType.BUY, 5.20, 5.15, LocalDate.of(2020, 7, 8));
+		final AssetMovement movement2 = createAssetMovement(3L, MovementType.SELL, 1.75, 10.65, LocalDate.of(2020, 7, 9));
+		final AssetMovement movement3 = createAssetMovement(4L, MovementType.SELL, 3.15, 3.60, LocalDate.of(2020, 7, 10));
+		ReflectionTestUtils.setField(service, "maxPageSize", 1000);
+		when(repository.existsById(ASSET_ID)).thenReturn(Boolean.TRUE);
+		when(movementRepository.findByAssetIdAndDateBetween(ASSET_ID, LocalDate.of(2020, 7, 8), LocalDate.of(2020, 7, 10), 
+				LocalDate.of(2020, 7, 8), 0L, PageRequest.of(0, 3)))
+			.thenReturn(Arrays.asList(movement1, movement2, movement3));
+		KeysetPage<AssetMovement> movementsReturned = service.getMovements(ASSET_ID, "2020-07-08", "2020-07-10", null, null, 2);
+		assertNotNull(movementsReturned);
+		assertEquals(2, movementsReturned.getContent().size());	
+		assertEquals(formatBigDecimalScale(5.15), movementsReturned.getContent().get(0).getValue());
+		assertEquals(new PageCursor(LocalDate.of(2020, 7, 9), 3L), movementsReturned.getNextCursor());
+	}
+	
+	@Test
+	public void getMovementsByTypeWithCursorTest() {
+		final AssetMovement movement = createAssetMovement(4L, MovementType.SELL, 3.15, 3.60, LocalDate.of(2020, 7, 10));
+		final String cursor = new PageCursor(LocalDate.of(2020, 7, 9), 3L).encode();
+		ReflectionTestUtils.setField(service, "maxPageSize", 1000);
+		when(repository.existsById(ASSET_ID)).thenReturn(Boolean.TRUE);
+		when(movementRepository.findByAssetIdAndTypeAndDateBetween(ASSET_ID, MovementType.SELL, LocalDate.of(2020, 7, 8), 
+				LocalDate.of(2020, 7, 10), LocalDate.of(2020, 7, 9), 3L, PageRequest.of(0, 3)))
+			.thenReturn(Arrays.asList(movement));
+		KeysetPage<AssetMovement> movementsReturned = service.getMovements(ASSET_ID, "2020-07-08", "2020-07-10", 
+				MovementType.SELL, cursor, 2);
+		assertEquals(1, movementsReturned.getContent().size());	
+		assertEquals(formatBigDecimalScale(3.60), movementsReturned.getContent().get(0).getValue());
+		assertNull(movementsReturned.getNextCursor());
+	}
+	
+	@Test(expected = ObjectNotFoundException.class)
+	public void getMovementsWithObjectNotFoundExceptionTest() {
+		service.getMovements(2L, "2020-07-08", "2020-07-10", null, null, 10);
+	}
+	
+	@Test
+	public void exportMovementsTest() {
+		final AssetMovement movement1 = createAssetMovement(2L, MovementType.BUY, 5.20, 5.15, LocalDate.of(2020, 7, 8));
+		final AssetMovement movement2 = createAssetMovement(3L, MovementType.SELL, 1.75, 10.65, LocalDate.of(2020, 7, 9));
+		when(repository.existsById(ASSET_ID)).thenReturn(Boolean.TRUE);
+		when(movementRepository.streamByAssetIdAndDateBetween(ASSET_ID, LocalDate.of(2020, 7, 1), LocalDate.of(2020, 7, 31)))
+			.thenReturn(Stream.of(movement1, movement2));
+		final List<AssetMovement> exported = new ArrayList<>();
+		service.exportMovements(ASSET_ID, "2020-07-01", "2020-07-31", exported::add);
+		assertEquals(Arrays.asList(movement1, movement2), exported);
+		verify(entityManager, times(1)).detach(movement1);
+		verify(entityManager, times(1)).detach(movement2);
+	}
+	
+	@Test(expected = ObjectNotFoundException.class)
+	public void exportMovementsWithObjectNotFoundExceptionTest() {
+		service.exportMovements(2L, "2020-07-01", "2020-07-31", movement -> { });
+	}
+	
+	@Test
+	public void totalQuantityWithBackdatedMovementTest() {
 		addMovements();
-		String dateBegin = LocalDate.of(2020, 7, 8).format(formatter);
-		String dateEnd = LocalDate.of(2020, 7, 10).format(formatter);
 		final Optional<Asset> optional = Optional.of(asset);
 		when(repository.findById(ASSET_ID)).thenReturn(optional);
-		List<AssetMovement> movementsReturned = service.getMovements(ASSET_ID, dateBegin, dateEnd);
-		assertNotNull(movementsReturned);
-		assertEquals(3, movementsReturned.size());	
-		assertEquals(formatBigDecimalScale(5.15), movementsReturned.get(0).getValue());
-		assertEquals(formatBigDecimalScale(3.60), movementsReturned.get(2).getValue());
+		assertEquals(formatBigDecimalScale(4.81), service.getTotalQuantity(ASSET_ID, LocalDate.of(2020, 7, 10)));
+
+		//Movimentações incluídas após a criação do índice por data
+		asset.includeMovement(createAssetMovement(5L, MovementType.BUY, 2.35, 2.10, LocalDate.of(2020, 7, 9)));
+		asset.includeMovement(createAssetMovement(6L, MovementType.BUY, 1.00, 1.00, LocalDate.of(2020, 7, 13)));
+		positionCache.invalidate(ASSET_ID);
+		assertEquals(formatBigDecimalScale(7.16), service.getTotalQuantity(ASSET_ID, LocalDate.of(2020, 7, 10)));
+	}
+
+	@Test
+	public void runningTotalsMatchMovementsTest() {
+		addMovements();
+		final Optional<Asset> optional = Optional.of(asset);
+		when(repository.findById(ASSET_ID)).thenReturn(optional);
+		LocalDate date = LocalDate.of(2020, 7, 20);
+		BigDecimal quantityBuy = sumMovements(MovementType.BUY, date, false);
+		BigDecimal quantitySell = sumMovements(MovementType.SELL, date, false);
+		BigDecimal valueBuy = sumMovements(MovementType.BUY, date, true);
+		BigDecimal valueSell = sumMovements(MovementType.SELL, date, true);
+		BigDecimal averageValueBuy = valueBuy.divide(quantityBuy, BigDecimal.ROUND_DOWN).setScale(2, BigDecimal.ROUND_DOWN);
+		
+		assertEquals(quantityBuy.subtract(quantitySell), service.getTotalQuantity(ASSET_ID, date));
+		assertEquals(quantityBuy.subtract(quantitySell).multiply(VALUE_FIRST_MARKET_PRICE.setScale(8, BigDecimal.ROUND_DOWN))
+				.setScale(2, BigDecimal.ROUND_DOWN), service.getTotalMarketPrice(ASSET_ID, date));
+		assertEquals(VALUE_FIRST_MARKET_PRICE.setScale(8, BigDecimal.ROUND_DOWN).divide(averageValueBuy, BigDecimal.ROUND_DOWN)
+				.setScale(2, BigDecimal.ROUND_DOWN), service.getIncome(ASSET_ID, date));
+		assertEquals(valueSell.subtract(valueBuy).setScale(2, BigDecimal.ROUND_DOWN), service.getProfit(ASSET_ID, date));
+		assertEquals(service.getProfit(ASSET_ID, date), service.getProfit(ASSET_ID, LocalDate.of(2020, 8, 1)));
+	}
+	
+	@Test
+	public void runningTotalsWithThreeDecimalValueTest() {
+		final AssetMovement movement = AssetMovement.builder()
+				.type(MovementType.BUY)
+				.quantity(BigDecimal.ONE)
+				.value(new BigDecimal("1.235"))
+				.date(LocalDate.of(2020, 7, 10))
+				.build();
+		asset.includeMovement(movement);
+		when(repository.findById(ASSET_ID)).thenReturn(Optional.of(asset));
 		
+		//valor gravado na coluna DECIMAL(19,2): 1.24 (HALF_UP), e não 1.23 (truncado)
+		assertEquals(new BigDecimal("1.24"), movement.getValue());
+		assertEquals(new BigDecimal("-1.24"), service.getProfit(ASSET_ID, LocalDate.of(2020, 7, 20)));
+		assertEquals(new BigDecimal("1.24"), asset.getPosition(LocalDate.of(2020, 7, 20)).getAverageValueBuy());
+	}
+	
+	@Test
+	public void runningTotalsWithBackdatedMovementTest() {
+		addMovements();
+		asset.includeMovement(createAssetMovement(5L, MovementType.BUY, 2.35, 2.10, LocalDate.of(2020, 7, 8)));
+		final Optional<Asset> optional = Optional.of(asset);
+		when(repository.findById(ASSET_ID)).thenReturn(optional);
+		assertEquals(formatBigDecimalScale(7.16), service.getTotalQuantity(ASSET_ID, LocalDate.of(2020, 7, 10)));
+		assertEquals(sumMovements(MovementType.BUY, LocalDate.of(2020, 7, 20), false)
+				.subtract(sumMovements(MovementType.SELL, LocalDate.of(2020, 7, 20), false)), 
+				service.getTotalQuantity(ASSET_ID, LocalDate.of(2020, 7, 20)));
+	}
+	
+	@Test
+	public void historicalPositionWithBackdatedMovementsTest() {
+		addMovements();
+		final Optional<Asset> optional = Optional.of(asset);
+		when(repository.findById(ASSET_ID)).thenReturn(optional);
+		assertHistoricalPositionMatchesMovements();
+		
+		//Movimentações retroativas incluídas após a criação do índice por data, inclusive em data ainda sem movimentação
+		final Object index = ReflectionTestUtils.getField(asset, "movementIndex");
+		assertNotNull(index);
+		service.includeMovementByAssetId(ASSET_ID, createAssetMovement(5L, MovementType.BUY, 2.35, 2.10, LocalDate.of(2020, 7, 6)));
+		service.includeMovementByAssetId(ASSET_ID, createAssetMovement(6L, MovementType.SELL, 0.40, 0.90, LocalDate.of(2020, 7, 9)));
+		assertSame(index, ReflectionTestUtils.getField(asset, "movementIndex"));
+		assertHistoricalPositionMatchesMovements();
+		assertEquals(formatBigDecimalScale(6.76), service.getTotalQuantity(ASSET_ID, LocalDate.of(2020, 7, 10)));
+	}
+	
+	@Test
+	public void historicalPositionWithAppendedMovementsTest() {
+		addMovements();
+		final Optional<Asset> optional = Optional.of(asset);
+		when(repository.findById(ASSET_ID)).thenReturn(optional);
+		assertHistoricalPositionMatchesMovements();
+		
+		//Movimentações em novas datas posteriores à última (até o vencimento), incluídas no índice por data
+		long id = 10L;
+		for (LocalDate date = LocalDate.of(2020, 7, 21); date.isBefore(LocalDate.of(2020, 8, 8)); date = date.plusDays(1)) {
+			if (date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY) {
+				asset.includeMovement(createAssetMovement(id++, MovementType.BUY, 0.50, 0.55, date));
+			}
+		}
+		positionCache.invalidate(ASSET_ID);
+		assertHistoricalPositionMatchesMovements();
+		assertEquals(sumMovements(MovementType.BUY, LocalDate.of(2020, 8, 1), false)
+				.subtract(sumMovements(MovementType.SELL, LocalDate.of(2020, 8, 1), false)), 
+				service.getTotalQuantity(ASSET_ID, LocalDate.of(2020, 8, 1)));
+	}
+	
+	@Test
+	public void historicalPositionFromMovementRowsTest() throws Exception {
+		final Asset persistedAsset = Asset.builder()
+				.id(ASSET_ID)
+				.type(AssetType.RF)
+				.name(NAME_ORIGINAL)
+				.issueDate(LocalDate.of(2020, 6, 10))
+				.dueDate(LocalDate.of(2020, 8, 10))
+				.lastMovementDate(LocalDate.of(2020, 7, 20))
+				.build();
+		//coleção lazy não inicializada e sem sessão (ReflectionTestUtils não é usado pois registra o valor com toString)
+		Field movements = Asset.class.getDeclaredField("movements");
+		movements.setAccessible(true);
+		movements.set(persistedAsset, new PersistentBag());
+		when(repository.findById(ASSET_ID)).thenReturn(Optional.of(persistedAsset));
+		when(movementRepository.findRowsByAssetId(ASSET_ID)).thenReturn(Arrays.asList(
+				new MovementRow(ASSET_ID, LocalDate.of(2020, 7, 7), MovementType.BUY, new BigDecimal("4.50"), new BigDecimal("4.20")),
+				new MovementRow(ASSET_ID, LocalDate.of(2020, 7, 9), MovementType.SELL, new BigDecimal("1.75"), new BigDecimal("10.65")),
+				new MovementRow(ASSET_ID, LocalDate.of(2020, 7, 20), MovementType.BUY, new BigDecimal("1.20"), new BigDecimal("1.15"))));
+		
+		assertEquals(new BigDecimal("2.75"), service.getTotalQuantity(ASSET_ID, LocalDate.of(2020, 7, 10)));
+		assertEquals(new BigDecimal("6.45"), service.getProfit(ASSET_ID, LocalDate.of(2020, 7, 10)));
+		assertEquals(new BigDecimal("4.50"), service.getTotalQuantity(ASSET_ID, LocalDate.of(2020, 7, 8)));
+		//posições calculadas apenas a partir da projeção, sem carregar as entidades das movimentações
+		assertFalse(Hibernate.isInitialized(persistedAsset.getMovements()));
+		verify(movementRepository, atLeastOnce()).findRowsByAssetId(ASSET_ID);
+	}
+	
+	@Test
+	public void getPositionTest() {
+		addMovements();
+		for (LocalDate date : new LocalDate[] { LocalDate.of(2020, 7, 1), LocalDate.of(2020, 7, 10), LocalDate.of(2020, 7, 20) }) {
+			PositionSnapshot position = asset.getPosition(date);
+			assertEquals(NAME_ORIGINAL, position.getAssetName());
+			assertEquals(AssetType.RF, position.getAssetType());
+			assertEquals(asset.getTotalQuantity(date), position.getTotalQuantity());
+			assertEquals(asset.getTotalMarketPrice(date), position.getTotalMarketPrice());
+			assertEquals(asset.getIncome(date), position.getIncome());
+			assertEquals(asset.getProfit(date), position.getProfit());
+		}
+		assertEquals(formatBigDecimalScale(4.81), asset.getPosition(LocalDate.of(2020, 7, 10)).getTotalQuantity());
+		assertEquals(formatBigDecimalScale(1.04), asset.getPosition(LocalDate.of(2020, 7, 10)).getIncome());
+		assertEquals(formatBigDecimalScale(4.90), asset.getPosition(LocalDate.of(2020, 7, 10)).getProfit());
+	}
+	
+	@Test
+	public void getPositionsInParallelTest() {
+		addMovements();
+		List<Asset> catalog = new ArrayList<>();
+		for (long i = 0; i < 100; i++) {
+			Asset newAsset = Asset.builder()
+					.id(i)
+					.type(AssetType.RV)
+					.name("ATIVO" + i)
+					.issueDate(LocalDate.of(2020, 6, 10))
+					.dueDate(LocalDate.of(2020, 8, 10))
+					.build();
+			newAsset.includeMarketPrice(new BigDecimal(i + 1), DATA_FIRST_MARKET_PRICE);
+			newAsset.includeMovement(createAssetMovement(i, MovementType.BUY, i + 1.0, 1.00, LocalDate.of(2020, 7, 7)));
+			catalog.add(newAsset);
+		}
+		catalog.add(asset);
+		when(repository.findAllWithMarketPrices()).thenReturn(catalog);
+		LocalDate date = LocalDate.of(2020, 7, 10);
+		List<PositionSnapshot> sequential = service.getPositions(date);
+		
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			ReflectionTestUtils.setField(service, "positionValuationPool", pool);
+			ReflectionTestUtils.setField(service, "positionParallelThreshold", 3);
+			List<PositionSnapshot> parallel = service.getPositions(date);
+			assertEquals(catalog.size(), parallel.size());
+			for (int i = 0; i < catalog.size(); i++) {
+				assertEquals(catalog.get(i).getName(), parallel.get(i).getAssetName());
+				assertEquals(sequential.get(i).getTotalQuantity(), parallel.get(i).getTotalQuantity());
+				assertEquals(sequential.get(i).getTotalMarketPrice(), parallel.get(i).getTotalMarketPrice());
+				assertEquals(sequential.get(i).getIncome(), parallel.get(i).getIncome());
+				assertEquals(sequential.get(i).getProfit(), parallel.get(i).getProfit());
+			}
+			assertEquals(formatBigDecimalScale(4.81), parallel.get(100).getTotalQuantity());
+			assertEquals(formatBigDecimalScale(2500.00), parallel.get(49).getTotalMarketPrice());
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void getPositionsWithDatabaseAggregationTest() {
+		addMovements();
+		LocalDate date = LocalDate.of(2020, 7, 10);
+		AssetPositionTotals totals = new AssetPositionTotals(ASSET_ID, NAME_ORIGINAL, AssetType.RF,
+				sumMovements(MovementType.BUY, date, false), sumMovements(MovementType.SELL, date, false),
+				sumMovements(MovementType.BUY, date, true), sumMovements(MovementType.SELL, date, true),
+				VALUE_FIRST_MARKET_PRICE.setScale(8));
+		AssetPositionTotals withoutPrice = new AssetPositionTotals(2L, NAME_UPDATED, AssetType.RV,
+				BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, null);
+		when(repository.findPositionTotals(date)).thenReturn(Arrays.asList(totals, withoutPrice));
+		ReflectionTestUtils.setField(service, "positionDatabaseAggregation", true);
+		
+		List<PositionSnapshot> positions = service.getPositions(date);
+		assertEquals(2, positions.size());
+		PositionSnapshot expected = asset.getPosition(date);
+		assertEquals(expected.getAssetName(), positions.get(0).getAssetName());
+		assertEquals(expected.getTotalQuantity(), positions.get(0).getTotalQuantity());
+		assertEquals(expected.getTotalMarketPrice(), positions.get(0).getTotalMarketPrice());
+		assertEquals(expected.getIncome(), positions.get(0).getIncome());
+		assertEquals(expected.getProfit(), positions.get(0).getProfit());
+		assertEquals(NAME_UPDATED, positions.get(1).getAssetName());
+		assertEquals(formatBigDecimalScale(0.00), positions.get(1).getTotalMarketPrice());
+		assertEquals(formatBigDecimalScale(0.00), positions.get(1).getIncome());
+		verify(repository, times(0)).findAllWithMarketPrices();
+	}
+	
+	@Test
+	public void getPositionsFromDailyPositionsTest() {
+		LocalDate date = LocalDate.of(2020, 7, 10);
+		List<PositionSnapshot> dailyPositions = Arrays.asList(asset.getPosition(date));
+		when(repository.findAllIds()).thenReturn(Arrays.asList(ASSET_ID));
+		when(dailyPositionService.findPositions(date)).thenReturn(Optional.of(dailyPositions));
+		assertEquals(dailyPositions, service.getPositions(date));
+		verify(repository, times(0)).findPositionTotals(date);
+		verify(repository, times(0)).findAllWithMarketPrices();
+		verify(dailyPositionService, never()).upsert(any(), any());
+	}
+	
+	@Test
+	public void getPositionsCompletesMissingDailyPositionsTest() {
+		addMovements();
+		LocalDate date = LocalDate.of(2020, 7, 10);
+		final Asset storedAsset = Asset.builder()
+				.id(ASSET_ID + 1)
+				.type(AssetType.RV)
+				.name("ATIVO FECHADO")
+				.issueDate(LocalDate.of(2020, 6, 10))
+				.dueDate(LocalDate.of(2020, 8, 10))
+				.build();
+		PositionSnapshot storedPosition = storedAsset.getPosition(date);
+		when(repository.findAllIds()).thenReturn(Arrays.asList(ASSET_ID, ASSET_ID + 1));
+		when(dailyPositionService.findPositions(date)).thenReturn(Optional.of(Arrays.asList(storedPosition)));
+		when(repository.findById(ASSET_ID)).thenReturn(Optional.of(asset));
+		
+		//ativo sem posição de fechamento armazenada (ex.: criado após o fechamento) calculado isoladamente
+		List<PositionSnapshot> positions = service.getPositions(date);
+		assertEquals(2, positions.size());
+		assertEquals(ASSET_ID, positions.get(0).getAssetId());
+		assertEquals(asset.getTotalQuantity(date), positions.get(0).getTotalQuantity());
+		assertSame(storedPosition, positions.get(1));
+		verify(repository, never()).findAllWithMarketPrices();
+		verify(dailyPositionService, never()).upsert(any(), any());
+	}
+	
+	@Test
+	public void getPositionsDoesNotSaveDailyPositionsTest() {
+		addMovements();
+		LocalDate date = LocalDate.of(2020, 7, 10);
+		when(repository.findAllWithMarketPrices()).thenReturn(assets);
+		service.getPositions(date);
+		verify(dailyPositionService, never()).upsert(any(), any());
+	}
+	
+	@Test
+	public void closePositionTest() {
+		LocalDate date = LocalDate.of(2020, 7, 10);
+		when(dailyPositionService.isClosedBusinessDay(date)).thenReturn(Boolean.TRUE);
+		when(repository.findById(ASSET_ID)).thenReturn(Optional.of(asset));
+		service.closePosition(ASSET_ID, date);
+		InOrder inOrder = inOrder(lockRegistry, repository, dailyPositionService);
+		inOrder.verify(lockRegistry).lock(Asset.class, ASSET_ID);
+		inOrder.verify(repository).findById(ASSET_ID);
+		inOrder.verify(dailyPositionService).upsert(asset, date);
+	}
+	
+	@Test
+	public void closePositionWithOpenDateTest() {
+		service.closePosition(ASSET_ID, LocalDate.now());
+		verify(lockRegistry, never()).lock(any(), any());
+		verify(dailyPositionService, never()).upsert(any(), any());
+	}
+	
+	@Test
+	public void backdatedChangesRefreshDailyPositionsTest() {
+		final Optional<Asset> optional = Optional.of(asset);
+		when(repository.findById(ASSET_ID)).thenReturn(optional);
+		when(securityUtils.currentUserIsAdmin()).thenReturn(Boolean.FALSE);
+		service.includeMovementByAssetId(ASSET_ID, createAssetMovement(1L, MovementType.BUY, 1.00, 1.00, LocalDate.of(2020, 7, 10)));
+		verify(dailyPositionService, times(1)).refresh(asset, LocalDate.of(2020, 7, 10), null);
+		
+		service.includeMarketPrice(ASSET_ID, new BigDecimal(2.00), LocalDate.of(2020, 6, 15));
+		verify(dailyPositionService, times(1)).refresh(asset, LocalDate.of(2020, 6, 15), DATA_FIRST_MARKET_PRICE);
+		
+		service.excludeMarketPrice(ASSET_ID, DATA_FIRST_MARKET_PRICE.format(formatter));
+		verify(dailyPositionService, times(1)).refresh(asset, DATA_FIRST_MARKET_PRICE, null);
+	}
+	
+	@Test
+	public void positionCacheTest() {
+		addMovements();
+		Asset otherAsset = Asset.builder()
+				.id(2L)
+				.type(AssetType.RV)
+				.name(NAME_UPDATED)
+				.issueDate(LocalDate.of(2020, 6, 10))
+				.dueDate(LocalDate.of(2020, 8, 10))
+				.build();
+		when(repository.findById(ASSET_ID)).thenReturn(Optional.of(asset));
+		when(repository.findById(2L)).thenReturn(Optional.of(otherAsset));
+		LocalDate date = LocalDate.of(2020, 7, 10);
+		
+		assertEquals(formatBigDecimalScale(4.81), service.getTotalQuantity(ASSET_ID, date));
+		assertEquals(formatBigDecimalScale(1.04), service.getIncome(ASSET_ID, date));
+		assertEquals(formatBigDecimalScale(4.90), service.getProfit(ASSET_ID, date));
+		assertEquals(formatBigDecimalScale(0.00), service.getTotalQuantity(2L, date));
+		verify(repository, times(1)).findById(ASSET_ID);
+		assertEquals(2L, positionCache.stats().hitCount());
+		assertEquals(2L, positionCache.stats().missCount());
+		
+		//Somente as posições do ativo alterado são invalidadas
+		service.includeMovementByAssetId(ASSET_ID, createAssetMovement(5L, MovementType.BUY, 2.35, 2.10, LocalDate.of(2020, 7, 8)));
+		assertEquals(formatBigDecimalScale(7.16), service.getTotalQuantity(ASSET_ID, date));
+		assertEquals(formatBigDecimalScale(0.00), service.getTotalQuantity(2L, date));
+		verify(repository, times(1)).findById(2L);
+		
+		service.includeMarketPrice(ASSET_ID, new BigDecimal(2.00), LocalDate.of(2020, 7, 9));
+		assertEquals(formatBigDecimalScale(14.32), service.getTotalMarketPrice(ASSET_ID, date));
+		service.excludeMarketPrice(ASSET_ID, LocalDate.of(2020, 7, 9).format(formatter));
+		assertEquals(formatBigDecimalScale(7.16), service.getTotalMarketPrice(ASSET_ID, date));
+		
+		when(securityUtils.currentUserIsAdmin()).thenReturn(Boolean.TRUE);
+		service.update(ASSET_ID, Asset.builder().name(NAME_UPDATED).type(AssetType.FUNDO).build());
+		assertEquals(AssetType.FUNDO, asset.getPosition(date).getAssetType());
+		verify(repository, times(8)).findById(ASSET_ID);
+		service.getTotalQuantity(ASSET_ID, date);
+		verify(repository, times(9)).findById(ASSET_ID);
+	}
+	
+	@Test
+	public void getPositionsFromCacheTest() {
+		addMovements();
+		LocalDate date = LocalDate.of(2020, 7, 10);
+		when(repository.findAllIds()).thenReturn(Arrays.asList(ASSET_ID));
+		when(repository.findAllWithMarketPrices()).thenReturn(assets);
+		List<PositionSnapshot> positions = service.getPositions(date);
+		assertEquals(positions, service.getPositions(date));
+		verify(repository, times(1)).findAllWithMarketPrices();
+		verify(dailyPositionService, times(1)).findPositions(date);
+		
+		when(repository.findById(ASSET_ID)).thenReturn(Optional.of(asset));
+		service.includeMovementByAssetId(ASSET_ID, createAssetMovement(5L, MovementType.BUY, 2.35, 2.10, LocalDate.of(2020, 7, 8)));
+		assertEquals(formatBigDecimalScale(7.16), service.getPositions(date).get(0).getTotalQuantity());
+		verify(repository, times(2)).findAllWithMarketPrices();
+	}
+	
+	private void assertHistoricalPositionMatchesMovements() {
+		for (LocalDate date = LocalDate.of(2020, 7, 1); date.isBefore(LocalDate.of(2020, 7, 25)); date = date.plusDays(1)) {
+			BigDecimal quantityBuy = sumMovements(MovementType.BUY, date, false);
+			BigDecimal valueBuy = sumMovements(MovementType.BUY, date, true);
+			BigDecimal valueSell = sumMovements(MovementType.SELL, date, true);
+			assertEquals(quantityBuy.subtract(sumMovements(MovementType.SELL, date, false)), service.getTotalQuantity(ASSET_ID, date));
+			assertEquals(valueSell.subtract(valueBuy), service.getProfit(ASSET_ID, date));
+			if (BigDecimal.ZERO.compareTo(quantityBuy) != 0) {
+				BigDecimal averageValueBuy = valueBuy.divide(quantityBuy, BigDecimal.ROUND_DOWN).setScale(2, BigDecimal.ROUND_DOWN);
+				assertEquals(VALUE_FIRST_MARKET_PRICE.setScale(8, BigDecimal.ROUND_DOWN).divide(averageValueBuy, BigDecimal.ROUND_DOWN)
+						.setScale(2, BigDecimal.ROUND_DOWN), service.getIncome(ASSET_ID, date));
+			}
+		}
+	}
+	
+	private BigDecimal sumMovements(MovementType type, LocalDate date, boolean value) {
+		return asset.getMovements()
+				.stream()
+				.filter(movement -> type.equals(movement.getType()) && !date.isBefore(movement.getDate()))
+				.map(movement -> value ? movement.getValue() : movement.getQuantity())
+				.reduce(BigDecimal.ZERO, BigDecimal::add)
+				.setScale(2, BigDecimal.ROUND_DOWN);
 	}
 	
 	private BigDecimal formatBigDecimalScale(Double returnedValue) {
@@ -0,0 +1,151 @@
+package com.maps.financial.domain.asset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DailyPositionServiceTest {
+	
+	@Mock
+	private DailyPositionRepository repository;
+	
+	@InjectMocks
+	private DailyPositionService service;
+	
+	private static final Long ASSET_ID = 1L;
+	private static final LocalDate CLOSED_DATE = LocalDate.of(2020, 7, 10);
+	private Asset asset;
+	
+	@Before
+	public void init() {
+		asset = createAsset(ASSET_ID, "ATIVO");
+		asset.includeMarketPrice(new BigDecimal(2.00), LocalDate.of(2020, 7, 1));
+		asset.includeMovement(createAssetMovement(MovementType.BUY, 3.00, 4.50, LocalDate.of(2020, 7, 7)));
+	}
+	
+	@Test
+	public void isClosedBusinessDayTest() {
+		LocalDate lastFriday = LocalDate.now().with(TemporalAdjusters.previous(DayOfWeek.FRIDAY));
+		assertTrue(service.isClosedBusinessDay(CLOSED_DATE));
+		assertTrue(service.isClosedBusinessDay(lastFriday));
+		assertFalse(service.isClosedBusinessDay(lastFriday.plusDays(1)));
+		assertFalse(service.isClosedBusinessDay(LocalDate.now()));
+		assertFalse(service.isClosedBusinessDay(null));
+	}
+	
+	@Test
+	public void findPositionsTest() {
+		DailyPosition dailyPosition = DailyPosition.of(asset, CLOSED_DATE, asset.getPosition(CLOSED_DATE));
+		when(repository.findByDate(CLOSED_DATE)).thenReturn(Arrays.asList(dailyPosition));
+		List<PositionSnapshot> positions = service.findPositions(CLOSED_DATE).get();
+		assertNotNull(positions);
+		assertEquals(1, positions.size());
+		assertEquals(ASSET_ID, positions.get(0).getAssetId());
+		assertEquals(asset.getTotalQuantity(CLOSED_DATE), positions.get(0).getTotalQuantity());
+		assertEquals(asset.getTotalMarketPrice(CLOSED_DATE), positions.get(0).getTotalMarketPrice());
+		assertEquals(new BigDecimal("1.50"), positions.get(0).getAverageValueBuy());
+		assertEquals(asset.getIncome(CLOSED_DATE), positions.get(0).getIncome());
+		assertEquals(asset.getProfit(CLOSED_DATE), positions.get(0).getProfit());
+	}
+	
+	@Test
+	public void findPositionsWithoutStoredPositionsTest() {
+		when(repository.findByDate(CLOSED_DATE)).thenReturn(new ArrayList<>());
+		assertTrue(service.findPositions(CLOSED_DATE).get().isEmpty());
+	}
+	
+	@Test
+	public void findPositionsWithOpenDateTest() {
+		assertFalse(service.findPositions(LocalDate.now()).isPresent());
+		verify(repository, never()).findByDate(any());
+	}
+	
+	@Test
+	public void upsertInsertsMissingPositionTest() {
+		when(repository.findByAssetIdAndDateBetween(ASSET_ID, CLOSED_DATE, CLOSED_DATE)).thenReturn(new ArrayList<>());
+		service.upsert(asset, CLOSED_DATE);
+		verify(repository, times(1)).save(any(DailyPosition.class));
+	}
+	
+	@Test
+	public void upsertUpdatesStoredPositionTest() {
+		DailyPosition dailyPosition = DailyPosition.of(asset, CLOSED_DATE, asset.getPosition(CLOSED_DATE));
+		when(repository.findByAssetIdAndDateBetween(ASSET_ID, CLOSED_DATE, CLOSED_DATE)).thenReturn(Arrays.asList(dailyPosition));
+		asset.includeMovement(createAssetMovement(MovementType.BUY, 1.00, 1.00, LocalDate.of(2020, 7, 8)));
+		service.upsert(asset, CLOSED_DATE);
+		verify(repository, never()).save(any(DailyPosition.class));
+		assertEquals(new BigDecimal("4.00"), dailyPosition.getTotalQuantity());
+	}
+	
+	@Test
+	public void upsertWithOpenDateTest() {
+		service.upsert(asset, LocalDate.now());
+		verify(repository, never()).findByAssetIdAndDateBetween(any(), any(), any());
+	}
+	
+	@Test
+	public void refreshTest() {
+		List<DailyPosition> dailyPositions = new ArrayList<>();
+		for (LocalDate date = LocalDate.of(2020, 7, 8); date.isBefore(LocalDate.of(2020, 7, 11)); date = date.plusDays(1)) {
+			dailyPositions.add(DailyPosition.of(asset, date, asset.getPosition(date)));
+		}
+		when(repository.findByAssetIdAndDateBetween(ASSET_ID, LocalDate.of(2020, 7, 8), LocalDate.of(2020, 7, 10)))
+			.thenReturn(dailyPositions);
+		
+		asset.includeMovement(createAssetMovement(MovementType.BUY, 1.00, 1.00, LocalDate.of(2020, 7, 8)));
+		service.refresh(asset, LocalDate.of(2020, 7, 8), LocalDate.of(2020, 7, 11));
+		for (DailyPosition dailyPosition : dailyPositions) {
+			assertEquals(new BigDecimal("4.00"), dailyPosition.getTotalQuantity());
+			assertEquals(new BigDecimal("8.00"), dailyPosition.getTotalMarketPrice());
+			assertEquals(new BigDecimal("-5.50"), dailyPosition.getProfit());
+		}
+	}
+	
+	@Test
+	public void refreshWithOpenDateTest() {
+		service.refresh(asset, LocalDate.now(), null);
+		verify(repository, never()).findByAssetIdAndDateBetween(any(), any(), any());
+	}
+	
+	private Asset createAsset(Long id, String name) {
+		return Asset.builder()
+				.id(id)
+				.type(AssetType.RF)
+				.name(name)
+				.issueDate(LocalDate.of(2020, 6, 10))
+				.dueDate(LocalDate.of(2020, 8, 10))
+				.build();
+	}
+	
+	private AssetMovement createAssetMovement(MovementType type, Double quantity, Double value, LocalDate date) {
+		return AssetMovement.builder()
+				.type(type)
+				.quantity(new BigDecimal(quantity))
+				.value(new BigDecimal(value))
+				.date(date)
+				.build();
+	}
+
+}
@@ -0,0 +1,147 @@
+package com.maps.financial.domain.asset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.maps.financial.domain.account.Account;
+import com.maps.financial.domain.account.AccountFacade;
+import com.maps.financial.domain.commons.LockRegistry;
+import com.maps.financial.domain.commons.OptimisticRetry;
+import com.maps.financial.exceptions.AssetQuantityNotAvailable;
+import com.maps.financial.exceptions.ExceptionMessage;
+import com.maps.financial.exceptions.SubmissionQueueFull;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MovementQueueTest {
+
+	private final AssetService assetService = mock(AssetService.class);
+	private final AccountFacade accountFacade = mock(AccountFacade.class);
+	private final LockRegistry lockRegistry = mock(LockRegistry.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final MovementQueue queue = new MovementQueue(assetService, accountFacade, lockRegistry,
+			new OptimisticRetry(transactionManager, meterRegistry, 1, Duration.ZERO, Duration.ZERO),
+			transactionManager, meterRegistry, 1, 100, 10, Duration.ofMillis(500));
+
+	@After
+	public void shutdown() {
+		queue.shutdown();
+	}
+
+	@Test
+	public void submitGroupCommitTest() throws Exception {
+		when(accountFacade.getAccountIdOfCurrentUser()).thenReturn(3L, 1L, 2L);
+
+		final AssetMovement first = new AssetMovement();
+		final CompletableFuture<AssetMovement> firstFuture = queue.submit(1L, first);
+		final CompletableFuture<AssetMovement> secondFuture = queue.submit(1L, new AssetMovement());
+		final CompletableFuture<AssetMovement> thirdFuture = queue.submit(1L, new AssetMovement());
+
+		assertSame(first, firstFuture.get(5, TimeUnit.SECONDS));
+		secondFuture.get(5, TimeUnit.SECONDS);
+		thirdFuture.get(5, TimeUnit.SECONDS);
+		verify(transactionManager, times(1)).getTransaction(any());
+		verify(assetService, times(3)).includeMovementByAssetId(eq(1L), any(AssetMovement.class));
+
+		final InOrder inOrder = inOrder(lockRegistry);
+		inOrder.verify(lockRegistry).lock(Account.class, 1L);
+		inOrder.verify(lockRegistry).lock(Account.class, 2L);
+		inOrder.verify(lockRegistry).lock(Account.class, 3L);
+		assertEquals(3.0, meterRegistry.summary("financial.movement.queue.batch.size").max(), 0.0);
+	}
+
+	@Test
+	public void submitWithFailureInBatchTest() throws Exception {
+		final AssetMovement rejected = new AssetMovement();
+		when(assetService.includeMovementByAssetId(eq(1L), same(rejected)))
+				.thenThrow(new AssetQuantityNotAvailable(ExceptionMessage.MESSAGE_ASSET_QUANTITY_NOT_AVAILABLE));
+
+		final CompletableFuture<AssetMovement> firstFuture = queue.submit(1L, new AssetMovement());
+		final CompletableFuture<AssetMovement> rejectedFuture = queue.submit(1L, rejected);
+		final CompletableFuture<AssetMovement> thirdFuture = queue.submit(1L, new AssetMovement());
+
+		firstFuture.get(5, TimeUnit.SECONDS);
+		thirdFuture.get(5, TimeUnit.SECONDS);
+		try {
+			rejectedFuture.get(5, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof AssetQuantityNotAvailable);
+			verify(transactionManager, times(2)).rollback(any());
+			verify(transactionManager, times(4)).getTransaction(any());
+			return;
+		}
+		throw new AssertionError("AssetQuantityNotAvailable esperada");
+	}
+
+	@Test
+	public void submitWithFullQueueTest() throws Exception {
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		when(assetService.includeMovementByAssetId(eq(2L), any(AssetMovement.class))).thenAnswer(invocation -> {
+			writing.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return null;
+		});
+		final MovementQueue boundedQueue = new MovementQueue(assetService, accountFacade, lockRegistry,
+				new OptimisticRetry(transactionManager, meterRegistry, 1, Duration.ZERO, Duration.ZERO),
+				transactionManager, meterRegistry, 1, 1, 1, Duration.ZERO);
+		try {
+			final CompletableFuture<AssetMovement> writingFuture = boundedQueue.submit(2L, new AssetMovement());
+			assertTrue(writing.await(5, TimeUnit.SECONDS));
+			final CompletableFuture<AssetMovement> queuedFuture = boundedQueue.submit(2L, new AssetMovement());
+			try {
+				boundedQueue.submit(2L, new AssetMovement());
+				throw new AssertionError("SubmissionQueueFull esperada");
+			} catch (SubmissionQueueFull e) {
+				release.countDown();
+			}
+			writingFuture.get(5, TimeUnit.SECONDS);
+			queuedFuture.get(5, TimeUnit.SECONDS);
+		} finally {
+			release.countDown();
+			boundedQueue.shutdown();
+		}
+	}
+
+	@Test
+	public void shutdownWhileFormingBatchTest() throws Exception {
+		final CompletableFuture<AssetMovement> future = queue.submit(1L, new AssetMovement());
+		queue.shutdown();
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			throw new AssertionError("IllegalStateException esperada");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		verify(assetService, times(0)).includeMovementByAssetId(any(), any(AssetMovement.class));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void submitAfterShutdownTest() {
+		queue.shutdown();
+		assertFalse(queue.submit(1L, new AssetMovement()).isDone());
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.maps.financial.domain.asset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import com.maps.financial.exceptions.AssetQuantityNotAvailable;
+import com.maps.financial.exceptions.ExceptionMessage;
+
+public class MovementTicketsTest {
+
+	private final MovementTickets tickets = new MovementTickets(100, Duration.ofMinutes(1));
+
+	@Test
+	public void openCompletedTest() {
+		final CompletableFuture<AssetMovement> future = new CompletableFuture<>();
+		final MovementTicket ticket = tickets.open("usuario", future);
+		assertEquals(MovementTicketStatus.PENDING, ticket.getStatus());
+		assertEquals(MovementTicketStatus.PENDING, tickets.find(ticket.getId(), "usuario").get().getStatus());
+
+		future.complete(AssetMovement.builder().id(10L).build());
+		final MovementTicket completed = tickets.find(ticket.getId(), "usuario").get();
+		assertEquals(MovementTicketStatus.COMPLETED, completed.getStatus());
+		assertEquals(Long.valueOf(10L), completed.getMovementId());
+		assertNull(completed.getMessage());
+	}
+
+	@Test
+	public void openRejectedTest() {
+		final CompletableFuture<AssetMovement> future = new CompletableFuture<>();
+		future.completeExceptionally(new AssetQuantityNotAvailable(ExceptionMessage.MESSAGE_ASSET_QUANTITY_NOT_AVAILABLE));
+		final MovementTicket ticket = tickets.open("usuario", future);
+		assertEquals(MovementTicketStatus.REJECTED, ticket.getStatus());
+		assertEquals(ExceptionMessage.MESSAGE_ASSET_QUANTITY_NOT_AVAILABLE.getValue(), ticket.getMessage());
+		assertNull(ticket.getMovementId());
+	}
+
+	@Test
+	public void findFromOtherUserTest() {
+		final MovementTicket ticket = tickets.open("usuario", new CompletableFuture<>());
+		assertFalse(tickets.find(ticket.getId(), "outro").isPresent());
+		assertFalse(tickets.find("inexistente", "usuario").isPresent());
+	}
+
+}
@@ -0,0 +1,165 @@
+package com.maps.financial.domain.asset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.maps.financial.exceptions.ObjectNotFoundException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PositionCacheTest {
+	
+	private static final LocalDate DATE = LocalDate.of(2020, 7, 10);
+	
+	@Test
+	public void getTest() {
+		PositionCache cache = new PositionCache(10, Duration.ofMinutes(5));
+		AtomicInteger calculations = new AtomicInteger();
+		cache.get(1L, DATE, id -> createPosition(id, calculations));
+		cache.get(1L, DATE, id -> createPosition(id, calculations));
+		cache.get(1L, DATE.plusDays(1), id -> createPosition(id, calculations));
+		assertEquals(2, calculations.get());
+		assertEquals(1L, cache.stats().hitCount());
+		assertEquals(2L, cache.stats().missCount());
+	}
+	
+	@Test
+	public void getWithoutDateTest() {
+		PositionCache cache = new PositionCache(10, Duration.ofMinutes(5));
+		AtomicInteger calculations = new AtomicInteger();
+		cache.get(1L, null, id -> createPosition(id, calculations));
+		cache.get(1L, null, id -> createPosition(id, calculations));
+		assertEquals(2, calculations.get());
+	}
+	
+	@Test
+	public void invalidateOnlyAffectedAssetTest() {
+		PositionCache cache = new PositionCache(10, Duration.ofMinutes(5));
+		AtomicInteger calculations = new AtomicInteger();
+		cache.putAll(DATE, Arrays.asList(createPosition(1L, calculations), createPosition(2L, calculations)),
+				cache.getGenerations(Arrays.asList(1L, 2L)));
+		cache.get(1L, DATE.plusDays(1), id -> createPosition(id, calculations));
+		assertTrue(cache.getAllPresent(Arrays.asList(1L, 2L), DATE).isPresent());
+		
+		cache.invalidate(1L);
+		assertFalse(cache.getAllPresent(Arrays.asList(1L, 2L), DATE).isPresent());
+		assertTrue(cache.getAllPresent(Arrays.asList(2L), DATE).isPresent());
+		assertFalse(cache.getAllPresent(Arrays.asList(1L), DATE.plusDays(1)).isPresent());
+	}
+	
+	@Test
+	public void removeDeletedAssetGenerationTest() {
+		PositionCache cache = new PositionCache(10, Duration.ofMinutes(5));
+		AtomicInteger calculations = new AtomicInteger();
+		cache.invalidate(1L);
+		cache.invalidate(2L);
+		cache.get(1L, DATE, id -> createPosition(id, calculations));
+		assertEquals(2, cache.trackedGenerations());
+		
+		cache.remove(1L);
+		assertEquals(1, cache.trackedGenerations());
+		assertEquals(0, cache.registeredKeys());
+		assertFalse(cache.getAllPresent(Arrays.asList(1L), DATE).isPresent());
+	}
+	
+	@Test
+	public void getWithFailedCalculationTest() {
+		PositionCache cache = new PositionCache(10, Duration.ofMinutes(5));
+		for (long id = 0; id < 50; id++) {
+			try {
+				cache.get(id, DATE, assetId -> {
+					throw new ObjectNotFoundException(assetId, Asset.class);
+				});
+			} catch (ObjectNotFoundException e) {
+				//ativo inexistente
+			}
+		}
+		assertEquals(0, cache.registeredKeys());
+	}
+	
+	@Test
+	public void getInvalidatedDuringCalculationTest() {
+		PositionCache cache = new PositionCache(10, Duration.ofMinutes(5));
+		AtomicInteger calculations = new AtomicInteger();
+		cache.get(1L, DATE, id -> {
+			cache.invalidate(id);
+			return createPosition(id, calculations);
+		});
+		assertFalse(cache.getAllPresent(Arrays.asList(1L), DATE).isPresent());
+		assertEquals(0, cache.registeredKeys());
+	}
+	
+	@Test
+	public void putAllInvalidatedDuringCalculationTest() {
+		PositionCache cache = new PositionCache(10, Duration.ofMinutes(5));
+		AtomicInteger calculations = new AtomicInteger();
+		Map<Long, Long> generations = cache.getGenerations(Arrays.asList(1L, 2L));
+		List<PositionSnapshot> positions = Arrays.asList(createPosition(1L, calculations), createPosition(2L, calculations));
+		cache.invalidate(1L);
+		cache.putAll(DATE, positions, generations);
+		assertFalse(cache.getAllPresent(Arrays.asList(1L), DATE).isPresent());
+		assertTrue(cache.getAllPresent(Arrays.asList(2L), DATE).isPresent());
+	}
+	
+	@Test
+	public void sizeEvictionTest() {
+		PositionCache cache = new PositionCache(5, Duration.ofMinutes(5));
+		AtomicInteger calculations = new AtomicInteger();
+		for (long id = 0; id < 50; id++) {
+			cache.get(id, DATE, assetId -> createPosition(assetId, calculations));
+		}
+		assertTrue(cache.stats().evictionCount() >= 45);
+		
+		for (long id = 0; id < 50; id++) {
+			cache.invalidate(id);
+		}
+		assertEquals(50, calculations.get());
+	}
+	
+	@Test
+	public void expirationTest() throws InterruptedException {
+		PositionCache cache = new PositionCache(10, Duration.ofMillis(50));
+		AtomicInteger calculations = new AtomicInteger();
+		cache.get(1L, DATE, id -> createPosition(id, calculations));
+		Thread.sleep(100);
+		cache.get(1L, DATE, id -> createPosition(id, calculations));
+		assertEquals(2, calculations.get());
+		assertEquals(1L, cache.stats().evictionCount());
+	}
+	
+	@Test
+	public void metricsTest() {
+		PositionCache cache = new PositionCache(10, Duration.ofMinutes(5));
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		cache.bindTo(registry);
+		AtomicInteger calculations = new AtomicInteger();
+		cache.get(1L, DATE, id -> createPosition(id, calculations));
+		cache.get(1L, DATE, id -> createPosition(id, calculations));
+		assertEquals(1.0, registry.get("cache.gets").tag("cache", PositionCache.CACHE_NAME).tag("result", "hit")
+				.functionCounter().count(), 0.0);
+		assertEquals(1.0, registry.get("cache.gets").tag("cache", PositionCache.CACHE_NAME).tag("result", "miss")
+				.functionCounter().count(), 0.0);
+		assertEquals(0.0, registry.get("cache.evictions").tag("cache", PositionCache.CACHE_NAME)
+				.functionCounter().count(), 0.0);
+	}
+	
+	private PositionSnapshot createPosition(Long assetId, AtomicInteger calculations) {
+		calculations.incrementAndGet();
+		return PositionSnapshot.builder()
+				.assetId(assetId)
+				.assetName("ATIVO" + assetId)
+				.assetType(AssetType.RF)
+				.build();
+	}
+
+}
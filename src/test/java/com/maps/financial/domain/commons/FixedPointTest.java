@@ -0,0 +1,73 @@
+package com.maps.financial.domain.commons;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FixedPointTest {
+	
+	private final Random random = new Random(13072020L);
+	
+	@Test
+	public void conversionTest() {
+		assertEquals(1050L, FixedPoint.ofMoney(new BigDecimal("10.509")));
+		assertEquals(-1050L, FixedPoint.ofMoney(new BigDecimal("-10.509")));
+		assertEquals(123456789L, FixedPoint.ofQuantity(new BigDecimal("1.234567891")));
+		assertEquals(0L, FixedPoint.ofPrice(null));
+		assertEquals(new BigDecimal("10.50"), FixedPoint.toBigDecimal(1050L, FixedPoint.MONEY_SCALE));
+	}
+	
+	@Test
+	public void roundDownParityTest() {
+		for (int i = 0; i < 10000; i++) {
+			BigDecimal quantity = randomDecimal(FixedPoint.QUANTITY_SCALE);
+			BigDecimal price = randomDecimal(FixedPoint.PRICE_SCALE);
+			BigDecimal value = randomDecimal(FixedPoint.MONEY_SCALE).add(new BigDecimal("0.01"));
+			long fixedQuantity = FixedPoint.ofQuantity(quantity);
+			long fixedPrice = FixedPoint.ofPrice(price);
+			long fixedValue = FixedPoint.ofMoney(value);
+			
+			assertEquals(quantity.setScale(2, BigDecimal.ROUND_DOWN), 
+					FixedPoint.toBigDecimal(FixedPoint.rescale(fixedQuantity, FixedPoint.QUANTITY_SCALE, 2), 2));
+			assertEquals(quantity.multiply(price).setScale(2, BigDecimal.ROUND_DOWN), 
+					FixedPoint.toBigDecimal(FixedPoint.multiply(fixedQuantity, FixedPoint.QUANTITY_SCALE, fixedPrice, FixedPoint.PRICE_SCALE, 2), 2));
+			assertEquals(price.divide(value, BigDecimal.ROUND_DOWN).setScale(2, BigDecimal.ROUND_DOWN), 
+					FixedPoint.toBigDecimal(FixedPoint.divide(fixedPrice, FixedPoint.PRICE_SCALE, fixedValue, FixedPoint.MONEY_SCALE, 2), 2));
+			assertEquals(value.divide(value.add(quantity.setScale(2, BigDecimal.ROUND_DOWN)), BigDecimal.ROUND_DOWN), 
+					FixedPoint.toBigDecimal(FixedPoint.divide(fixedValue, FixedPoint.MONEY_SCALE, 
+							FixedPoint.add(fixedValue, FixedPoint.rescale(fixedQuantity, FixedPoint.QUANTITY_SCALE, 2)), 2, 2), 2));
+		}
+	}
+	
+	@Test
+	public void multiplyBeyondLongRangeTest() {
+		long quantity = FixedPoint.ofQuantity(new BigDecimal("1000000000.5"));
+		long price = FixedPoint.ofPrice(new BigDecimal("3000.25"));
+		assertEquals(new BigDecimal("3000250001500.12"), 
+				FixedPoint.toBigDecimal(FixedPoint.multiply(quantity, FixedPoint.QUANTITY_SCALE, price, FixedPoint.PRICE_SCALE, 2), 2));
+	}
+	
+	@Test(expected = ArithmeticException.class)
+	public void addOverflowTest() {
+		FixedPoint.add(Long.MAX_VALUE, 1L);
+	}
+	
+	@Test(expected = ArithmeticException.class)
+	public void conversionOverflowTest() {
+		FixedPoint.ofQuantity(new BigDecimal("100000000000"));
+	}
+	
+	@Test(expected = ArithmeticException.class)
+	public void divideByZeroTest() {
+		FixedPoint.divide(100L, 2, 0L, 2, 2);
+	}
+	
+	private BigDecimal randomDecimal(int scale) {
+		long unscaled = (long) (random.nextDouble() * 1000000000L);
+		return BigDecimal.valueOf(unscaled, scale);
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.maps.financial.domain.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.maps.financial.exceptions.InvalidPageCursor;
+
+public class KeysetPageTest {
+	
+	@Test
+	public void cursorEncodeDecodeTest() {
+		final PageCursor cursor = new PageCursor(LocalDate.of(2020, 7, 13), 42L);
+		assertEquals(cursor, PageCursor.decode(cursor.encode()));
+		assertNull(PageCursor.decode(null));
+		assertNull(PageCursor.decode(""));
+	}
+	
+	@Test(expected = InvalidPageCursor.class)
+	public void cursorDecodeInvalidTest() {
+		PageCursor.decode("invalido");
+	}
+	
+	@Test
+	public void pageWithNextCursorTest() {
+		final List<Long> rows = Arrays.asList(1L, 2L, 3L);
+		final KeysetPage<Long> page = KeysetPage.of(rows, 2, id -> new PageCursor(LocalDate.of(2020, 7, 13), id));
+		assertEquals(Arrays.asList(1L, 2L), page.getContent());
+		assertEquals(new PageCursor(LocalDate.of(2020, 7, 13), 2L), page.getNextCursor());
+		assertEquals(page.getNextCursor(), PageCursor.decode(page.getNextCursorValue()));
+	}
+	
+	@Test
+	public void lastPageTest() {
+		final List<Long> rows = Arrays.asList(1L, 2L);
+		final KeysetPage<Long> page = KeysetPage.of(rows, 2, id -> new PageCursor(LocalDate.of(2020, 7, 13), id));
+		assertEquals(2, page.getContent().size());
+		assertNull(page.getNextCursor());
+		assertNull(page.getNextCursorValue());
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.maps.financial.domain.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+public class LockRegistryTest {
+	
+	private final LockRegistry registry = new LockRegistry();
+	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+	
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void lockWithoutTransactionTest() {
+		registry.lock(Long.class, 1L);
+	}
+	
+	@Test
+	public void lockHeldUntilTransactionCompletionTest() throws Exception {
+		begin();
+		registry.lock(Long.class, 1L);
+		final CountDownLatch locked = new CountDownLatch(1);
+		final Future<?> other = executor.submit(() -> inTransaction(() -> {
+			registry.lock(Long.class, 1L);
+			locked.countDown();
+		}));
+		assertFalse(locked.await(200, TimeUnit.MILLISECONDS));
+		
+		complete();
+		assertTrue(locked.await(5, TimeUnit.SECONDS));
+		other.get(5, TimeUnit.SECONDS);
+		assertEquals(0, registry.size());
+	}
+	
+	@Test
+	public void lockOtherIdNotBlockedTest() throws Exception {
+		begin();
+		registry.lock(Long.class, 1L);
+		final CountDownLatch locked = new CountDownLatch(1);
+		executor.submit(() -> inTransaction(() -> {
+			registry.lock(Long.class, 2L);
+			registry.lock(Integer.class, 1L);
+			locked.countDown();
+		}));
+		assertTrue(locked.await(5, TimeUnit.SECONDS));
+		complete();
+	}
+	
+	@Test
+	public void lockReentrantTest() {
+		inTransaction(() -> {
+			registry.lock(Long.class, 1L);
+			registry.lock(Long.class, 1L);
+			assertEquals(1, registry.size());
+		});
+		assertEquals(0, registry.size());
+	}
+	
+	private void inTransaction(final Runnable runnable) {
+		begin();
+		try {
+			runnable.run();
+		} finally {
+			complete();
+		}
+	}
+	
+	private void begin() {
+		TransactionSynchronizationManager.initSynchronization();
+	}
+	
+	private void complete() {
+		final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.maps.financial.domain.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.StaleStateException;
+import org.junit.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.maps.financial.exceptions.ConcurrentUpdateConflict;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class OptimisticRetryTest {
+	
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final OptimisticRetry retry = new OptimisticRetry(mock(PlatformTransactionManager.class), meterRegistry, 3,
+			Duration.ofMillis(1), Duration.ofMillis(2));
+	
+	@Test
+	public void executeWithoutConflictTest() {
+		assertEquals("OK", retry.execute(() -> "OK"));
+		assertEquals(0.0, meterRegistry.counter(OptimisticRetry.METRIC_PREFIX + "conflicts", "entity", "String").count(), 0.0);
+	}
+	
+	@Test
+	public void executeRetryAfterConflictTest() {
+		final AtomicInteger attempts = new AtomicInteger();
+		final String result = retry.execute(() -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw new ObjectOptimisticLockingFailureException(String.class, 7L);
+			}
+			return "OK";
+		});
+		assertEquals("OK", result);
+		assertEquals(3, attempts.get());
+		assertEquals(2.0, meterRegistry.counter(OptimisticRetry.METRIC_PREFIX + "conflicts", "entity", "String").count(), 0.0);
+		assertEquals(2.0, meterRegistry.counter(OptimisticRetry.METRIC_PREFIX + "retries", "entity", "String").count(), 0.0);
+		assertEquals(Long.valueOf(2L), retry.getConflictsById().get("String#7"));
+	}
+	
+	@Test
+	public void executeConflictWithoutEntityRecordedForInformedEntityTest() {
+		final AtomicInteger attempts = new AtomicInteger();
+		retry.execute(Long.class, 9L, () -> {
+			if (attempts.incrementAndGet() < 2) {
+				//atualização em lote do JDBC: a exceção não informa a entidade
+				throw new ObjectOptimisticLockingFailureException("Batch update returned unexpected row count", 
+						new StaleStateException("Batch update returned unexpected row count"));
+			}
+			return "OK";
+		});
+		assertEquals(1.0, meterRegistry.counter(OptimisticRetry.METRIC_PREFIX + "conflicts", "entity", "Long").count(), 0.0);
+		assertEquals(Long.valueOf(1L), retry.getConflictsById().get("Long#9"));
+	}
+	
+	@Test
+	public void executeConflictExhaustedTest() {
+		final AtomicInteger attempts = new AtomicInteger();
+		try {
+			retry.execute(() -> {
+				attempts.incrementAndGet();
+				throw new ObjectOptimisticLockingFailureException(String.class, 7L);
+			});
+		} catch (ConcurrentUpdateConflict e) {
+			assertEquals(3, attempts.get());
+			assertEquals(1.0, meterRegistry.counter(OptimisticRetry.METRIC_PREFIX + "exhausted", "entity", "String").count(), 0.0);
+			return;
+		}
+		throw new AssertionError("ConcurrentUpdateConflict esperada");
+	}
+
+}
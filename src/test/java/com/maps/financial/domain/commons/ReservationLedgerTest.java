@@ -0,0 +1,177 @@
+package com.maps.financial.domain.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+public class ReservationLedgerTest {
+
+	private final ReservationLedger ledger = new ReservationLedger();
+
+	@Test(expected = IllegalStateException.class)
+	public void tryReserveWithoutTransactionTest() {
+		ledger.tryReserve(Long.class, 1L, 10L);
+	}
+
+	@Test
+	public void tryReserveWithUnknownValueTest() {
+		begin();
+		assertTrue(ledger.tryReserve(Long.class, 1L, 1000L));
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+		assertNull(ledger.getAvailable(Long.class, 1L));
+	}
+
+	@Test
+	public void tryReserveAboveAvailableTest() {
+		ledger.observe(Long.class, 1L, 100L);
+		begin();
+		assertTrue(ledger.tryReserve(Long.class, 1L, 60L));
+		assertFalse(ledger.tryReserve(Long.class, 1L, 50L));
+		assertTrue(ledger.tryReserve(Long.class, 2L, 50L));
+		assertEquals(Long.valueOf(40L), ledger.getAvailable(Long.class, 1L));
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+		assertEquals(Long.valueOf(100L), ledger.getAvailable(Long.class, 1L));
+	}
+
+	@Test
+	public void isAvailableTest() {
+		assertTrue(ledger.isAvailable(Long.class, 1L, 1000L));
+		ledger.observe(Long.class, 1L, 100L);
+		begin();
+		assertTrue(ledger.tryReserve(Long.class, 1L, 60L));
+		assertTrue(ledger.isAvailable(Long.class, 1L, 40L));
+		assertFalse(ledger.isAvailable(Long.class, 1L, 41L));
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+		assertTrue(ledger.isAvailable(Long.class, 1L, 100L));
+	}
+
+	@Test
+	public void applyOnCommitTest() {
+		ledger.observe(Long.class, 1L, 100L);
+		begin();
+		assertTrue(ledger.tryReserve(Long.class, 1L, 60L));
+		ledger.applyOnCommit(Long.class, 1L, -60L);
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+		assertEquals(Long.valueOf(40L), ledger.getAvailable(Long.class, 1L));
+
+		begin();
+		assertFalse(ledger.tryReserve(Long.class, 1L, 50L));
+		ledger.applyOnCommit(Long.class, 1L, 25L);
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+		assertEquals(Long.valueOf(40L), ledger.getAvailable(Long.class, 1L));
+	}
+
+	@Test
+	public void commitAppliesDeltaAndReleasesReservationTogetherTest() {
+		ledger.observe(Long.class, 1L, 100L);
+		begin();
+		assertTrue(ledger.tryReserve(Long.class, 1L, 60L));
+		ledger.applyOnCommit(Long.class, 1L, -60L);
+		final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+		//entre a confirmação e o término da transação a saída não é contada duas vezes
+		assertEquals(Long.valueOf(40L), ledger.getAvailable(Long.class, 1L));
+		TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+		assertEquals(Long.valueOf(40L), ledger.getAvailable(Long.class, 1L));
+	}
+
+	@Test
+	public void concurrentReservationsWithoutOversellTest() throws Exception {
+		final int threads = 8;
+		final int rounds = 13;
+		ledger.observe(Long.class, 1L, 100L);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CyclicBarrier barrier = new CyclicBarrier(threads);
+		final AtomicInteger accepted = new AtomicInteger();
+		final List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(() -> {
+					for (int round = 0; round < rounds; round++) {
+						begin();
+						final boolean reserved = ledger.tryReserve(Long.class, 1L, 1L);
+						if (reserved) {
+							ledger.applyOnCommit(Long.class, 1L, -1L);
+							accepted.incrementAndGet();
+						}
+						final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+						TransactionSynchronizationManager.clearSynchronization();
+						barrier.await(10, TimeUnit.SECONDS);
+						
+						//todas as transações da rodada confirmadas e ainda não terminadas
+						if (reserved) {
+							TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+						}
+						barrier.await(10, TimeUnit.SECONDS);
+						assertEquals(Long.valueOf(100L - Math.min(100, threads * (round + 1))), ledger.getAvailable(Long.class, 1L));
+						barrier.await(10, TimeUnit.SECONDS);
+						
+						TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, reserved 
+								? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK);
+						barrier.await(10, TimeUnit.SECONDS);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(100, accepted.get());
+		assertEquals(Long.valueOf(0L), ledger.getAvailable(Long.class, 1L));
+	}
+	
+	@Test
+	public void observeOnlyFirstInTransactionTest() {
+		begin();
+		ledger.observe(Long.class, 1L, 100L);
+		ledger.applyOnCommit(Long.class, 1L, -30L);
+		ledger.observe(Long.class, 1L, 70L);
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+		assertEquals(Long.valueOf(100L), ledger.getAvailable(Long.class, 1L));
+		
+		begin();
+		ledger.observe(Long.class, 1L, 90L);
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+		assertEquals(Long.valueOf(90L), ledger.getAvailable(Long.class, 1L));
+	}
+	
+	@Test
+	public void forgetTest() {
+		ledger.observe(Long.class, 1L, 100L);
+		ledger.forget(Long.class, 1L);
+		assertNull(ledger.getAvailable(Long.class, 1L));
+	}
+
+	private void begin() {
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	private void complete(final int status) {
+		final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		if (status == TransactionSynchronization.STATUS_COMMITTED) {
+			TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+		}
+		TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+	}
+
+}
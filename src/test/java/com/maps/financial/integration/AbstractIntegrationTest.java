@@ -6,6 +6,9 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.logging.log4j.util.Strings;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,7 +41,10 @@ public abstract class AbstractIntegrationTest {
 
 	protected static final ResultMatcher CREATED = status().isCreated(); 
 	protected static final ResultMatcher OK = status().isOk(); 
+	protected static final ResultMatcher ACCEPTED = status().isAccepted(); 
+	protected static final ResultMatcher NO_CONTENT = status().isNoContent();
 	protected static final ResultMatcher FORBIDDEN = status().isForbidden(); 
+	protected static final ResultMatcher BAD_REQUEST = status().isBadRequest();
 	protected static final ResultMatcher NOT_FOUND = status().isNotFound();
 	protected static final ResultMatcher NOT_ACCEPTABLE = status().isNotAcceptable();
 	protected static final ResultMatcher UNAUTHORIZED = status().isUnauthorized();
@@ -126,6 +132,32 @@ public abstract class AbstractIntegrationTest {
 		return mapper.readValue(result.getResponse().getContentAsString(), clazz);
 	}
 
+	/**
+	 * Realiza uma requisição do tipo GET para endpoints que retornam registros no formato NDJSON (um por linha)
+	 * 
+	 * @param url URL do endpoint
+	 * @param token Usuário e senha para geração do token de autenticação
+	 * @param resultMatcher Resultado esperado (OK, FORBIDDEN, BAD_REQUEST, CREATED)
+	 * @param clazz Tipo de cada registro
+	 * @param params params Parametros que serão adicionados a URL ?param=...
+	 * @param uriVars Variáveis da URL, ex: /assets/{assetId}
+	 * @return
+	 * @throws Exception
+	 */
+	protected <T> List<T> getForLines(final String url, final String token, final ResultMatcher resultMatcher, final Class<T> clazz,
+			final MultiValueMap<String, String> params, final Object... uriVars) throws Exception {
+		final MvcResult result = mockMvc.perform(get(url, uriVars)
+				.header(HttpHeaders.AUTHORIZATION, "Basic " + Base64Utils.encodeToString(token.getBytes()))
+				.params(params)).andExpect(resultMatcher).andReturn();
+		final List<T> rows = new ArrayList<>();
+		for (String line : result.getResponse().getContentAsString().split("\n")) {
+			if (Strings.isNotBlank(line)) {
+				rows.add(mapper.readValue(line, clazz));
+			}
+		}
+		return rows;
+	}
+
 	/**
 	 * Realiza uma requisição do tipo POST
 	 * 
@@ -146,6 +178,24 @@ public abstract class AbstractIntegrationTest {
 				.andExpect(resultMatcher).andReturn(), clazz);
 	}
 
+	/**
+	 * Realiza uma requisição do tipo POST sem verificação do resultado
+	 * 
+	 * @param url URL do endpoint
+	 * @param token Usuário e senha para geração do token de autenticação
+	 * @param content Conteudo da requisição
+	 * @param uriVars Variáveis da URL, ex: /assets/{assetId}
+	 * @return Status HTTP da resposta
+	 * @throws Exception
+	 */
+	protected int postForStatus(final String url, final String token, final Object content, final Object... uriVars) 
+			throws Exception {
+		return mockMvc.perform(
+				post(url, uriVars).header(HttpHeaders.AUTHORIZATION, "Basic " + Base64Utils.encodeToString(token.getBytes()))
+				.contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(content)))
+				.andReturn().getResponse().getStatus();
+	}
+
 	/**
 	 * Realiza uma requisição do tipo PUT
 	 * 
@@ -1,7 +1,10 @@
 package com.maps.financial.integration;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -18,7 +21,11 @@ import com.maps.financial.domain.account.LaunchType;
 import com.maps.financial.resources.account.dto.AccountDTO;
 import com.maps.financial.resources.account.dto.BalanceDTO;
 import com.maps.financial.resources.account.dto.LaunchDTO;
+import com.maps.financial.resources.account.dto.LaunchOutcomeDTO;
+import com.maps.financial.resources.account.dto.LaunchReceiptDTO;
+import com.maps.financial.resources.account.dto.StatementDTO;
 import com.maps.financial.resources.commons.dto.DefaultErrorDTO;
+import com.maps.financial.resources.commons.dto.PageDTO;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class AccountIntegrationTest extends AbstractIntegrationTest {
@@ -28,6 +35,8 @@ public class AccountIntegrationTest extends AbstractIntegrationTest {
 	private static final String LAUNCH_IN_URL = BASE_URL + "/credito";
 	private static final String LAUNCH_OUT_URL = BASE_URL + "/debito";
 	private static final String BALANCE_URL = BASE_URL + "/saldo";
+	private static final String STATEMENT_URL = BASE_URL + "/extrato";
+	private static final String LAUNCH_BATCH_URL = LAUNCH_URL + "/lote";
 	
 	@Test
 	public void stage001_includeLaunchByAdminTest() throws Exception {
@@ -91,9 +100,10 @@ public class AccountIntegrationTest extends AbstractIntegrationTest {
 		final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
 		params.add("dataInicio", "2020-07-10");
 		params.add("dataFim", "2020-07-20");
-		final List<LaunchDTO> launches = Arrays.asList(getForList(LAUNCH_URL, TOKEN_USER, OK, LaunchDTO[].class, params));
+		final PageDTO<?> launches = getForObject(LAUNCH_URL, TOKEN_USER, OK, PageDTO.class, params);
 		assertNotNull(launches);
-		assertEquals(3, launches.size());
+		assertEquals(3, launches.getContent().size());
+		assertNull(launches.getNextCursor());
 	}
 	
 	@Test
@@ -105,6 +115,144 @@ public class AccountIntegrationTest extends AbstractIntegrationTest {
 		assertEquals(new BigDecimal(1001.30).setScale(2, BigDecimal.ROUND_HALF_EVEN), balance.getSaldo());
 	}
 
+	@Test
+	public void stage009_includeBackdatedLaunchTest() throws Exception {
+		final LaunchDTO launch = createLaunch(LaunchType.INBOUND, LocalDate.of(2020, 7, 12), new BigDecimal(5.00));
+		final AccountDTO result = postForObject(LAUNCH_IN_URL, TOKEN_USER, launch, CREATED, AccountDTO.class);
+		assertNotNull(result);
+        assertEquals(6, result.getLaunches().size());
+	}
+	
+	@Test
+	public void stage010_getBalanceAfterBackdatedLaunchTest() throws Exception {
+		assertEquals(new BigDecimal(1011.50).setScale(2, BigDecimal.ROUND_HALF_EVEN), getBalance("2020-07-11"));
+		assertEquals(new BigDecimal(1006.30).setScale(2, BigDecimal.ROUND_HALF_EVEN), getBalance("2020-07-15"));
+		assertEquals(new BigDecimal(1037.95).setScale(2, BigDecimal.ROUND_HALF_EVEN), getBalance("2020-07-21"));
+	}
+	
+	@Test
+	public void stage011_findLaunchesByPageTest() throws Exception {
+		final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+		params.add("dataInicio", "2020-07-01");
+		params.add("dataFim", "2020-07-31");
+		params.add("tamanho", "4");
+		final PageDTO<?> firstPage = getForObject(LAUNCH_URL, TOKEN_USER, OK, PageDTO.class, params);
+		assertEquals(4, firstPage.getContent().size());
+		assertNotNull(firstPage.getNextCursor());
+		
+		params.add("cursor", firstPage.getNextCursor());
+		final PageDTO<?> lastPage = getForObject(LAUNCH_URL, TOKEN_USER, OK, PageDTO.class, params);
+		assertEquals(2, lastPage.getContent().size());
+		assertNull(lastPage.getNextCursor());
+	}
+	
+	@Test
+	public void stage012_findLaunchesWithInvalidCursorTest() throws Exception {
+		final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+		params.add("dataInicio", "2020-07-01");
+		params.add("dataFim", "2020-07-31");
+		params.add("cursor", "invalido");
+		final DefaultErrorDTO error = getForObject(LAUNCH_URL, TOKEN_USER, BAD_REQUEST, DefaultErrorDTO.class, params);
+		assertNotNull(error);
+	}
+	
+	@Test
+	public void stage013_exportLaunchesTest() throws Exception {
+		final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+		params.add("dataInicio", "2020-07-01");
+		params.add("dataFim", "2020-07-31");
+		final List<LaunchDTO> launches = getForLines(LAUNCH_URL + "/exportacao", TOKEN_USER, OK, LaunchDTO.class, params);
+		assertEquals(6, launches.size());
+		assertEquals(LocalDate.of(2020, 7, 9), launches.get(0).getDate());
+		assertEquals(LocalDate.of(2020, 7, 12), launches.get(2).getDate());
+		assertEquals(LocalDate.of(2020, 7, 21), launches.get(5).getDate());
+	}
+	
+	@Test
+	public void stage014_generateStatementsByUserTest() throws Exception {
+		DefaultErrorDTO error = postForObject(STATEMENT_URL + "?mesInicio=2020-06&mesFim=2020-07", TOKEN_USER, null, 
+				FORBIDDEN, DefaultErrorDTO.class);
+		assertNotNull(error);
+	}
+	
+	@Test
+	public void stage015_generateStatementsTest() throws Exception {
+		postForObject(STATEMENT_URL + "?mesInicio=2020-06&mesFim=2020-07", TOKEN_ADMIN, null, NO_CONTENT, null);
+	}
+	
+	@Test
+	public void stage016_getStatementTest() throws Exception {
+		final StatementDTO june = getStatement("2020-06");
+		assertEquals(0, june.getQuantidadeLancamentos());
+		assertEquals(new BigDecimal("1000.00"), june.getSaldoFinal());
+		
+		final StatementDTO july = getStatement("2020-07");
+		assertEquals(6, july.getQuantidadeLancamentos());
+		assertEquals(new BigDecimal("1000.00"), july.getSaldoInicial());
+		assertEquals(new BigDecimal("51.65"), july.getEntradas());
+		assertEquals(new BigDecimal("13.70"), july.getSaidas());
+		assertEquals(new BigDecimal("1037.95"), july.getSaldoFinal());
+	}
+	
+	@Test
+	public void stage017_getStatementNotGeneratedTest() throws Exception {
+		final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+		params.add("mes", "2020-08");
+		getForObject(STATEMENT_URL, TOKEN_USER, NOT_FOUND, DefaultErrorDTO.class, params);
+	}
+	
+	@Test
+	public void stage018_includeLaunchesByAdminTest() throws Exception {
+		final List<LaunchDTO> launches = Arrays.asList(
+				createLaunch(LaunchType.INBOUND, LocalDate.of(2020, 9, 10), new BigDecimal("100.00")));
+		DefaultErrorDTO error = postForObject(LAUNCH_BATCH_URL, TOKEN_ADMIN, launches, FORBIDDEN, DefaultErrorDTO.class);
+		assertNotNull(error);
+	}
+	
+	@Test
+	public void stage019_includeLaunchesTest() throws Exception {
+		final BigDecimal balanceBefore = getBalance("2020-08-31");
+		final List<LaunchDTO> launches = Arrays.asList(
+				createLaunch(LaunchType.INBOUND, LocalDate.of(2020, 9, 10), new BigDecimal("100.00")),
+				createLaunch(LaunchType.OUTBOUND, LocalDate.of(2020, 9, 15), new BigDecimal("5000.00")),
+				createLaunch(null, LocalDate.of(2020, 9, 15), new BigDecimal("1.00")),
+				createLaunch(LaunchType.OUTBOUND, LocalDate.of(2020, 9, 5), new BigDecimal("30.00")));
+		final LaunchOutcomeDTO[] outcomes = postForObject(LAUNCH_BATCH_URL, TOKEN_USER, launches, OK, LaunchOutcomeDTO[].class);
+		assertEquals(4, outcomes.length);
+		assertTrue(outcomes[0].isAceito());
+		assertFalse(outcomes[1].isAceito());
+		assertNotNull(outcomes[1].getMensagem());
+		assertFalse(outcomes[2].isAceito());
+		assertTrue(outcomes[3].isAceito());
+		assertEquals(3, outcomes[3].getIndice());
+		
+		assertEquals(balanceBefore.subtract(new BigDecimal("30.00")), getBalance("2020-09-07"));
+		assertEquals(balanceBefore.add(new BigDecimal("70.00")), getBalance("2020-09-30"));
+	}
+	
+	@Test
+	public void stage020_includeLaunchWithReceiptTest() throws Exception {
+		final LaunchDTO launch = createLaunch(LaunchType.INBOUND, LocalDate.of(2020, 10, 5), new BigDecimal("10.00"));
+		final LaunchReceiptDTO result = postForObject(LAUNCH_IN_URL + "?recibo=true", TOKEN_USER, launch, CREATED, 
+				LaunchReceiptDTO.class);
+		assertNotNull(result.getId());
+		assertEquals(getBalance(LocalDate.now().toString()), result.getSaldo());
+	}
+	
+	private StatementDTO getStatement(String month) throws Exception {
+		final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+		params.add("mes", month);
+		return getForObject(STATEMENT_URL, TOKEN_USER, OK, StatementDTO.class, params);
+	}
+	
+	private BigDecimal getBalance(String date) throws Exception {
+		final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+		params.add("data", date);
+		final BalanceDTO balance = getForObject(BALANCE_URL, TOKEN_USER, OK, BalanceDTO.class, params);
+		assertNotNull(balance);
+		return balance.getSaldo();
+	}
+
 	private LaunchDTO createLaunch(LaunchType type, LocalDate date, BigDecimal value) {
 		return LaunchDTO.builder()
 				.description("description")
@@ -2,25 +2,49 @@ package com.maps.financial.integration;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
+import com.maps.financial.domain.asset.Asset;
+import com.maps.financial.domain.asset.AssetService;
 import com.maps.financial.domain.asset.AssetType;
+import com.maps.financial.domain.asset.MovementTicketStatus;
 import com.maps.financial.domain.asset.MovementType;
+import com.maps.financial.domain.asset.PositionCache;
+import com.maps.financial.domain.commons.OptimisticRetry;
 import com.maps.financial.resources.asset.dto.AssetDTO;
 import com.maps.financial.resources.asset.dto.AssetMovementDTO;
+import com.maps.financial.resources.asset.dto.AssetReceiptDTO;
 import com.maps.financial.resources.asset.dto.MarketPriceDTO;
+import com.maps.financial.resources.asset.dto.MovementTicketDTO;
 import com.maps.financial.resources.asset.dto.PositionDTO;
 import com.maps.financial.resources.commons.dto.DefaultErrorDTO;
+import com.maps.financial.resources.commons.dto.PageDTO;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class AssetIntegrationTest extends AbstractIntegrationTest {
@@ -29,6 +53,7 @@ public class AssetIntegrationTest extends AbstractIntegrationTest {
 	private static final String MOVEMENT_URL = "/movimentacao";
 	private static final String MOVEMENT_BUY_URL = MOVEMENT_URL + "/compra";
 	private static final String MOVEMENT_SELL_URL = MOVEMENT_URL + "/venda";
+	private static final String MOVEMENT_TICKET_URL = MOVEMENT_URL + "/situacao/{0}";
 	private static final String BASE_URL_ID = BASE_URL + "/{0}";
 	private static final String POSITION_ID = BASE_URL + "/posicao";
 	private static final String ASSETMOVEMENT_URL = BASE_URL_ID + MOVEMENT_URL;
@@ -38,6 +63,21 @@ public class AssetIntegrationTest extends AbstractIntegrationTest {
 	private static final String nomeAtivoUpdated = "ATIVO 002";
 	private static Long assetId;
 	
+	@Autowired
+	private AssetService assetService;
+	
+	@Autowired
+	private OptimisticRetry optimisticRetry;
+	
+	@Autowired
+	private PositionCache positionCache;
+	
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
 	@Test
 	public void stage001_createNewAssetByNotAdminTest() throws Exception {
 		final AssetDTO asset = createAsset();
@@ -212,6 +252,16 @@ public class AssetIntegrationTest extends AbstractIntegrationTest {
 		assertNotNull(error);
 	}
 	
+	@Test
+	public void stage019_includeMovementQuantityOutOfRangeTest() throws Exception {
+		final AssetMovementDTO movement = createMovement();
+		movement.setDate(LocalDate.of(2020, 7, 14));
+		movement.setType(MovementType.SELL);
+		movement.setQuantity(new BigDecimal("100000000000"));
+		DefaultErrorDTO error = postForObject(ASSETMOVEMENT_URL, TOKEN_USER, movement, BAD_REQUEST, DefaultErrorDTO.class, assetId);
+		assertEquals("exception.message.value-out-of-range", error.getMessage());
+	}
+	
 	@Test
 	public void stage020_includeMovementBuyWithAssetNameTest() throws Exception {
 		final AssetMovementDTO movement = createMovement();
@@ -238,14 +288,67 @@ public class AssetIntegrationTest extends AbstractIntegrationTest {
         assertEquals(movement.getDate(), result.getMovements().get(6).getDate());
 	}
 	
+	@Test
+	public void stage021_includeMovementWithReceiptTest() throws Exception {
+		final AssetMovementDTO movement = createMovement();
+		movement.setDate(LocalDate.of(2020, 7, 22));
+		final AssetReceiptDTO result = postForObject(ASSETMOVEMENT_URL + "?recibo=true", TOKEN_USER, movement, CREATED, 
+				AssetReceiptDTO.class, assetId);
+		assertNotNull(result.getId());
+		assertEquals(assetId, result.getAtivo());
+		assertEquals(nomeAtivoUpdated, result.getPosicao().getNomeAtivo());
+		assertEquals(formatBigDecimalScale(6.00), result.getPosicao().getQuantidadeTotal());
+	}
+	
 	@Test
 	public void stage022_findMovementsByDateTest() throws Exception {
 		final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
 		params.add("dataInicio", "2020-07-10");
 		params.add("dataFim", "2020-07-20");
-		final List<AssetMovementDTO> movements = Arrays.asList(getForList(ASSETMOVEMENT_URL, TOKEN_ADMIN, OK, AssetMovementDTO[].class, params, assetId));
+		final PageDTO<?> movements = getForObject(ASSETMOVEMENT_URL, TOKEN_ADMIN, OK, PageDTO.class, params, assetId);
 		assertNotNull(movements);
+		assertEquals(5, movements.getContent().size());
+		assertNull(movements.getNextCursor());
+	}
+	
+	@Test
+	public void stage022_findMovementsByTypeAndPageTest() throws Exception {
+		final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+		params.add("dataInicio", "2020-07-10");
+		params.add("dataFim", "2020-07-20");
+		params.add("tipo", "SELL");
+		final PageDTO<?> sells = getForObject(ASSETMOVEMENT_URL, TOKEN_ADMIN, OK, PageDTO.class, params, assetId);
+		assertEquals(1, sells.getContent().size());
+		
+		params.remove("tipo");
+		params.add("tamanho", "3");
+		final PageDTO<?> firstPage = getForObject(ASSETMOVEMENT_URL, TOKEN_ADMIN, OK, PageDTO.class, params, assetId);
+		assertEquals(3, firstPage.getContent().size());
+		assertNotNull(firstPage.getNextCursor());
+		params.add("cursor", firstPage.getNextCursor());
+		final PageDTO<?> lastPage = getForObject(ASSETMOVEMENT_URL, TOKEN_ADMIN, OK, PageDTO.class, params, assetId);
+		assertEquals(2, lastPage.getContent().size());
+		assertNull(lastPage.getNextCursor());
+	}
+	
+	@Test
+	public void stage022_exportMovementsTest() throws Exception {
+		final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+		params.add("dataInicio", "2020-07-10");
+		params.add("dataFim", "2020-07-20");
+		final List<AssetMovementDTO> movements = getForLines(ASSETMOVEMENT_URL + "/exportacao", TOKEN_ADMIN, OK, 
+				AssetMovementDTO.class, params, assetId);
 		assertEquals(5, movements.size());
+		assertEquals(LocalDate.of(2020, 7, 10), movements.get(0).getDate());
+		assertEquals(LocalDate.of(2020, 7, 20), movements.get(4).getDate());
+	}
+	
+	@Test
+	public void stage022_exportMovementsAssetNotFoundTest() throws Exception {
+		final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+		params.add("dataInicio", "2020-07-10");
+		params.add("dataFim", "2020-07-20");
+		getForLines(ASSETMOVEMENT_URL + "/exportacao", TOKEN_ADMIN, NOT_FOUND, DefaultErrorDTO.class, params, Long.MAX_VALUE);
 	}
 	
 	@Test
@@ -280,6 +383,17 @@ public class AssetIntegrationTest extends AbstractIntegrationTest {
         assertEquals(LocalDate.of(2020, 7, 5), result.getMarketPrices().get(0).getDate());
 	}
 	
+	@Test
+	public void stage025_includeMarketPriceWithReceiptTest() throws Exception {
+		final MarketPriceDTO marketPrice = createMarketPrice();
+		marketPrice.setDate(LocalDate.of(2020, 7, 24));
+		final AssetReceiptDTO result = postForObject(ADD_MARKET_PRICE_URL + "?recibo=true", TOKEN_ADMIN, marketPrice, CREATED, 
+				AssetReceiptDTO.class, assetId);
+		assertNotNull(result.getId());
+		assertEquals(assetId, result.getAtivo());
+		assertNotNull(result.getPosicao());
+	}
+	
 	@Test
 	public void stage026_findAssetsPositionTest() throws Exception {
 		final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
@@ -294,6 +408,27 @@ public class AssetIntegrationTest extends AbstractIntegrationTest {
 		assertEquals(formatBigDecimalScale(-45.00), positions.get(128).getLucro());
 	}
 	
+	@Test
+	public void stage026_findAssetsPositionWithDatabaseAggregationTest() throws Exception {
+		final Object service = AopTestUtils.getTargetObject(assetService);
+		assetService.findAllIds().forEach(positionCache::invalidate);
+		ReflectionTestUtils.setField(service, "positionDatabaseAggregation", true);
+		try {
+			final MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+			params.add("data", "2020-07-15");
+			final List<PositionDTO> positions = Arrays.asList(getForList(POSITION_ID, TOKEN_ADMIN, OK, PositionDTO[].class, params, assetId));
+			assertEquals(129, positions.size());
+			assertEquals(nomeAtivoUpdated, positions.get(128).getNomeAtivo());
+			assertEquals(formatBigDecimalScale(3.00), positions.get(128).getQuantidadeTotal());
+			assertEquals(formatBigDecimalScale(10.50), positions.get(128).getValorMercadoTotal());
+			assertEquals(formatBigDecimalScale(0.23), positions.get(128).getRendimento());
+			assertEquals(formatBigDecimalScale(-45.00), positions.get(128).getLucro());
+		} finally {
+			ReflectionTestUtils.setField(service, "positionDatabaseAggregation", false);
+			assetService.findAllIds().forEach(positionCache::invalidate);
+		}
+	}
+	
 	@Test
 	public void stage027_deleteByNotAdminTest() throws Exception {
 		DefaultErrorDTO error = deleteObject(BASE_URL_ID, TOKEN_USER, FORBIDDEN, DefaultErrorDTO.class, assetId);
@@ -305,6 +440,106 @@ public class AssetIntegrationTest extends AbstractIntegrationTest {
 		deleteObject(BASE_URL_ID, TOKEN_ADMIN, OK, AssetDTO.class, assetId);
 	}
 
+	@Test
+	public void stage029_concurrentSellsWithoutOversellTest() throws Exception {
+		final AssetDTO asset = createAsset();
+		asset.setName("ATIVO 003");
+		final Long concurrentAssetId = postForObject(BASE_URL, TOKEN_ADMIN, asset, CREATED, AssetDTO.class).getId();
+		final AssetMovementDTO buy = createMovement();
+		buy.setQuantity(new BigDecimal(10));
+		buy.setDate(LocalDate.of(2020, 7, 6));
+		postForObject(ASSETMOVEMENT_URL, TOKEN_USER, buy, CREATED, AssetDTO.class, concurrentAssetId);
+		
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		final List<Future<Integer>> sells = new ArrayList<>();
+		try {
+			for (int i = 0; i < 20; i++) {
+				final AssetMovementDTO sell = createMovement();
+				sell.setType(MovementType.SELL);
+				sell.setDate(LocalDate.of(2020, 7, 7));
+				sells.add(executor.submit(() -> postForStatus(ASSETMOVEMENT_URL, TOKEN_USER, sell, concurrentAssetId)));
+			}
+			int created = 0;
+			for (Future<Integer> status : sells) {
+				created += status.get(60, TimeUnit.SECONDS) == HttpStatus.CREATED.value() ? 1 : 0;
+			}
+			assertEquals(10, created);
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		final AssetDTO result = getForObject(BASE_URL_ID, TOKEN_ADMIN, OK, AssetDTO.class, concurrentAssetId);
+		assertEquals(11, result.getMovements().size());
+		deleteObject(BASE_URL_ID, TOKEN_ADMIN, OK, AssetDTO.class, concurrentAssetId);
+	}
+
+	@Test
+	public void stage030_includeMovementAsyncTest() throws Exception {
+		final AssetDTO asset = createAsset();
+		asset.setName("ATIVO 004");
+		final Long asyncAssetId = postForObject(BASE_URL, TOKEN_ADMIN, asset, CREATED, AssetDTO.class).getId();
+		final AssetMovementDTO buy = createMovement();
+		buy.setDate(LocalDate.of(2020, 7, 6));
+		buy.setAtivo(asset.getName());
+		final MovementTicketDTO ticket = postForObject(MOVEMENT_BUY_URL + "?assincrono=true", TOKEN_USER, buy, ACCEPTED, 
+				MovementTicketDTO.class);
+		assertNotNull(ticket.getProtocolo());
+		
+		MovementTicketDTO result = ticket;
+		for (int attempt = 0; attempt < 100 && MovementTicketStatus.PENDING.equals(result.getSituacao()); attempt++) {
+			Thread.sleep(50);
+			result = getForObject(MOVEMENT_TICKET_URL, TOKEN_USER, OK, MovementTicketDTO.class, ticket.getProtocolo());
+		}
+		assertEquals(MovementTicketStatus.COMPLETED, result.getSituacao());
+		assertNotNull(result.getMovimentacao());
+		getForObject(MOVEMENT_TICKET_URL, TOKEN_ADMIN, NOT_FOUND, DefaultErrorDTO.class, ticket.getProtocolo());
+		
+		final AssetMovementDTO sell = createMovement();
+		sell.setQuantity(new BigDecimal(5));
+		sell.setDate(LocalDate.of(2020, 7, 7));
+		sell.setAtivo(asset.getName());
+		postForObject(MOVEMENT_SELL_URL + "?assincrono=true", TOKEN_USER, sell, NOT_ACCEPTABLE, DefaultErrorDTO.class);
+		
+		assertEquals(1, getForObject(BASE_URL_ID, TOKEN_ADMIN, OK, AssetDTO.class, asyncAssetId).getMovements().size());
+		deleteObject(BASE_URL_ID, TOKEN_ADMIN, OK, AssetDTO.class, asyncAssetId);
+	}
+
+	@Test
+	public void stage031_actuatorRestrictedToAdminTest() throws Exception {
+		getForObject("/actuator/health", TOKEN_USER, OK, Map.class);
+		getForObject("/actuator/metrics", TOKEN_USER, FORBIDDEN, Map.class);
+		getForObject("/actuator/conflicts", TOKEN_USER, FORBIDDEN, Map.class);
+		assertNotNull(getForObject("/actuator/metrics", TOKEN_ADMIN, OK, Map.class));
+		assertNotNull(getForObject("/actuator/conflicts", TOKEN_ADMIN, OK, Map.class));
+	}
+
+	@Test
+	public void stage032_optimisticConflictRetriedTest() throws Exception {
+		final AssetDTO asset = createAsset();
+		asset.setName("ATIVO 005");
+		final Long conflictAssetId = postForObject(BASE_URL, TOKEN_ADMIN, asset, CREATED, AssetDTO.class).getId();
+		
+		//Alteração concorrente gravada diretamente no banco (ex.: outra instância da aplicação), fora do LockRegistry
+		final TransactionTemplate otherInstance = new TransactionTemplate(transactionManager);
+		otherInstance.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		final AtomicInteger attempts = new AtomicInteger();
+		optimisticRetry.execute(Asset.class, conflictAssetId, () -> {
+			final Asset current = assetService.findById(conflictAssetId);
+			if (attempts.incrementAndGet() == 1) {
+				otherInstance.execute(status -> jdbcTemplate.update(
+						"update financial_asset set name = 'ATIVO 005 OUTRA INSTANCIA', version = version + 1 where id = ?", 
+						conflictAssetId));
+			}
+			current.setName("ATIVO 005 ALTERADO");
+			return current;
+		});
+		
+		assertEquals(2, attempts.get());
+		assertEquals(Long.valueOf(1L), optimisticRetry.getConflictsById().get("Asset#" + conflictAssetId));
+		assertEquals("ATIVO 005 ALTERADO", getForObject(BASE_URL_ID, TOKEN_ADMIN, OK, AssetDTO.class, conflictAssetId).getName());
+		deleteObject(BASE_URL_ID, TOKEN_ADMIN, OK, AssetDTO.class, conflictAssetId);
+	}
+
 	private BigDecimal formatBigDecimalScale(Double returnedValue) {
 		BigDecimal bigDecimalFormated = new BigDecimal(returnedValue);
 		return bigDecimalFormated.setScale(2, BigDecimal.ROUND_HALF_EVEN);